@@ -0,0 +1,93 @@
+package org.ml.options.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.ml.options.OptionsCodeGenerator;
+import org.ml.options.XMLParsingException;
+
+/**
+ * Generates the class for option definitions with
+ * {@link OptionsCodeGenerator} and adds the output directory to the compile
+ * sources of the project. The definitions are an XML file (ending in
+ * <code>.xml</code>) or a snapshot. The class is only generated again if the
+ * definitions are newer than the source file. E. g.
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;org.ml.options&lt;/groupId&gt;
+ *     &lt;artifactId&gt;launix-options-maven-plugin&lt;/artifactId&gt;
+ *     &lt;version&gt;3.5&lt;/version&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;goals&gt;&lt;goal&gt;generate&lt;/goal&gt;&lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;definitions&gt;src/main/options/tool.xml&lt;/definitions&gt;
+ *                 &lt;className&gt;com.example.ToolOptions&lt;/className&gt;
+ *                 &lt;leadingText&gt;tool&lt;/leadingText&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    /**
+     * The file with the definitions
+     */
+    @Parameter(required = true)
+    private File definitions;
+
+    /**
+     * The fully qualified name of the class to generate
+     */
+    @Parameter(required = true)
+    private String className;
+
+    /**
+     * The text preceding the command lines in the help text (usually the name
+     * of the program)
+     */
+    @Parameter(defaultValue = "")
+    private String leadingText;
+
+    /**
+     * The root directory for the generated source
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/launix-options", required = true)
+    private File outputDirectory;
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+
+        if (!definitions.isFile()) {
+            throw new MojoExecutionException("Definitions not found: " + definitions);
+        }
+
+        File source = new File(outputDirectory, className.replace('.', '/') + ".java");
+        if (source.isFile() && source.lastModified() >= definitions.lastModified()) {
+            getLog().debug("Up to date: " + source);
+        } else {
+            try {
+                Path file = OptionsCodeGenerator.generate(definitions.toPath(), className, outputDirectory.toPath(),
+                        leadingText == null ? "" : leadingText);
+                getLog().info("Generated " + file);
+            } catch (IOException | XMLParsingException | IllegalArgumentException ex) {
+                throw new MojoExecutionException("Could not generate " + className + " from " + definitions, ex);
+            }
+        }
+
+        project.addCompileSourceRoot(outputDirectory.getPath());
+
+    }
+}
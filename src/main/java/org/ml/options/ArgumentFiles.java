@@ -0,0 +1,294 @@
+package org.ml.options;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Support for argument files: an argument of the form <code>@file</code> is
+ * replaced by the arguments contained in the file. This allows to pass more
+ * arguments than the operating system supports on a command line. An argument
+ * starting with <code>@@</code> is not a file, but stands for the argument
+ * with the first <code>@</code> removed. Argument files can not be nested.
+ * <p>
+ * The file is encoded in UTF-8 and contains the arguments in one of two
+ * formats:
+ * <ul>
+ * <li>If the file contains a NUL byte, the arguments are separated by NUL
+ * bytes (as produced by e. g. <code>find -print0</code>) and taken as they
+ * are. A final argument without a terminating NUL byte is an argument as
+ * well, unless it is empty.</li>
+ * <li>Otherwise, the arguments are separated by whitespace (including line
+ * breaks). Parts of an argument can be enclosed in single or double quotes to
+ * include whitespace. Within double quotes, a backslash takes the following
+ * character literally.</li>
+ * </ul>
+ * The file is mapped into memory rather than read. {@link #iterator(Path)}
+ * decodes the arguments one after the other directly from the mapped bytes,
+ * only when they are requested, so e. g. a long list of data items can be
+ * passed on to {@link OptionSet#getDataItems(Iterator)} without holding all
+ * of them at the same time. The format is determined along with the first
+ * argument: for a NUL separated file, this only looks at the bytes up to the
+ * first NUL byte, while a file with whitespace separated arguments has to be
+ * scanned once in full.
+ * <p>
+ * {@link #expand(String[])} and {@link #read(Path)} use the same iterator,
+ * but collect all arguments in an array, since the checks need random access
+ * to the arguments.
+ */
+public final class ArgumentFiles {
+
+    private final static String CLASS = "ArgumentFiles";
+
+    private ArgumentFiles() {
+    }
+
+    /**
+     * Replace all arguments of the form <code>@file</code> by the arguments
+     * contained in the file.
+     * <p>
+     *
+     * @param args The command line arguments
+     *             <p>
+     * @return A new array with the expanded arguments
+     * @throws IOException If an argument file can not be read or is malformed
+     */
+    public static String[] expand(String[] args) throws IOException {
+
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+
+        Collector collector = new Collector(args.length);
+        for (String arg : args) {
+            if (arg == null) {
+                throw new IllegalArgumentException(CLASS + ": args may not contain null");
+            }
+            if (arg.startsWith("@@")) {
+                collector.add(arg.substring(1));
+            } else if (arg.startsWith("@") && arg.length() > 1) {
+                collector.addAll(iterator(Paths.get(arg.substring(1))));
+            } else {
+                collector.add(arg);
+            }
+        }
+
+        return collector.toArray();
+
+    }
+
+    /**
+     * Return the arguments contained in the given file
+     * <p>
+     *
+     * @param file The argument file
+     *             <p>
+     * @return An array with the arguments
+     * @throws IOException If the file can not be read or is malformed
+     */
+    public static String[] read(Path file) throws IOException {
+
+        if (file == null) {
+            throw new IllegalArgumentException(CLASS + ": file may not be null");
+        }
+
+        Collector collector = new Collector(16);
+        collector.addAll(iterator(file));
+        return collector.toArray();
+
+    }
+
+    /**
+     * Return the arguments contained in the given file, one after the other.
+     * The file is mapped into memory (and closed again) right away, but the
+     * arguments are only decoded when they are requested. A malformed file
+     * is reported by the iterator as an <code>UncheckedIOException</code>
+     * once the malformed argument is reached.
+     * <p>
+     *
+     * @param file The argument file
+     *             <p>
+     * @return An iterator over the arguments
+     * @throws IOException If the file can not be read
+     */
+    public static Iterator<String> iterator(Path file) throws IOException {
+
+        if (file == null) {
+            throw new IllegalArgumentException(CLASS + ": file may not be null");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(CLASS + ": argument file too large: " + file);
+            }
+            if (size == 0) {
+                return Collections.emptyIterator();
+            }
+
+            //.... The mapping remains valid after the channel has been closed
+            return new Tokens(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), (int) size, file);
+
+        }
+
+    }
+
+    //.... Helper method: the bytes separating arguments
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * The arguments of a file, decoded from the mapped bytes one after the
+     * other
+     */
+    private static class Tokens implements Iterator<String> {
+
+        private final MappedByteBuffer buffer;
+        private final int length;
+        private final Path file;
+        private int pos = 0;
+        private Boolean nul = null;                     // The format, determined with the first argument
+        private String next = null;
+        //.... The bytes of the argument currently being assembled
+        private byte[] bytes = new byte[256];
+        private int count = 0;
+
+        Tokens(MappedByteBuffer buffer, int length, Path file) {
+            this.buffer = buffer;
+            this.length = length;
+            this.file = file;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && pos < length) {
+                if (nul == null) {
+                    int i = 0;
+                    while (i < length && buffer.get(i) != 0) {
+                        i++;
+                    }
+                    nul = i < length;
+                }
+                next = nul ? nextNul() : nextWhitespace();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException(CLASS + ": no more arguments");
+            }
+            String result = next;
+            next = null;
+            return result;
+        }
+
+        //.... Helper method: the next argument up to a NUL byte (or the end of the file)
+        private String nextNul() {
+            int end = pos;
+            while (end < length && buffer.get(end) != 0) {
+                end++;
+            }
+            count = end - pos;
+            if (count > bytes.length) {
+                bytes = new byte[Math.max(count, 2 * bytes.length)];
+            }
+            buffer.get(pos, bytes, 0, count);
+            pos = end + 1;
+            return new String(bytes, 0, count, StandardCharsets.UTF_8);
+        }
+
+        //.... Helper method: the next argument separated by whitespace, taking quotes into account, or null
+        private String nextWhitespace() {
+
+            byte b;
+
+            while (pos < length && isWhitespace(buffer.get(pos))) {
+                pos++;
+            }
+            if (pos == length) {
+                return null;
+            }
+
+            count = 0;
+            while (pos < length && !isWhitespace(b = buffer.get(pos))) {
+                pos++;
+                if (b == '"' || b == '\'') {                   // A quoted part, up to the matching quote
+                    while (true) {
+                        if (pos == length) {
+                            throw new UncheckedIOException(new IOException(CLASS
+                                    + ": unterminated quote in argument file: " + file));
+                        }
+                        byte c = buffer.get(pos++);
+                        if (c == b) {
+                            break;
+                        }
+                        if (c == '\\' && b == '"' && pos < length) {
+                            c = buffer.get(pos++);
+                        }
+                        append(c);
+                    }
+                } else {
+                    append(b);
+                }
+            }
+            return new String(bytes, 0, count, StandardCharsets.UTF_8);
+
+        }
+
+        //.... Helper method: add a byte to the argument being assembled
+        private void append(byte b) {
+            if (count == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * count);
+            }
+            bytes[count++] = b;
+        }
+    }
+
+    /**
+     * The arguments collected for {@link #expand(String[])} and
+     * {@link #read(Path)}
+     */
+    private static class Collector {
+
+        private String[] tokens;
+        private int count = 0;
+
+        Collector(int capacity) {
+            tokens = new String[Math.max(capacity, 16)];
+        }
+
+        void add(String token) {
+            if (count == tokens.length) {
+                tokens = Arrays.copyOf(tokens, 2 * count);
+            }
+            tokens[count++] = token;
+        }
+
+        void addAll(Iterator<String> iterator) throws IOException {
+            try {
+                while (iterator.hasNext()) {
+                    add(iterator.next());
+                }
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        String[] toArray() {
+            return count == tokens.length ? tokens : Arrays.copyOf(tokens, count);
+        }
+    }
+}
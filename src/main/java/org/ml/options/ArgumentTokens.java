@@ -0,0 +1,367 @@
+package org.ml.options;
+
+import java.util.Arrays;
+
+/**
+ * The command line arguments, classified once against an
+ * {@link OptionDispatcher}. For each argument, this records whether it starts
+ * with one of the prefixes and which option shapes it matches, together with
+ * the positions of detail and value. The checks for the individual sets then
+ * only need to look up their own options for these shapes, without scanning
+ * the arguments again.
+ * <p>
+ * If requested, the first argument {@link #END_OF_OPTIONS} marks the end of
+ * the options: all arguments following it are data, they are not classified
+ * at all. If the data must be the last arguments, the data following the last
+ * option are not classified either: they are found from the end, as the
+ * arguments which neither start with a prefix nor can match any option
+ * judging by their first character.
+ * <p>
+ * The arguments can be a range within a larger array, which is used as it is.
+ * All indices used here are relative to the start of that range.
+ * <p>
+ * An instance can be used to classify one argument vector after the other
+ * (see {@link #classify(OptionDispatcher, String[], int, int, Options.Prefix,
+ * Options.Prefix, boolean, boolean)}). Its arrays are only replaced if they are too
+ * small, so repeated checks of argument vectors of similar length do not
+ * allocate anything here.
+ */
+final class ArgumentTokens {
+
+    private final static String CLASS = "ArgumentTokens";
+    /**
+     * The argument marking the end of the options
+     */
+    final static String END_OF_OPTIONS = "--";
+    private OptionDispatcher dispatcher;
+    private String[] arguments;
+    private int offset;
+    private int length;
+    private boolean[] prefixed = new boolean[0];
+    //.... The shapes found for argument i are shapes[start[i]] ... shapes[start[i + 1] - 1], their
+    //     bounds are stored in blocks of OptionDispatcher.BOUNDS elements in the same order
+    private int[] start = new int[1];
+    private int[] shapes = new int[0];
+    private int[] bounds = new int[0];
+    //.... Summaries as bitmasks over the shapes (see SetFilter): all shapes found in any argument, the
+    //     shapes of prefixed arguments matching just one shape, and the first such argument per shape
+    private long[] present = new long[0];
+    private long[] single = new long[0];
+    private int[] firstArgument = new int[0];
+    //.... Prefixed arguments matching several shapes, and the first prefixed one matching none (or -1)
+    private int[] ambiguous = new int[0];
+    private int ambiguousCount;
+    private int unknown;
+    //.... The index of the end of options marker (or -1), and of the last argument before it which is
+    //     prefixed or matches any shape (or -1)
+    private int terminator;
+    private int lastOption;
+    //.... Scratch space for the shapes of a single argument
+    private int[] found = new int[0];
+    private int[] foundBounds = new int[0];
+
+    /**
+     * Constructor for an instance which has not classified any arguments yet
+     */
+    ArgumentTokens() {
+    }
+
+    /**
+     * Constructor. This classifies all arguments (see
+     * {@link #classify(OptionDispatcher, String[], int, int, Options.Prefix,
+     * Options.Prefix, boolean, boolean)}).
+     */
+    ArgumentTokens(OptionDispatcher dispatcher, String[] arguments, int offset, int length, Options.Prefix prefix,
+                   Options.Prefix altPrefix, boolean endOfOptions, boolean requireDataLast) {
+        classify(dispatcher, arguments, offset, length, prefix, altPrefix, endOfOptions, requireDataLast);
+    }
+
+    /**
+     * Classify the given arguments, replacing the results for any arguments
+     * classified before.
+     * <p>
+     *
+     * @param dispatcher   The dispatch structure for the options of all sets
+     *                     to be checked
+     * @param arguments    The array holding the command line arguments
+     * @param offset       The index of the first argument within the array
+     * @param length       The number of arguments
+     * @param prefix       The prefix for options
+     * @param altPrefix    The prefix for alternate keys of options
+     * @param endOfOptions    A boolean to select whether
+     *                        {@link #END_OF_OPTIONS} marks the end of the
+     *                        options
+     * @param requireDataLast A boolean to indicate whether the data items have
+     *                        to be the last ones on the command line or not
+     */
+    void classify(OptionDispatcher dispatcher, String[] arguments, int offset, int length, Options.Prefix prefix,
+                  Options.Prefix altPrefix, boolean endOfOptions, boolean requireDataLast) {
+
+        if (dispatcher == null) {
+            throw new IllegalArgumentException(CLASS + ": dispatcher may not be null");
+        }
+        if (arguments == null) {
+            throw new IllegalArgumentException(CLASS + ": arguments may not be null");
+        }
+        if (offset < 0 || length < 0 || offset > arguments.length - length) {
+            throw new IllegalArgumentException(CLASS + ": invalid range for arguments");
+        }
+        if (prefix == null) {
+            throw new IllegalArgumentException(CLASS + ": prefix may not be null");
+        }
+        if (altPrefix == null) {
+            throw new IllegalArgumentException(CLASS + ": altPrefix may not be null");
+        }
+
+        this.dispatcher = dispatcher;
+        this.arguments = arguments;
+        this.offset = offset;
+        this.length = length;
+
+        //.... Make sure the arrays are large enough, and reset the summaries
+        int max = dispatcher.getMaxShapes();
+        if (found.length < max) {
+            found = new int[max];
+            foundBounds = new int[max * OptionDispatcher.BOUNDS];
+        }
+        if (prefixed.length < length) {
+            prefixed = new boolean[length];
+            start = new int[length + 1];
+            ambiguous = new int[length];
+        }
+        if (shapes.length < length) {
+            shapes = new int[length];
+            bounds = new int[length * OptionDispatcher.BOUNDS];
+        }
+        int shapeCount = dispatcher.getShapeCount();
+        if (present.length != Bits.words(shapeCount)) {     // The bitmasks must match those of the SetFilter
+            present = new long[Bits.words(shapeCount)];
+            single = new long[present.length];
+        } else {
+            Arrays.fill(present, 0L);
+            Arrays.fill(single, 0L);
+        }
+        if (firstArgument.length < shapeCount) {
+            firstArgument = new int[shapeCount];
+        }
+        Arrays.fill(firstArgument, -1);
+
+        String pre = prefix.getName();
+        String altPre = altPrefix.getName();
+        int count = 0;
+        int n;
+        ambiguousCount = 0;
+        unknown = -1;
+        terminator = -1;
+        lastOption = -1;
+
+        //.... The data behind the last option (if they must be last) are found from the end, without classifying them
+        int classified = length;
+        if (requireDataLast) {
+            while (classified > 0 && isData(arguments[offset + classified - 1], pre, altPre, endOfOptions)) {
+                classified--;
+            }
+        }
+
+        for (int i = 0; i < classified; i++) {
+            String arg = arguments[offset + i];
+            start[i] = count;
+            if (endOfOptions && arg.equals(END_OF_OPTIONS)) {
+                terminator = i;                             // Nothing to classify from here on
+                prefixed[i] = true;
+                Arrays.fill(start, i + 1, length, count);
+                break;
+            }
+            prefixed[i] = arg.startsWith(pre) || arg.startsWith(altPre);
+            n = dispatcher.matchShapes(arg, found, foundBounds);
+            if (prefixed[i] || n > 0) {
+                lastOption = i;
+            }
+            for (int j = 0; j < n; j++) {
+                Bits.set(present, found[j]);
+            }
+            if (prefixed[i]) {
+                if (n == 1) {
+                    Bits.set(single, found[0]);
+                    if (firstArgument[found[0]] < 0) {
+                        firstArgument[found[0]] = i;
+                    }
+                } else if (n > 1) {
+                    ambiguous[ambiguousCount++] = i;
+                } else if (unknown < 0) {
+                    unknown = i;
+                }
+            }
+            if (count + n > shapes.length) {
+                shapes = Arrays.copyOf(shapes, Math.max(count + n, 2 * shapes.length));
+                bounds = Arrays.copyOf(bounds, shapes.length * OptionDispatcher.BOUNDS);
+            }
+            System.arraycopy(found, 0, shapes, count, n);
+            System.arraycopy(foundBounds, 0, bounds, count * OptionDispatcher.BOUNDS, n * OptionDispatcher.BOUNDS);
+            count += n;
+        }
+        if (terminator < 0) {
+            Arrays.fill(prefixed, classified, length, false);
+            Arrays.fill(start, classified, length, count);
+        }
+        start[length] = count;
+
+    }
+
+    //.... Helper method: whether an argument is data for sure, without classifying it
+    private boolean isData(String arg, String pre, String altPre, boolean endOfOptions) {
+        return !arg.startsWith(pre) && !arg.startsWith(altPre) && !dispatcher.mayMatch(arg)
+                && !(endOfOptions && arg.equals(END_OF_OPTIONS));
+    }
+
+    /**
+     * Return the array holding the command line arguments (see
+     * {@link #getOffset()})
+     */
+    String[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Return the index of the first argument within the array
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Return the number of arguments
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Return the argument with the given index
+     */
+    String getArgument(int index) {
+        return arguments[offset + index];
+    }
+
+    /**
+     * Return the shapes found in any argument, as a bitmask
+     */
+    long[] getPresent() {
+        return present;
+    }
+
+    /**
+     * Return the shapes of the prefixed arguments which match exactly one
+     * shape, as a bitmask
+     */
+    long[] getSingle() {
+        return single;
+    }
+
+    /**
+     * Return the index of the first prefixed argument which matches only the
+     * given shape (or <code>-1</code>)
+     */
+    int getFirstArgument(int shape) {
+        return firstArgument[shape];
+    }
+
+    /**
+     * Return the number of prefixed arguments which match several shapes
+     */
+    int getAmbiguousCount() {
+        return ambiguousCount;
+    }
+
+    /**
+     * Return the index of the given prefixed argument among those which match
+     * several shapes
+     */
+    int getAmbiguous(int i) {
+        return ambiguous[i];
+    }
+
+    /**
+     * Return the index of the first prefixed argument which does not match any
+     * shape at all (or <code>-1</code>)
+     */
+    int getUnknown() {
+        return unknown;
+    }
+
+    /**
+     * Return the index of the end of options marker, or <code>-1</code> if
+     * there is none (or if it is not to be recognized)
+     */
+    int getTerminator() {
+        return terminator;
+    }
+
+    /**
+     * Return the index of the last argument before the end of options marker
+     * (if any) which is prefixed or matches any shape, or <code>-1</code> if
+     * there is none. All arguments behind it are data for sure.
+     */
+    int getLastOption() {
+        return lastOption;
+    }
+
+    /**
+     * Return the shapes matched by the argument with the given index, which
+     * are <code>getShape(getShapeStart(index))</code> up to (excluding)
+     * <code>getShape(getShapeStart(index + 1))</code>
+     */
+    int getShapeStart(int index) {
+        return start[index];
+    }
+
+    /**
+     * Return a shape matched by an argument (see {@link #getShapeStart(int)})
+     */
+    int getShape(int position) {
+        return shapes[position];
+    }
+
+    /**
+     * Return whether the argument with the given index starts with one of the
+     * prefixes (i. e. whether it is an option rather than data)
+     */
+    boolean isPrefixed(int index) {
+        return prefixed[index];
+    }
+
+    /**
+     * Determine the option of a set the argument with the given index belongs
+     * to. If several options match, the one defined first wins (which is what
+     * checking the options in the order of their definition would yield).
+     * <p>
+     *
+     * @param set    The index of the set within the dispatcher
+     * @param index  The index of the argument
+     * @param result An array of (at least) {@link OptionDispatcher#BOUNDS}
+     *               elements receiving the positions of detail and value
+     *               <p>
+     * @return The ordinal of the matching option within the set, or
+     * <code>-1</code> if no option matches
+     */
+    int match(int set, int index, int[] result) {
+
+        int best = -1;
+        int bestShape = -1;
+
+        for (int i = start[index]; i < start[index + 1]; i++) {
+            int ordinal = dispatcher.getOrdinal(set, shapes[i]);
+            if (ordinal >= 0 && (best < 0 || ordinal < best)) {
+                best = ordinal;
+                bestShape = i;
+            }
+        }
+
+        if (best >= 0) {
+            System.arraycopy(bounds, bestShape * OptionDispatcher.BOUNDS, result, 0, OptionDispatcher.BOUNDS);
+        }
+
+        return best;
+
+    }
+}
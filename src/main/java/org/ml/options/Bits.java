@@ -0,0 +1,71 @@
+package org.ml.options;
+
+/**
+ * Helper methods for bitmasks stored in <code>long</code> arrays, as used for
+ * the quick checks on sets of options (see {@link SetFilter} and
+ * {@link ParseResult}).
+ */
+final class Bits {
+
+    private Bits() {
+    }
+
+    /**
+     * Return the number of <code>long</code> words required for a bitmask of
+     * the given size
+     */
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Set a bit
+     */
+    static void set(long[] mask, int bit) {
+        mask[bit >>> 6] |= 1L << bit;
+    }
+
+    /**
+     * Check whether a bit is set
+     */
+    static boolean get(long[] mask, int bit) {
+        return (mask[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Check whether two bitmasks of the same size have a bit in common
+     */
+    static boolean intersects(long[] a, long[] b) {
+        for (int word = 0; word < a.length; word++) {
+            if ((a[word] & b[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the number of bits set in both bitmasks
+     */
+    static int countCommon(long[] a, long[] b) {
+        int count = 0;
+        for (int word = 0; word < a.length; word++) {
+            count += Long.bitCount(a[word] & b[word]);
+        }
+        return count;
+    }
+
+    /**
+     * Return the lowest bit set in <code>a</code> but not in <code>b</code>,
+     * or <code>-1</code> if there is none
+     */
+    static int firstMissing(long[] a, long[] b) {
+        for (int word = 0; word < a.length; word++) {
+            long missing = a[word] & ~b[word];
+            if (missing != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(missing);
+            }
+        }
+        return -1;
+    }
+}
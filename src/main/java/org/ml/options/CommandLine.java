@@ -0,0 +1,36 @@
+package org.ml.options;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Defines the number of data items for a class or record with fields
+ * declared by {@link Option}. Without this annotation, no data items are
+ * accepted. The data items themselves are available from the default set of
+ * the {@link Options} instance (see {@link OptionSet#getData()}).
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface CommandLine {
+
+    /**
+     * The minimum number of data items
+     * <p>
+     *
+     * @return The minimum number
+     */
+    int minData() default 0;
+
+    /**
+     * The maximum number of data items, or {@link OptionSet#INF} for an
+     * unlimited number
+     * <p>
+     *
+     * @return The maximum number
+     */
+    int maxData() default 0;
+}
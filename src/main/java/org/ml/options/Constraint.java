@@ -16,6 +16,26 @@ public interface Constraint {
      */
     boolean isSatisfied();
 
+    /**
+     * Check whether a constraint is satisfied for the results of one particular
+     * check, as they are provided by an {@link OptionsSpec}. Since such a spec
+     * can be used by several threads at the same time, the results must be
+     * taken from the given {@link ParseResult} rather than from the
+     * {@link OptionData} instances.
+     * <p>
+     * The default implementation just delegates to {@link #isSatisfied()}.
+     * Custom constraints need to override this method if they are to be used
+     * with an {@link OptionsSpec}; otherwise, {@link Options#compile()}
+     * rejects them.
+     * <p>
+     *
+     * @param result The results of the check
+     * @return A boolean to indicate whether a constraint is satisfied or not
+     */
+    default boolean isSatisfied(ParseResult result) {
+        return isSatisfied();
+    }
+
     /**
      * Indicates whether a constraint supports a given type of
      * {@link Constrainable}
@@ -0,0 +1,36 @@
+package org.ml.options;
+
+/**
+ * <code>DataCountException</code> is thrown while data items are read from
+ * {@link DataItems} if their number turns out to be outside of the range
+ * allowed for the set
+ */
+public class DataCountException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+    private final transient Diagnostic diagnostic;
+
+    /**
+     * Constructs a new
+     * <code>DataCountException</code> exception for the given diagnostic. The
+     * detail message is the message of the diagnostic.
+     *
+     * @param diagnostic the diagnostic describing the problem (which is saved
+     * for later retrieval by the {@link #getDiagnostic()} method).
+     */
+    DataCountException(Diagnostic diagnostic) {
+        super(diagnostic.getMessage());
+        this.diagnostic = diagnostic;
+    }
+
+    /**
+     * Return the diagnostic describing the problem (with the code
+     * {@link Diagnostic.Code#INVALID_DATA_COUNT})
+     * <p>
+     *
+     * @return The diagnostic
+     */
+    public Diagnostic getDiagnostic() {
+        return diagnostic;
+    }
+}
@@ -0,0 +1,274 @@
+package org.ml.options;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The data items for a set, delivered one after the other. These are the data
+ * items found on the command line, followed by the items read from an
+ * <code>InputStream</code> or taken from an <code>Iterator</code> (if any)
+ * for sets with streaming data (see
+ * {@link OptionSet#setStreamingData(boolean)}). The items in a stream are
+ * separated by NUL bytes and encoded in UTF-8, as produced by e. g.
+ * <code>find -print0</code>. An iterator can e. g. deliver the arguments of
+ * an argument file (see {@link ArgumentFiles#iterator(java.nio.file.Path)}).
+ * Items from a stream or an iterator are only read when they are requested,
+ * so the memory required does not depend on their number. The items from the
+ * command line are delivered from the list already built by the check (see
+ * {@link OptionSet#getData()}).
+ * <p>
+ * The number of items is checked against the range allowed for the set while
+ * they are read: {@link #next()} throws a {@link DataCountException} for the
+ * first item exceeding the maximum, and {@link #finish()} checks the minimum
+ * once all items have been read (as does {@link #stream()} when it reaches
+ * the end of the items). {@link #hasNext()} only reports whether another item
+ * is available, as usual. An <code>IOException</code> while reading is thrown
+ * as an <code>UncheckedIOException</code>. The stream is not closed.
+ * <p>
+ * Instances are not thread-safe and can only be iterated once.
+ */
+public final class DataItems implements Iterator<String> {
+
+    private final static String CLASS = "DataItems";
+    private final static int BUFFER_SIZE = 8192;
+    private final String setName;
+    private final List<String> data;
+    private final InputStream in;
+    private final Iterator<String> more;
+    private final int minData;
+    private final int maxData;
+    private int count = 0;
+    private String next = null;
+    private boolean done = false;
+    //.... The bytes read from the stream, but not yet delivered
+    private byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    //.... The bytes of the item currently being assembled
+    private byte[] item;
+
+    /**
+     * Constructor for the data items on the command line only. If
+     * <code>set</code> is <code>null</code>, no range is checked.
+     */
+    DataItems(OptionSet set, List<String> data) {
+        this(set, data, null, null);
+    }
+
+    /**
+     * Constructor for data items continued by a stream. If <code>set</code>
+     * is <code>null</code>, no range is checked.
+     */
+    DataItems(OptionSet set, List<String> data, InputStream in) {
+        this(set, data, in, null);
+    }
+
+    /**
+     * Constructor for data items continued by an iterator. If
+     * <code>set</code> is <code>null</code>, no range is checked.
+     */
+    DataItems(OptionSet set, List<String> data, Iterator<String> more) {
+        this(set, data, null, more);
+    }
+
+    //.... Helper constructor: at most one of in and more may be given
+    private DataItems(OptionSet set, List<String> data, InputStream in, Iterator<String> more) {
+
+        if (data == null) {
+            throw new IllegalArgumentException(CLASS + ": data may not be null");
+        }
+
+        this.data = data;
+        this.in = in;
+        this.more = more;
+
+        if (set == null) {
+            setName = null;
+            minData = 0;
+            maxData = OptionSet.INF;
+        } else {
+            setName = set.getName();
+            minData = set.getMinData();
+            maxData = set.getMaxData();
+        }
+
+        if (in != null) {
+            buffer = new byte[BUFFER_SIZE];
+            item = new byte[256];
+        }
+
+    }
+
+    /**
+     * Check whether another data item is available. This reads the next item
+     * from the stream, if necessary.
+     * <p>
+     *
+     * @return A boolean indicating whether another item is available
+     */
+    @Override
+    public boolean hasNext() {
+
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+
+        if (count < data.size()) {
+            next = data.get(count);
+        } else if (in != null) {
+            next = read();
+        } else if (more != null && more.hasNext()) {
+            next = more.next();
+            if (next == null) {
+                throw new IllegalArgumentException(CLASS + ": the items may not contain null");
+            }
+        }
+
+        if (next == null) {
+            done = true;
+            return false;
+        }
+        return true;
+
+    }
+
+    /**
+     * Return the next data item
+     * <p>
+     *
+     * @return The next item
+     * @throws DataCountException If the item exceeds the maximum number of
+     *                            items allowed for the set. No further items
+     *                            are delivered afterwards.
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException(CLASS + ": no more data items");
+        }
+        if (maxData != OptionSet.INF && count >= maxData) {
+            done = true;
+            next = null;
+            count++;                                        // Report the item which is one too many
+            throw exception();
+        }
+        String result = next;
+        next = null;
+        count++;
+        return result;
+    }
+
+    /**
+     * Read the remaining data items (if any, they are discarded), and check
+     * the total number of items against the range allowed for the set. This
+     * is the only way to find out about too few items when iterating with
+     * {@link #hasNext()} and {@link #next()}.
+     * <p>
+     *
+     * @throws DataCountException If the number of items is outside the range
+     *                            allowed for the set
+     */
+    public void finish() {
+        while (hasNext()) {
+            next();
+        }
+        checkMinimum();
+    }
+
+    /**
+     * Return the number of data items delivered so far
+     * <p>
+     *
+     * @return The number of items
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Return the remaining data items as a sequential stream. Once the stream
+     * reaches the end of the items, the minimum number of items is checked
+     * (see {@link #finish()}).
+     * <p>
+     *
+     * @return The stream of items
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<String>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super String> action) {
+                if (!hasNext()) {
+                    checkMinimum();
+                    return false;
+                }
+                action.accept(next());
+                return true;
+            }
+        }, false);
+    }
+
+    //.... Helper method: check the minimum number of items, after all have been read
+    private void checkMinimum() {
+        if (count < minData) {
+            throw exception();
+        }
+    }
+
+    //.... Helper method: the exception for an invalid number of items
+    private DataCountException exception() {
+        return new DataCountException(new Diagnostic(Diagnostic.Code.INVALID_DATA_COUNT, setName, -1, null, null,
+                count, minData, maxData));
+    }
+
+    //.... Helper method: read the next item from the stream, or return null at its end. A final item
+    //     without a terminating NUL byte is an item as well, unless it is empty.
+    private String read() {
+
+        int length = 0;
+
+        try {
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return length == 0 ? null : new String(item, 0, length, StandardCharsets.UTF_8);
+                    }
+                }
+                int end = position;
+                while (end < limit && buffer[end] != 0) {
+                    end++;
+                }
+                if (length + end - position > item.length) {
+                    item = Arrays.copyOf(item, Math.max(length + end - position, 2 * item.length));
+                }
+                System.arraycopy(buffer, position, item, length, end - position);
+                length += end - position;
+                if (end < limit) {                          // Found the NUL byte terminating the item
+                    position = end + 1;
+                    return new String(item, 0, length, StandardCharsets.UTF_8);
+                }
+                position = end;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(CLASS + ": could not read data items", ex);
+        }
+
+    }
+}
@@ -0,0 +1,94 @@
+package org.ml.options;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The data items found by a check. Items found in between the options are
+ * collected one by one, while the data following the last option (and the
+ * end of options marker) are ranges of the array holding the command line
+ * arguments, which are used as views rather than copied. The items collected
+ * one by one always come first.
+ * <p>
+ * The list is read-only for the application. It is cleared and filled again
+ * by the checks, the storage allocated is kept for that.
+ */
+final class DataList extends AbstractList<String> implements RandomAccess {
+
+    private final static String CLASS = "DataList";
+    private final ArrayList<String> items = new ArrayList<>();
+    private String[] arguments;
+    //.... The ranges of the array, as pairs of start (inclusive) and end (exclusive)
+    private int[] ranges = new int[4];
+    private int rangeCount = 0;
+    private int size = 0;
+
+    /**
+     * Add a single data item. This is only possible as long as no range has
+     * been added.
+     */
+    void addItem(String item) {
+        if (rangeCount > 0) {
+            throw new UnsupportedOperationException(CLASS + ": items must precede the ranges");
+        }
+        items.add(item);
+        size++;
+    }
+
+    /**
+     * Add the arguments <code>start</code> up to (excluding) <code>end</code>
+     * of the given array as data items. All ranges must refer to the same
+     * array.
+     */
+    void addRange(String[] arguments, int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        if (rangeCount > 0 && arguments != this.arguments) {
+            throw new IllegalArgumentException(CLASS + ": all ranges must refer to the same array");
+        }
+        this.arguments = arguments;
+        if (2 * rangeCount + 2 > ranges.length) {
+            ranges = Arrays.copyOf(ranges, 2 * ranges.length);
+        }
+        ranges[2 * rangeCount] = start;
+        ranges[2 * rangeCount + 1] = end;
+        rangeCount++;
+        size += end - start;
+    }
+
+    /**
+     * Remove all data items. The array is no longer referenced afterwards.
+     */
+    void reset() {
+        items.clear();
+        arguments = null;
+        rangeCount = 0;
+        size = 0;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(CLASS + ": illegal value for index");
+        }
+        if (index < items.size()) {
+            return items.get(index);
+        }
+        index -= items.size();
+        for (int i = 0; ; i += 2) {
+            int length = ranges[i + 1] - ranges[i];
+            if (index < length) {
+                return arguments[ranges[i] + index];
+            }
+            index -= length;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,219 @@
+package org.ml.options;
+
+/**
+ * A single message recorded while checking command line arguments against an
+ * option set. Each diagnostic carries an error {@link Code} and - where
+ * applicable - the name of the set, the index of the argument and the key of
+ * the option it refers to.
+ * <p>
+ * The human readable text is only assembled when {@link #getMessage()} (or
+ * {@link #toString()}) is invoked, recording a diagnostic is therefore cheap.
+ * The messages are the same as those available from
+ * {@link Options#getCheckErrors()} and {@link ParseResult#getCheckErrors()},
+ * which are simply views on the diagnostics.
+ */
+public final class Diagnostic {
+
+    private final static String CLASS = "Diagnostic";
+
+    /**
+     * An enum for the different kinds of diagnostics
+     */
+    public enum Code {
+
+        /**
+         * Informational: the checks for a set have started
+         */
+        CHECKING_SET,
+        /**
+         * The set expects data, but no arguments have been given at all
+         */
+        MISSING_DATA,
+        /**
+         * Options have been defined, but no arguments have been given at all
+         */
+        MISSING_ARGUMENTS,
+        /**
+         * The last argument is an option requiring a value in the next
+         * argument
+         */
+        MISSING_VALUE_AT_END,
+        /**
+         * The argument following an option requiring a value is an option
+         * itself
+         */
+        MISSING_VALUE,
+        /**
+         * An argument starting with a prefix does not match any option
+         */
+        UNMATCHED_OPTION,
+        /**
+         * An option has not been found as often as required by its
+         * multiplicity
+         */
+        WRONG_MULTIPLICITY,
+        /**
+         * A constraint for an option is not satisfied
+         */
+        OPTION_CONSTRAINT_VIOLATED,
+        /**
+         * A constraint for a set is not satisfied
+         */
+        SET_CONSTRAINT_VIOLATED,
+        /**
+         * The number of data arguments is outside of the allowed range
+         */
+        INVALID_DATA_COUNT,
+        /**
+         * The data arguments are not the last ones on the command line
+         */
+        DATA_NOT_LAST
+    }
+    private final Code code;
+    private final String setName;
+    private final int argumentIndex;
+    private final String optionKey;
+    //.... The raw material for the message, which depends on the code (argument, prefixed key,
+    //     constraint, or the number of data items together with the allowed range)
+    private final Object detail;
+    private final int count;
+    private final int min;
+    private final int max;
+
+    /**
+     * Constructor
+     */
+    Diagnostic(Code code, String setName, int argumentIndex, String optionKey, Object detail) {
+        this(code, setName, argumentIndex, optionKey, detail, 0, 0, 0);
+    }
+
+    /**
+     * Constructor with numbers (for {@link Code#INVALID_DATA_COUNT})
+     */
+    Diagnostic(Code code, String setName, int argumentIndex, String optionKey, Object detail, int count, int min, int max) {
+
+        if (code == null) {
+            throw new IllegalArgumentException(CLASS + ": code may not be null");
+        }
+
+        this.code = code;
+        this.setName = setName;
+        this.argumentIndex = argumentIndex;
+        this.optionKey = optionKey;
+        this.detail = detail;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+
+    }
+
+    /**
+     * Return the code for this diagnostic
+     * <p>
+     *
+     * @return The code
+     */
+    public Code getCode() {
+        return code;
+    }
+
+    /**
+     * Return the name of the set which was checked
+     * <p>
+     *
+     * @return The name of the set
+     */
+    public String getSetName() {
+        return setName;
+    }
+
+    /**
+     * Return the index of the command line argument this diagnostic refers to
+     * <p>
+     *
+     * @return The index of the argument, or <code>-1</code> if the diagnostic
+     * does not refer to a particular argument
+     */
+    public int getArgumentIndex() {
+        return argumentIndex;
+    }
+
+    /**
+     * Return the key of the option this diagnostic refers to
+     * <p>
+     *
+     * @return The key of the option, or <code>null</code> if the diagnostic
+     * does not refer to a particular option
+     */
+    public String getOptionKey() {
+        return optionKey;
+    }
+
+    /**
+     * Return the human readable message for this diagnostic (without a
+     * trailing line break)
+     * <p>
+     *
+     * @return The message
+     */
+    public String getMessage() {
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Append the message to the given buffer (without a trailing line break)
+     */
+    void appendTo(StringBuilder sb) {
+
+        switch (code) {
+            case CHECKING_SET:
+                sb.append("Checking set ").append(setName);
+                break;
+            case MISSING_DATA:
+                sb.append("The set expects data, but no arguments have been given");
+                break;
+            case MISSING_ARGUMENTS:
+                sb.append("Options have been defined, but no arguments have been given; nothing to check");
+                break;
+            case MISSING_VALUE_AT_END:
+                sb.append("At end of arguments - no value found following argument ").append(detail);
+                break;
+            case MISSING_VALUE:
+                sb.append("No value found following argument ").append(detail);
+                break;
+            case UNMATCHED_OPTION:
+                sb.append("No matching option found for argument ").append(detail);
+                break;
+            case WRONG_MULTIPLICITY:
+                sb.append("Wrong number of occurences found for argument ").append(detail);
+                break;
+            case OPTION_CONSTRAINT_VIOLATED:
+                sb.append("Constraint ").append(detail).append(" violated for option '").append(optionKey).append('\'');
+                break;
+            case SET_CONSTRAINT_VIOLATED:
+                sb.append("Constraint ").append(detail).append(" violated for option set '").append(setName).append('\'');
+                break;
+            case INVALID_DATA_COUNT:
+                sb.append("Invalid number of data arguments: ").append(count);
+                sb.append(" (allowed range: ").append(min).append(" ... ").append(max).append(')');
+                break;
+            case DATA_NOT_LAST:
+                sb.append("Invalid data specification: data arguments are not the last ones on the command line");
+                break;
+        }
+
+    }
+
+    /**
+     * This is the overloaded {@link Object#toString()} method
+     * <p>
+     *
+     * @return A string representing the instance
+     */
+    @Override
+    public String toString() {
+        return code + ": " + getMessage();
+    }
+}
@@ -0,0 +1,128 @@
+package org.ml.options;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A bounded buffer for the {@link Diagnostic} instances recorded during a
+ * check. Only the first diagnostics up to the capacity are kept, later ones are
+ * merely counted. This keeps the memory used for error reporting bounded, no
+ * matter how many arguments or sets are checked.
+ * <p>
+ * The diagnostics can also be produced on demand: a task registered with
+ * {@link #defer(Runnable)} replaces the diagnostics recorded so far when they
+ * are requested for the first time. This is used for detailed diagnostics
+ * which are costly and only needed if someone looks at them.
+ */
+final class Diagnostics {
+
+    private final static String CLASS = "Diagnostics";
+    /**
+     * The default capacity
+     */
+    final static int DEFAULT_CAPACITY = 100;
+    private final int capacity;
+    private final List<Diagnostic> list = new ArrayList<>();
+    private int dropped = 0;
+    private Runnable pending = null;
+
+    /**
+     * Constructor
+     */
+    Diagnostics(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(CLASS + ": capacity must be >= 0");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Record a diagnostic (if the capacity has not yet been reached)
+     */
+    void add(Diagnostic diagnostic) {
+        if (list.size() < capacity) {
+            list.add(diagnostic);
+        } else {
+            dropped++;
+        }
+    }
+
+    /**
+     * Record all diagnostics of another buffer (as far as the capacity allows)
+     */
+    void addAll(Diagnostics other) {
+        for (Diagnostic diagnostic : other.list) {
+            add(diagnostic);
+        }
+        dropped += other.dropped;
+    }
+
+    /**
+     * Remove all diagnostics, including a task registered with
+     * {@link #defer(Runnable)}
+     */
+    void clear() {
+        list.clear();
+        dropped = 0;
+        pending = null;
+    }
+
+    /**
+     * Register a task which records the diagnostics in this buffer. It is run
+     * (once) when the diagnostics are first requested, after the diagnostics
+     * recorded so far have been removed. If the buffer is cleared before, the
+     * task is dropped. The task must only depend on state which does not
+     * change until then.
+     */
+    void defer(Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException(CLASS + ": task may not be null");
+        }
+        pending = task;
+    }
+
+    /**
+     * Return a read-only view on the diagnostics recorded
+     */
+    List<Diagnostic> getList() {
+        resolve();
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Return the number of diagnostics which were not recorded because the
+     * capacity had been reached
+     */
+    int getDropped() {
+        resolve();
+        return dropped;
+    }
+
+    /**
+     * Format all diagnostics, one per line
+     */
+    String format() {
+        resolve();
+        StringBuilder sb = new StringBuilder();
+        for (Diagnostic diagnostic : list) {
+            diagnostic.appendTo(sb);
+            sb.append('\n');
+        }
+        if (dropped > 0) {
+            sb.append("... ");
+            sb.append(dropped);
+            sb.append(" more messages suppressed\n");
+        }
+        return sb.toString();
+    }
+
+    //.... Helper method: run the deferred task, if any
+    private void resolve() {
+        if (pending != null) {
+            Runnable task = pending;
+            clear();
+            task.run();
+        }
+    }
+}
@@ -19,6 +19,8 @@ public class ExclusiveConstraint implements XMLConstraint {
     private static final String CLASS = "ExclusiveConstraint";
     private List<OptionData> optionData = new ArrayList<>();
     private Options.Multiplicity multiplicity = null;
+    //.... The grouped options as a bitmask over their ordinals
+    private long[] mask;
 
     /**
      * The public no-org constructor. This is a prereq for all constraints since
@@ -158,6 +160,10 @@ public class ExclusiveConstraint implements XMLConstraint {
             od.setMultiplicity(multiplicity);
             this.multiplicity = multiplicity;
         }
+        mask = new long[Bits.words(optionSet.getOptionData().size())];
+        for (OptionData grouped : optionData) {
+            Bits.set(mask, grouped.getOrdinal());
+        }
     }
 
     /**
@@ -199,17 +205,48 @@ public class ExclusiveConstraint implements XMLConstraint {
      */
     @Override
     public boolean isSatisfied() {
+        return isSatisfied(null);
+    }
+
+    /**
+     * The actual check routine for the results of one particular check
+     * <p>
+     *
+     * @param result The results of the check (if <code>null</code>, the
+     *               results stored with the options are used)
+     * @return A boolean indicating whether the constraint is satisfied or not
+     */
+    @Override
+    public boolean isSatisfied(ParseResult result) {
+
+        //.... With the results of a check, just one of the grouped options must have been seen, and
+        //     for the multiplicities allowing it only once, it must not have been repeated
+        if (result != null) {
+            long[] seen = result.getSeen();
+            if (Bits.countCommon(mask, seen) != 1) {
+                return false;
+            }
+            switch (multiplicity) {
+                case ONCE:
+                case ZERO_OR_ONCE:
+                    return !Bits.intersects(mask, result.getRepeated());
+                default:
+                    return true;
+            }
+        }
 
         //.... Check whether only one of the grouped options appears
         boolean found = false;
-        OptionData odata = null;
+        int count = 0;
+        int n;
         for (OptionData od : optionData) {
-            if (od.getResultCount() > 0) {
+            n = od.getResultCount();
+            if (n > 0) {
                 if (found) {
                     return false;
                 }               // We found the second one - failure
                 found = true;                          // We found the first one
-                odata = od;
+                count = n;
             }
         }
 
@@ -220,17 +257,17 @@ public class ExclusiveConstraint implements XMLConstraint {
         //.... Check multiplicity for the one option found
         switch (multiplicity) {
             case ONCE:
-                if (odata.getResultCount() != 1) {
+                if (count != 1) {
                     return false;
                 }
                 break;
             case ONCE_OR_MORE:
-                if (odata.getResultCount() == 0) {
+                if (count == 0) {
                     return false;
                 }
                 break;
             case ZERO_OR_ONCE:
-                if (odata.getResultCount() > 1) {
+                if (count > 1) {
                     return false;
                 }
                 break;
@@ -0,0 +1,111 @@
+package org.ml.options;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares an option for a field of a class or a component of a record. The
+ * declarations are read at compile time by the {@link OptionsProcessor},
+ * which generates the code to set up the options and to assign the results
+ * to the fields (see there for the supported field types).
+ * <p>
+ * Attributes given as arrays are optional and take at most one element: if
+ * they are empty, the value is derived from the type of the field.
+ * <p>
+ * Example:
+ * <pre>
+ * record ServerArgs(
+ *         &#64;Option(altKey = "p", constraint = ValueConstraint.Type.INT_RANGE, values = "1:65535") int port,
+ *         &#64;Option(help = "Print more details") boolean verbose,
+ *         &#64;Option(key = "D", type = OptionData.Type.DETAIL) Map&lt;String, String&gt; properties) {
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface Option {
+
+    /**
+     * The key of the option. If empty, the name of the field is used.
+     * <p>
+     *
+     * @return The key
+     */
+    String key() default "";
+
+    /**
+     * The alternate key of the option (if any)
+     * <p>
+     *
+     * @return The alternate key, or an empty string for none
+     */
+    String altKey() default "";
+
+    /**
+     * The type of the option. If not given, <code>boolean</code> fields are
+     * {@link OptionData.Type#SIMPLE}, <code>Map</code> fields
+     * {@link OptionData.Type#DETAIL} and all others
+     * {@link OptionData.Type#VALUE}.
+     * <p>
+     *
+     * @return The type
+     */
+    OptionData.Type[] type() default {};
+
+    /**
+     * The multiplicity of the option. If not given, fields taking several
+     * values (arrays, lists and maps) use
+     * {@link Options.Multiplicity#ZERO_OR_MORE} and all others
+     * {@link Options.Multiplicity#ZERO_OR_ONCE}.
+     * <p>
+     *
+     * @return The multiplicity
+     */
+    Options.Multiplicity[] multiplicity() default {};
+
+    /**
+     * The type of a {@link ValueConstraint} for the values of the option (if
+     * any). The constraint is specified by {@link #values()}.
+     * <p>
+     *
+     * @return The type of the constraint
+     */
+    ValueConstraint.Type[] constraint() default {};
+
+    /**
+     * The specification of the {@link ValueConstraint}, in the format of
+     * {@link ValueConstraint#add(OptionData, ValueConstraint.Type, String)}
+     * <p>
+     *
+     * @return The specification
+     */
+    String values() default "";
+
+    /**
+     * The help text of the option
+     * <p>
+     *
+     * @return The help text
+     */
+    String help() default "";
+
+    /**
+     * The text used for the value in the help text
+     * <p>
+     *
+     * @return The value text
+     */
+    String valueText() default "value";
+
+    /**
+     * The text used for the detail in the help text
+     * <p>
+     *
+     * @return The detail text
+     */
+    String detailText() default "detail";
+}
@@ -28,12 +28,12 @@ public class OptionData implements Constrainable {
     private boolean value = false;
     private boolean exclusive = false;
     private Options.Multiplicity multiplicity;
-    private Pattern pattern;
-    private int counter = 0;
-    private List<String> values;
-    private List<String> details;
+    private volatile Pattern pattern;                   // Only compiled on demand (see getPattern())
+    private OptionResult result;
     private List<Constraint> constraints;
     private Type type;
+    private int ordinal = 0;
+    private boolean frozen = false;
 
     /**
      * An enum describing the different available types of options
@@ -122,39 +122,8 @@ public class OptionData implements Constrainable {
         value = type.value();
         detail = type.detail();
 
-        //.... Create the pattern to match this option
-        String keyPattern;
-        if (altKey == null) {
-            keyPattern = prefix.getName() + key;
-        } else {
-            keyPattern = "(" + prefix.getName() + key + "|" + altPrefix.getName() + altKey + ")";
-        }
-
-        if (value) {
-            if (separator.equals(Options.Separator.BLANK)) {
-                if (detail) {
-                    pattern = Pattern.compile(keyPattern + "((\\w|\\.)+)$");
-                } else {
-                    pattern = Pattern.compile(keyPattern + "$");
-                }
-            } else {
-                if (detail) {
-                    pattern = Pattern.compile(keyPattern + "((\\w|\\.)+)" + separator.getName() + "(.+)$");
-                } else {
-                    pattern = Pattern.compile(keyPattern + separator.getName() + "(.+)$");
-                }
-            }
-        } else {
-            pattern = Pattern.compile(keyPattern + "$");
-        }
-
-        //.... Structures to hold result data
-        if (value) {
-            values = new ArrayList<>();
-            if (detail) {
-                details = new ArrayList<>();
-            }
-        }
+        //.... Structure to hold result data
+        result = new OptionResult(type);
 
     }
 
@@ -273,17 +242,90 @@ public class OptionData implements Constrainable {
         if (multiplicity == null) {
             throw new IllegalArgumentException(CLASS + ": multiplicity may not be null");
         }
+        checkFrozen();
         this.multiplicity = multiplicity;
     }
 
     /**
-     * Getter method for <code>pattern</code> property
+     * Getter method for <code>pattern</code> property. Options are matched by
+     * the {@link OptionDispatcher}, so the pattern is only compiled when it is
+     * actually asked for.
      * <p>
      *
      * @return The value for the <code>pattern</code> property
      */
     Pattern getPattern() {
+
+        if (pattern != null) {
+            return pattern;
+        }
+
+        //.... Create the pattern to match this option
+        String keyPattern;
+        if (altKey == null) {
+            keyPattern = prefix.getName() + key;
+        } else {
+            keyPattern = "(" + prefix.getName() + key + "|" + altPrefix.getName() + altKey + ")";
+        }
+
+        if (value) {
+            if (separator.equals(Options.Separator.BLANK)) {
+                if (detail) {
+                    pattern = Pattern.compile(keyPattern + "([\\w.]++)$");
+                } else {
+                    pattern = Pattern.compile(keyPattern + "$");
+                }
+            } else {
+                if (detail) {
+                    pattern = Pattern.compile(keyPattern + "([\\w.]++)" + separator.getName() + "(.+)$");
+                } else {
+                    pattern = Pattern.compile(keyPattern + separator.getName() + "(.+)$");
+                }
+            }
+        } else {
+            pattern = Pattern.compile(keyPattern + "$");
+        }
+
         return pattern;
+
+    }
+
+    /**
+     * Getter method for <code>ordinal</code> property, which is the position of
+     * this option within its set
+     * <p>
+     *
+     * @return The value for the <code>ordinal</code> property
+     */
+    int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Setter method for <code>ordinal</code> property
+     * <p>
+     *
+     * @param ordinal The value for the <code>ordinal</code> property
+     */
+    void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Mark this option as frozen, i. e. its definition can no longer be
+     * changed. This is done once an {@link OptionsSpec} has been compiled.
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Helper method: throw an exception if the definition is frozen
+     */
+    private void checkFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException(CLASS + ": method can not be invoked, an OptionsSpec has already been compiled");
+        }
     }
 
     /**
@@ -325,11 +367,7 @@ public class OptionData implements Constrainable {
      * @return The number of results
      */
     public int getResultCount() {
-        if (value) {
-            return values.size();
-        } else {
-            return counter;
-        }
+        return result.getCount();
     }
 
     /**
@@ -350,7 +388,140 @@ public class OptionData implements Constrainable {
         if (index < 0 || index >= getResultCount()) {
             throw new IllegalArgumentException(CLASS + ": illegal value for index");
         }
-        return values.get(index);
+        return result.getValue(index);
+    }
+
+    /**
+     * Get a read-only view on the value with the given index. This is the same
+     * as {@link #getResultValue(int)}, but the characters are not copied from
+     * the command line argument, which is useful for very large values.
+     * <p>
+     *
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index (or <code>null</code> for
+     * non-value options)
+     */
+    public CharSequence getResultValueView(int index) {
+        if (!value) {
+            return null;
+        }
+        if (index < 0 || index >= getResultCount()) {
+            throw new IllegalArgumentException(CLASS + ": illegal value for index");
+        }
+        return result.getValueView(index);
+    }
+
+    /**
+     * Get the value with the given index as <code>int</code>. The value is
+     * converted only once, later calls (also from constraints) use the stored
+     * result.
+     * <p>
+     *
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     * @throws NumberFormatException If the value is not a valid
+     *                               <code>int</code>
+     */
+    public int getResultInt(int index) {
+        checkTypedAccess(index);
+        return result.getInt(index);
+    }
+
+    /**
+     * Get the value with the given index as <code>long</code>. The value is
+     * converted only once, later calls use the stored result.
+     * <p>
+     *
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     * @throws NumberFormatException If the value is not a valid
+     *                               <code>long</code>
+     */
+    public long getResultLong(int index) {
+        checkTypedAccess(index);
+        return result.getLong(index);
+    }
+
+    /**
+     * Get the value with the given index as <code>double</code>. The value is
+     * converted only once, later calls use the stored result.
+     * <p>
+     *
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     * @throws NumberFormatException If the value is not a valid
+     *                               <code>double</code>
+     */
+    public double getResultDouble(int index) {
+        checkTypedAccess(index);
+        return result.getDouble(index);
+    }
+
+    /**
+     * Get the value with the given index as <code>boolean</code>. As for
+     * <code>Boolean.parseBoolean()</code>, this is <code>true</code> if the
+     * value is equal to "true" (ignoring case), and <code>false</code>
+     * otherwise.
+     * <p>
+     *
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     */
+    public boolean getResultBoolean(int index) {
+        checkTypedAccess(index);
+        return result.getBoolean(index);
+    }
+
+    /**
+     * Return all result values as <code>int</code>s
+     * <p>
+     *
+     * @return An array with all result values
+     * @throws NumberFormatException If any value is not a valid
+     *                               <code>int</code>
+     */
+    public int[] getResultInts() {
+        checkTypedAccess(0);
+        int[] array = new int[getResultCount()];
+        for (int index = 0; index < array.length; index++) {
+            array[index] = result.getInt(index);
+        }
+        return array;
+    }
+
+    /**
+     * Return all result values as <code>long</code>s
+     * <p>
+     *
+     * @return An array with all result values
+     * @throws NumberFormatException If any value is not a valid
+     *                               <code>long</code>
+     */
+    public long[] getResultLongs() {
+        checkTypedAccess(0);
+        long[] array = new long[getResultCount()];
+        for (int index = 0; index < array.length; index++) {
+            array[index] = result.getLong(index);
+        }
+        return array;
+    }
+
+    /**
+     * Helper method: make sure typed access is possible. An index of
+     * <code>0</code> is always accepted, which is used for the bulk methods.
+     */
+    private void checkTypedAccess(int index) {
+        if (!value) {
+            throw new UnsupportedOperationException(CLASS + ": typed access requires a value option");
+        }
+        if (index < 0 || (index > 0 && index >= getResultCount())) {
+            throw new IllegalArgumentException(CLASS + ": illegal value for index");
+        }
     }
 
     /**
@@ -386,7 +557,7 @@ public class OptionData implements Constrainable {
         if (index < 0 || index >= getResultCount()) {
             throw new IllegalArgumentException(CLASS + ": illegal value for index");
         }
-        return details.get(index);
+        return result.getDetail(index);
     }
 
     /**
@@ -404,22 +575,25 @@ public class OptionData implements Constrainable {
     }
 
     /**
-     * Store the data for a match found
+     * Get the holder for the results found by the checks run through
+     * {@link Options}
      */
-    void addResult(String valueData, String detailData) {
-        if (value) {
-            if (valueData == null) {
-                throw new IllegalArgumentException(CLASS + ": valueData may not be null");
-            }
-            values.add(valueData);
-            if (detail) {
-                if (detailData == null) {
-                    throw new IllegalArgumentException(CLASS + ": detailData may not be null");
-                }
-                details.add(detailData);
-            }
+    OptionResult getResult() {
+        return result;
+    }
+
+    /**
+     * Replace the holder for the results by the given one, and return the
+     * holder replaced. This is used to take over the results of a successful
+     * check in constant time.
+     */
+    OptionResult exchangeResult(OptionResult other) {
+        if (other == null) {
+            throw new IllegalArgumentException(CLASS + ": other may not be null");
         }
-        counter++;
+        OptionResult previous = result;
+        result = other;
+        return previous;
     }
 
     // ==========================================================================================
@@ -440,6 +614,7 @@ public class OptionData implements Constrainable {
         if (text == null) {
             throw new IllegalArgumentException(CLASS + ": text may not be null");
         }
+        checkFrozen();
         this.valueText = text.trim();
         return this;
     }
@@ -458,6 +633,7 @@ public class OptionData implements Constrainable {
         if (text == null) {
             throw new IllegalArgumentException(CLASS + ": text may not be null");
         }
+        checkFrozen();
         this.detailText = text.trim();
         return this;
     }
@@ -475,6 +651,7 @@ public class OptionData implements Constrainable {
         if (text == null) {
             throw new IllegalArgumentException(CLASS + ": text may not be null");
         }
+        checkFrozen();
         this.helpText = text.trim();
         return this;
     }
@@ -531,6 +708,7 @@ public class OptionData implements Constrainable {
         if (!constraint.supports(this)) {
             throw new IllegalArgumentException(CLASS + ": the given constraint can not be applied to options");
         }
+        checkFrozen();
 
         if (constraints == null) {
             constraints = new ArrayList<>();
@@ -550,6 +728,7 @@ public class OptionData implements Constrainable {
      *
      */
     void setExclusive(boolean exclusive) {
+        checkFrozen();
         this.exclusive = exclusive;
     }
 
@@ -690,7 +869,7 @@ public class OptionData implements Constrainable {
         sb.append(multiplicity);
         sb.append('\n');
         sb.append("Pattern     : ");
-        sb.append(pattern);
+        sb.append(getPattern());
         sb.append('\n');
         sb.append("HelpText    : ");
         sb.append(helpText);
@@ -711,20 +890,20 @@ public class OptionData implements Constrainable {
         }
 
         sb.append("Results #   : ");
-        sb.append(counter);
+        sb.append(getResultCount());
         sb.append('\n');
 
         if (value) {
             if (detail) {
-                for (int i = 0; i < values.size(); i++) {
-                    sb.append(details.get(i));
+                for (int i = 0; i < getResultCount(); i++) {
+                    sb.append(result.getDetail(i));
                     sb.append(" / ");
-                    sb.append(values.get(i));
+                    sb.append(result.getValue(i));
                     sb.append('\n');
                 }
             } else {
-                for (int i = 0; i < values.size(); i++) {
-                    sb.append(values.get(i));
+                for (int i = 0; i < getResultCount(); i++) {
+                    sb.append(result.getValue(i));
                     sb.append('\n');
                 }
             }
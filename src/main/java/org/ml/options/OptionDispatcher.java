@@ -0,0 +1,388 @@
+package org.ml.options;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A compiled dispatch structure which maps a command line argument to the
+ * option of a set it belongs to. The keys (and alternate keys) of all options,
+ * including their prefixes, are stored in a character trie. Resolving an
+ * argument therefore only requires a walk along its leading characters, no
+ * matter how many options are defined for the set.
+ * <p>
+ * The trie and the scanner for the remainder of an argument (detail,
+ * separator and value) reproduce exactly what the regular expressions built in
+ * {@link OptionData} accept, including the special treatment of line
+ * terminators by <code>.</code> and <code>$</code>. A match is decided purely
+ * by comparing characters at given positions, no <code>Matcher</code> or
+ * substring is created.
+ * <p>
+ * A dispatcher can be built for several sets at the same time. Options which
+ * look the same on the command line (same prefixed key, type and separator)
+ * are then represented only once, as a <i>shape</i>, and each set maps the
+ * shapes to its own options. This allows to classify the arguments once with
+ * {@link #matchShapes(String, int[], int[])} and use the outcome for all sets
+ * (see {@link ArgumentTokens}).
+ * <p>
+ * Instances are immutable once created and can therefore be shared between
+ * threads.
+ */
+final class OptionDispatcher {
+
+    private final static String CLASS = "OptionDispatcher";
+    /**
+     * The index into the bounds array for the start of the detail
+     */
+    final static int DETAIL_START = 0;
+    /**
+     * The index into the bounds array for the end of the detail
+     */
+    final static int DETAIL_END = 1;
+    /**
+     * The index into the bounds array for the start of the value. This is
+     * <code>-1</code> if the value is given in the next argument (or if the
+     * option does not take a value at all).
+     */
+    final static int VALUE_START = 2;
+    /**
+     * The index into the bounds array for the end of the value
+     */
+    final static int VALUE_END = 3;
+    /**
+     * The required length of the bounds array
+     */
+    final static int BOUNDS = 4;
+
+    //.... The shapes: whether a detail follows the key, and the separator if a value follows
+    //     in the same argument (0 otherwise)
+    private final boolean[] shapeDetail;
+    private final char[] shapeSeparator;
+    //.... For each set and shape, the ordinal of the first option of the set with that shape, or -1
+    private final int[][] ordinals;
+    //.... For each set and option, the shapes of its key and alternate key
+    private final int[][][] optionShapes;
+    //.... The trie: for node n, the labels of its children are stored in sorted order in
+    //     labels[first[n]] ... labels[first[n + 1] - 1], the node indices in next[] alike
+    private final char[] labels;
+    private final int[] next;
+    private final int[] first;
+    //.... The shapes whose (prefixed) key ends at a node, or null
+    private final int[][] terminals;
+    //.... The maximum number of shapes ending along one path through the trie
+    private final int depth;
+
+    /**
+     * Constructor. This compiles the trie for the options of the given sets.
+     * The options of each set must be in the order they have been defined for
+     * the set. The sets are referred to by their index in the list later on.
+     */
+    OptionDispatcher(List<List<OptionData>> optionData) {
+
+        if (optionData == null) {
+            throw new IllegalArgumentException(CLASS + ": optionData may not be null");
+        }
+
+        //.... Build a simple node tree first, and collect the distinct shapes ...
+        List<Node> nodes = new ArrayList<>();
+        Node root = new Node();
+        nodes.add(root);
+        Map<String, Integer> shapes = new HashMap<>();
+        List<OptionData> shapeOptions = new ArrayList<>();
+        optionShapes = new int[optionData.size()][][];
+
+        for (int set = 0; set < optionShapes.length; set++) {
+            List<OptionData> options = optionData.get(set);
+            if (options == null) {
+                throw new IllegalArgumentException(CLASS + ": optionData may not contain null");
+            }
+            optionShapes[set] = new int[options.size()][];
+            for (int ordinal = 0; ordinal < options.size(); ordinal++) {
+                OptionData od = options.get(ordinal);
+                int shape = insert(nodes, root, shapes, shapeOptions, od.getPrefix().getName() + od.getKey(), od);
+                if (od.hasAlternateKey()) {
+                    optionShapes[set][ordinal] = new int[]{shape, insert(nodes, root, shapes, shapeOptions,
+                            od.getAltPrefix().getName() + od.getAltKey(), od)};
+                } else {
+                    optionShapes[set][ordinal] = new int[]{shape};
+                }
+            }
+        }
+
+        int count = shapeOptions.size();
+        shapeDetail = new boolean[count];
+        shapeSeparator = new char[count];
+        for (int shape = 0; shape < count; shape++) {
+            OptionData od = shapeOptions.get(shape);
+            shapeDetail[shape] = od.useDetail();
+            shapeSeparator[shape] = hasInlineValue(od) ? od.getSeparator().getName() : 0;
+        }
+
+        ordinals = new int[optionShapes.length][count];
+        for (int set = 0; set < ordinals.length; set++) {
+            Arrays.fill(ordinals[set], -1);
+            for (int ordinal = optionShapes[set].length - 1; ordinal >= 0; ordinal--) {
+                for (int shape : optionShapes[set][ordinal]) {
+                    ordinals[set][shape] = ordinal;            // The option defined first wins
+                }
+            }
+        }
+
+        //.... ... and flatten the tree into arrays
+        int size = nodes.size();
+        labels = new char[size - 1];
+        next = new int[size - 1];
+        first = new int[size + 1];
+        terminals = new int[size][];
+
+        int pos = 0;
+        for (int n = 0; n < size; n++) {
+            Node node = nodes.get(n);
+            first[n] = pos;
+            for (Character c : node.children.keySet()) {
+                labels[pos] = c;
+                next[pos++] = node.children.get(c).index;
+            }
+            if (!node.shapes.isEmpty()) {
+                terminals[n] = new int[node.shapes.size()];
+                for (int i = 0; i < terminals[n].length; i++) {
+                    terminals[n][i] = node.shapes.get(i);
+                }
+            }
+        }
+        first[size] = pos;
+
+        depth = depth(root);
+
+    }
+
+    //.... Helper method: whether the value follows the key in the same argument
+    private static boolean hasInlineValue(OptionData od) {
+        return od.useValue() && od.getSeparator() != Options.Separator.BLANK;
+    }
+
+    //.... Helper method to add a prefixed key to the node tree, returning the id of its shape
+    private static int insert(List<Node> nodes, Node root, Map<String, Integer> shapes,
+                              List<OptionData> shapeOptions, String key, OptionData od) {
+
+        String id = key + '\u0000' + od.useDetail() + '\u0000' + (hasInlineValue(od) ? od.getSeparator().getName() : ' ');
+        Integer shape = shapes.get(id);
+        if (shape != null) {
+            return shape;
+        }
+        shape = shapeOptions.size();
+        shapes.put(id, shape);
+        shapeOptions.add(od);
+
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node();
+                child.index = nodes.size();
+                nodes.add(child);
+                node.children.put(key.charAt(i), child);
+            }
+            node = child;
+        }
+        node.shapes.add(shape);
+        return shape;
+
+    }
+
+    //.... Helper method to determine the maximum number of shapes along any path
+    private static int depth(Node node) {
+        int max = 0;
+        for (Node child : node.children.values()) {
+            max = Math.max(max, depth(child));
+        }
+        return max + node.shapes.size();
+    }
+
+    /**
+     * Return the maximum number of shapes {@link #matchShapes(String, int[], int[])}
+     * can find for one argument, which is the required size of its arrays
+     */
+    int getMaxShapes() {
+        return depth;
+    }
+
+    /**
+     * Return the number of distinct shapes
+     */
+    int getShapeCount() {
+        return shapeDetail.length;
+    }
+
+    /**
+     * Return the shapes of the key (and alternate key, if any) of an option
+     */
+    int[] getShapes(int set, int ordinal) {
+        return optionShapes[set][ordinal];
+    }
+
+    /**
+     * Return the ordinal of the option of the given set with the given shape
+     * <p>
+     *
+     * @return The ordinal, or <code>-1</code> if the set has no option with
+     * this shape
+     */
+    int getOrdinal(int set, int shape) {
+        return ordinals[set][shape];
+    }
+
+    /**
+     * Determine all shapes the given argument matches, regardless of the set.
+     * <p>
+     *
+     * @param arg    The argument to check
+     * @param shapes An array of (at least) {@link #getMaxShapes()} elements
+     *               receiving the shapes found
+     * @param bounds An array of (at least) {@link #getMaxShapes()} times
+     *               {@link #BOUNDS} elements receiving the positions of detail
+     *               and value for each shape found, one block after the other
+     *               <p>
+     * @return The number of shapes found
+     */
+    int matchShapes(String arg, int[] shapes, int[] bounds) {
+
+        int length = arg.length();
+        int found = 0;
+        int node = 0;
+        int pos = 0;
+
+        while (true) {
+
+            if (terminals[node] != null) {
+                for (int shape : terminals[node]) {
+                    if (matchTail(shape, arg, pos, bounds, found * BOUNDS)) {
+                        shapes[found++] = shape;
+                    }
+                }
+            }
+
+            if (pos == length || (node = child(node, arg.charAt(pos))) < 0) {
+                break;
+            }
+            pos++;
+
+        }
+
+        return found;
+
+    }
+
+    /**
+     * Return whether the given argument can match any shape at all, judged
+     * by its first character only. If this is <code>false</code>,
+     * {@link #matchShapes(String, int[], int[])} does not find any shape for
+     * sure.
+     */
+    boolean mayMatch(String arg) {
+        return terminals[0] != null || (!arg.isEmpty() && child(0, arg.charAt(0)) >= 0);
+    }
+
+    //.... Helper method: find the child of a node for the given character (binary search)
+    private int child(int node, char c) {
+        int lo = first[node];
+        int hi = first[node + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (labels[mid] < c) {
+                lo = mid + 1;
+            } else if (labels[mid] > c) {
+                hi = mid - 1;
+            } else {
+                return next[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method: check whether the rest of the argument (behind the key)
+     * has the shape required, and record detail and value positions at the
+     * given offset into <code>bounds</code>
+     */
+    private boolean matchTail(int shape, String arg, int pos, int[] bounds, int offset) {
+
+        int length = arg.length();
+
+        bounds[offset + DETAIL_START] = -1;
+        bounds[offset + DETAIL_END] = -1;
+        bounds[offset + VALUE_START] = -1;
+        bounds[offset + VALUE_END] = -1;
+
+        if (shapeDetail[shape]) {                              // ((\w|\.)+) directly follows the key
+            int end = pos;
+            while (end < length && isDetailChar(arg.charAt(end))) {
+                end++;
+            }
+            if (end == pos) {
+                return false;
+            }
+            bounds[offset + DETAIL_START] = pos;
+            bounds[offset + DETAIL_END] = end;
+            pos = end;
+        }
+
+        if (shapeSeparator[shape] != 0) {                      // separator and (.+)
+            if (pos >= length || arg.charAt(pos) != shapeSeparator[shape]) {
+                return false;
+            }
+            int end = ++pos;
+            while (end < length && !isLineTerminator(arg.charAt(end))) {
+                end++;
+            }
+            if (end == pos) {
+                return false;
+            }
+            bounds[offset + VALUE_START] = pos;
+            bounds[offset + VALUE_END] = end;
+            pos = end;
+        }
+
+        return isEnd(arg, pos);
+
+    }
+
+    /**
+     * Helper method: check whether <code>$</code> matches at the given position,
+     * i. e. whether there is nothing but an optional final line terminator left.
+     * The character before the position is never a line terminator here.
+     */
+    private static boolean isEnd(String arg, int pos) {
+        int length = arg.length();
+        if (pos == length) {
+            return true;
+        }
+        if (pos == length - 1) {
+            return isLineTerminator(arg.charAt(pos));
+        }
+        return pos == length - 2 && arg.charAt(pos) == '\r' && arg.charAt(pos + 1) == '\n';
+    }
+
+    //.... Helper method: the characters accepted by (\w|\.)
+    private static boolean isDetailChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.';
+    }
+
+    //.... Helper method: the characters treated as line terminators by java.util.regex
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * A node of the trie while it is being built
+     */
+    private static class Node {
+
+        private int index = 0;
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private final List<Integer> shapes = new ArrayList<>();
+    }
+}
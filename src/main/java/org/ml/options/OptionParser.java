@@ -0,0 +1,325 @@
+package org.ml.options;
+
+import java.util.List;
+
+/**
+ * The actual checking engine. This matches the command line arguments against
+ * the options of one set and checks the results for multiplicity, constraints
+ * and data items. All results are stored in a {@link ParseResult}, the engine
+ * itself has no state. It is therefore used both by the <code>check()</code>
+ * methods of {@link Options} and by {@link OptionsSpec}.
+ */
+final class OptionParser {
+
+    private OptionParser() {
+    }
+
+    /**
+     * Run the checks for the given set.
+     * <p>
+     *
+     * @param set             The set to check
+     * @param setIndex        The index of the set within the dispatcher the
+     *                        arguments have been classified with
+     * @param tokens          The classified command line arguments to check
+     * @param prefix          The prefix for options
+     * @param result          The instance to store the results in
+     * @param ignoreUnmatched A boolean to select whether unmatched options can
+     *                        be ignored in the checks or not
+     * @param requireDataLast A boolean to indicate whether the data items have
+     *                        to be the last ones on the command line or not
+     * @param failFast        A boolean to select whether the checks stop at the
+     *                        first option found to violate its multiplicity or
+     *                        a {@link ValueConstraint}, instead of parsing all
+     *                        arguments first
+     *                        <p>
+     * @return A boolean indicating whether all checks were successful or not
+     */
+    static boolean check(OptionSet set,
+                         int setIndex,
+                         ArgumentTokens tokens,
+                         Options.Prefix prefix,
+                         ParseResult result,
+                         boolean ignoreUnmatched,
+                         boolean requireDataLast,
+                         boolean failFast) {
+
+        Diagnostics diagnostics = result.getDiagnosticsBuffer();
+        String name = set.getName();
+
+        diagnostics.add(new Diagnostic(Diagnostic.Code.CHECKING_SET, name, -1, null, null));
+
+        //.... Access the data for the set to use
+        String[] arguments = tokens.getArguments();                 // The arguments are a range within this array
+        int offset = tokens.getOffset();
+        int length = tokens.getLength();
+        List<OptionData> options = set.getOptionData();
+        DataList data = result.getDataList();
+        List<String> unmatched = result.getUnmatched();
+        int minData = set.isStreamingData() ? 0 : set.getMinData();   // Streamed data are counted when they are read
+
+        //.... Catch some trivial cases
+        if (options.isEmpty()) {                             // No options have been defined at all
+            if (length == 0) {
+                if (minData > 0) {
+                    diagnostics.add(new Diagnostic(Diagnostic.Code.MISSING_DATA, name, -1, null, null));
+                    return false;
+                } else {         // No options and no data expected, no arguments given - technically true, but useless
+                    result.setSuccess(true);
+                    return true;
+                }
+            }
+        } else if (set.isPurelyOptional() & length == 0) {  // No arguments provided and set only has optional options
+            if (set.getConstraints() != null) {         // A relation may still require some of them
+                for (Constraint constraint : set.getConstraints()) {
+                    if (constraint instanceof RelationConstraint && !constraint.isSatisfied(result)) {
+                        diagnostics.add(new Diagnostic(Diagnostic.Code.SET_CONSTRAINT_VIOLATED, name, -1, null, constraint));
+                        return false;
+                    }
+                }
+            }
+            result.setSuccess(true);
+            return true;
+
+        } else if (length == 0) {     // Options have been defined, but no arguments given
+            diagnostics.add(new Diagnostic(Diagnostic.Code.MISSING_ARGUMENTS, name, -1, null, null));
+            return false;
+        }
+
+        //.... Parse all the arguments given
+        int ipos = 0;
+        int ordinal;
+        OptionData od;
+        int[] bounds = result.getBounds();
+        int keyArg;
+        int valueArg;
+        int valueStart;
+        int valueEnd;
+        String key;
+        String pre = prefix.getName();
+        boolean add;
+        boolean[] matched = result.getMatched(length);   // Initially, we assume there was no match at all
+        int end = tokens.getTerminator() < 0 ? length : tokens.getTerminator();   // The options end here
+        int tail = end;                                             // From here on, there is only data
+
+        while (ipos < end) {
+
+            if (requireDataLast && ipos > tokens.getLastOption()) {   // Only data follows, no need to match it
+                tail = ipos;
+                break;
+            }
+
+            keyArg = ipos;
+            valueArg = -1;
+            valueStart = -1;
+            valueEnd = -1;
+            add = true;
+            key = tokens.getArgument(ipos);
+
+            ordinal = tokens.match(setIndex, ipos, bounds);   // Find the option for this argument (if any)
+
+            if (ordinal >= 0) {
+
+                od = options.get(ordinal);
+
+                if (od.useValue()) {                          // The code section for value options
+
+                    if (od.getSeparator() == Options.Separator.BLANK) { // In this case, the next argument must be the value
+                        if (ipos + 1 == length) {               // The last argument, thus no value follows it: Error
+                            diagnostics.add(new Diagnostic(Diagnostic.Code.MISSING_VALUE_AT_END, name, ipos, od.getKey(), key));
+                            add = false;
+                        } else {
+                            if (tokens.isPrefixed(ipos + 1)) {                // The next item is not a value: Error
+                                diagnostics.add(new Diagnostic(Diagnostic.Code.MISSING_VALUE, name, ipos, od.getKey(), key));
+                                add = false;
+                            } else {
+                                valueArg = ipos + 1;
+                                valueStart = 0;
+                                valueEnd = tokens.getArgument(valueArg).length();
+                                matched[ipos++] = true;                       // Mark the key and the value
+                                matched[ipos] = true;
+                            }
+                        }
+                    } else {                                            // The value follows the separator in this case
+                        valueArg = ipos;
+                        valueStart = bounds[OptionDispatcher.VALUE_START];
+                        valueEnd = bounds[OptionDispatcher.VALUE_END];
+                        matched[ipos] = true;
+                    }
+
+                } else {                                              // Simple, non-value options
+                    matched[ipos] = true;
+                }
+
+                if (add) {
+                    result.add(ordinal, arguments, offset + keyArg,       // Store the result (positions only)
+                            bounds[OptionDispatcher.DETAIL_START], bounds[OptionDispatcher.DETAIL_END],
+                            valueArg < 0 ? -1 : offset + valueArg, valueStart, valueEnd);
+                    if (failFast && !checkOccurrence(od, result, keyArg, name, pre, diagnostics)) {
+                        return false;
+                    }
+                }
+            }
+
+            ipos++;                                                   // Advance to the next argument to check
+
+        }
+
+        //.... Identify unmatched arguments and actual (non-option) data
+        int first = -1;                                             // Required later for requireDataLast
+        for (int i = 0; i < tail; i++) {                            // Assemble the list of unmatched options
+            if (!matched[i]) {
+                if (tokens.isPrefixed(i)) {                             // An unmatched option
+                    unmatched.add(tokens.getArgument(i));
+                    diagnostics.add(new Diagnostic(Diagnostic.Code.UNMATCHED_OPTION, name, i, null, tokens.getArgument(i)));
+                } else {                                                // This is actual data
+                    if (first < 0) {
+                        first = i;
+                    }
+                    data.addItem(tokens.getArgument(i));
+                }
+            }
+        }
+
+        //.... The arguments known to be data (in front of and behind the end of options marker) are not copied,
+        //     the list refers to them as ranges of the array
+        if (tail < end) {
+            if (first < 0) {
+                first = tail;
+            }
+            data.addRange(arguments, offset + tail, offset + end);
+        }
+        if (end < length) {
+            matched[end] = true;
+            if (first < 0 && end + 1 < length) {
+                first = end + 1;
+            }
+            data.addRange(arguments, offset + end + 1, offset + length);
+        }
+
+        //.... Checks to determine overall success, start with the multiplicity of options. Options which are
+        //     part of an ExclusiveConstraint are not included in the masks, the constraint checks these.
+        int wrong = firstWrongMultiplicity(set.getRequired(), set.getSingle(), result.getSeen(), result.getRepeated());
+        if (wrong >= 0) {
+            key = options.get(wrong).getKey();
+            diagnostics.add(new Diagnostic(Diagnostic.Code.WRONG_MULTIPLICITY, name, -1, key, pre + key));
+            return false;
+        }
+
+        //.... Check defined constraints for all options
+        for (OptionData optionData : options) {
+
+            if (result.getResult(optionData).getCount() > 0 && (optionData.getConstraints() != null)) {
+                for (Constraint constraint : optionData.getConstraints()) {
+                    if (!constraint.isSatisfied(result)) {
+                        diagnostics.add(new Diagnostic(Diagnostic.Code.OPTION_CONSTRAINT_VIOLATED, name, -1,
+                                optionData.getKey(), constraint));
+                        return false;
+                    }
+                }
+            }
+
+        }
+
+        //.... Check defined constraints for the current set
+        if (set.getConstraints() != null) {
+            for (Constraint constraint : set.getConstraints()) {
+                if (!constraint.isSatisfied(result)) {
+                    diagnostics.add(new Diagnostic(Diagnostic.Code.SET_CONSTRAINT_VIOLATED, name, -1, null, constraint));
+                    return false;
+                }
+            }
+        }
+
+        //.... Check range for data
+        int limit = set.getMaxData();
+        if (set.hasUnlimitedData()) {
+            limit = Integer.MAX_VALUE;
+        }
+
+        if (data.size() < minData || data.size() > limit) {
+            diagnostics.add(new Diagnostic(Diagnostic.Code.INVALID_DATA_COUNT, name, -1, null, null,
+                    data.size(), set.getMinData(), set.getMaxData()));
+            return false;
+        }
+
+        //.... Check for location of the data in the list of command line arguments
+        if (requireDataLast && data.size() > 0) {
+            int span = data.size() + (first < end && end < length ? 1 : 0);   // Including the marker
+            if (first + span != length) {
+                diagnostics.add(new Diagnostic(Diagnostic.Code.DATA_NOT_LAST, name, first, null, null));
+                return false;
+            }
+        }
+
+        //.... Check for unmatched arguments
+        // Don't accept unmatched arguments
+        //.... If we made it to here, all checks were successful
+        result.setSuccess(ignoreUnmatched || unmatched.size() <= 0);
+        return result.isSuccess();
+
+    }
+
+    /**
+     * Helper method for the fail-fast mode: check the occurrence of an option
+     * just found, as far as this is possible before all arguments have been
+     * parsed. This only reports violations which make the checks fail for
+     * sure: an option allowed at most once which is repeated, and a value
+     * rejected by a {@link ValueConstraint}, if this is the first value of an
+     * option allowed at most once (or not an integer at all, where one is
+     * expected). For options which can occur several times, later values are
+     * left to the regular checks.
+     * <p>
+     *
+     * @return A boolean indicating whether the checks can still succeed
+     */
+    private static boolean checkOccurrence(OptionData od, ParseResult result, int keyArg, String name, String pre,
+                                           Diagnostics diagnostics) {
+
+        boolean once = od.getMultiplicity() == Options.Multiplicity.ONCE
+                || od.getMultiplicity() == Options.Multiplicity.ZERO_OR_ONCE;
+
+        if (once && Bits.get(result.getRepeated(), od.getOrdinal())) {
+            diagnostics.add(new Diagnostic(Diagnostic.Code.WRONG_MULTIPLICITY, name, keyArg, od.getKey(),
+                    pre + od.getKey()));
+            return false;
+        }
+
+        OptionResult values = result.getResult(od.getOrdinal());
+        if (values.getCount() == 1 && od.getConstraints() != null) {
+            for (Constraint constraint : od.getConstraints()) {
+                if (constraint instanceof ValueConstraint) {
+                    int outcome = ((ValueConstraint) constraint).checkValue(values, 0);
+                    if (outcome < 0 || (outcome == 0 && once)) {
+                        diagnostics.add(new Diagnostic(Diagnostic.Code.OPTION_CONSTRAINT_VIOLATED, name, keyArg,
+                                od.getKey(), constraint));
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Helper method: determine the first option with a wrong number of
+     * occurrences, which is an option required but not seen, or an option
+     * allowed at most once but repeated (all given as bitmasks over the
+     * ordinals).
+     * <p>
+     *
+     * @return The ordinal of the option, or <code>-1</code> if all options are
+     * fine
+     */
+    private static int firstWrongMultiplicity(long[] required, long[] single, long[] seen, long[] repeated) {
+        for (int word = 0; word < required.length; word++) {
+            long wrong = (required[word] & ~seen[word]) | (single[word] & repeated[word]);
+            if (wrong != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(wrong);
+            }
+        }
+        return -1;
+    }
+}
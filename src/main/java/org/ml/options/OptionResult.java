@@ -0,0 +1,308 @@
+package org.ml.options;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * This class holds the results found for one option during a check, i. e. the
+ * number of matches and - for value options - the values and details. It is
+ * separated from {@link OptionData} such that the same option definition can
+ * be used for several checks at the same time (see {@link ParseResult}).
+ * <p>
+ * Values and details are not copied from the command line arguments. Instead,
+ * for each match the index of the argument and the start and end positions
+ * within that argument are recorded in a plain <code>int</code> array, and
+ * strings are only created when they are actually requested.
+ * <p>
+ * Numeric access is supported as well: the first time a value is requested as
+ * a number, all values are converted once (without creating any strings) and
+ * kept in primitive arrays, such that later requests - e. g. by
+ * {@link ValueConstraint} and by the application - need no parsing anymore.
+ */
+final class OptionResult {
+
+    private final static String CLASS = "OptionResult";
+    //.... The layout of one record in the positions array
+    private final static int KEY_ARG = 0;
+    private final static int DETAIL_START = 1;
+    private final static int DETAIL_END = 2;
+    private final static int VALUE_ARG = 3;
+    private final static int VALUE_START = 4;
+    private final static int VALUE_END = 5;
+    private final static int STRIDE = 6;
+    private final boolean value;
+    private final boolean detail;
+    private int counter = 0;
+    private int[] positions;
+    private String[] arguments;
+    //.... Parse-once caches for numeric access: the number of values converted so far, the
+    //     converted values, and whether the conversion was successful
+    private int longCount = 0;
+    private long[] longs;
+    private boolean[] validLongs;
+    private int doubleCount = 0;
+    private double[] doubles;
+    private boolean[] validDoubles;
+
+    /**
+     * Constructor
+     */
+    OptionResult(OptionData.Type type) {
+
+        if (type == null) {
+            throw new IllegalArgumentException(CLASS + ": type may not be null");
+        }
+
+        value = type.value();
+        detail = type.detail();
+
+        if (value) {
+            positions = new int[4 * STRIDE];
+        }
+
+    }
+
+    /**
+     * Get the number of results found, which is number of times the key
+     * matched
+     */
+    int getCount() {
+        return counter;
+    }
+
+    /**
+     * Check whether values are stored, i. e. whether this is the result for a
+     * value option
+     */
+    boolean hasValue() {
+        return value;
+    }
+
+    /**
+     * Get the value with the given index (or <code>null</code> for non-value
+     * options). The index is not checked here.
+     */
+    String getValue(int index) {
+        if (!value) {
+            return null;
+        }
+        int base = index * STRIDE;
+        return arguments[positions[base + VALUE_ARG]].substring(positions[base + VALUE_START], positions[base + VALUE_END]);
+    }
+
+    /**
+     * Get a read-only view on the value with the given index (or
+     * <code>null</code> for non-value options). In contrast to
+     * {@link #getValue(int)}, the characters are not copied. The index is not
+     * checked here.
+     */
+    CharSequence getValueView(int index) {
+        if (!value) {
+            return null;
+        }
+        int base = index * STRIDE;
+        return CharBuffer.wrap(arguments[positions[base + VALUE_ARG]], positions[base + VALUE_START], positions[base + VALUE_END]);
+    }
+
+    /**
+     * Get the detail with the given index (or <code>null</code> for options
+     * not taking details). The index is not checked here.
+     */
+    String getDetail(int index) {
+        if (!detail) {
+            return null;
+        }
+        int base = index * STRIDE;
+        return arguments[positions[base + KEY_ARG]].substring(positions[base + DETAIL_START], positions[base + DETAIL_END]);
+    }
+
+    /**
+     * Check whether the value with the given index is a valid
+     * <code>long</code> (in the format accepted by
+     * <code>Long.parseLong()</code>). The index is not checked here.
+     */
+    boolean isLong(int index) {
+        convertLongs();
+        return validLongs[index];
+    }
+
+    /**
+     * Get the value with the given index as <code>long</code>. The index is
+     * not checked here.
+     */
+    long getLong(int index) {
+        if (!isLong(index)) {
+            throw new NumberFormatException(CLASS + ": not a valid long value: " + getValue(index));
+        }
+        return longs[index];
+    }
+
+    /**
+     * Check whether the value with the given index is a valid <code>int</code>
+     * (in the format accepted by <code>Integer.parseInt()</code>). The index is
+     * not checked here.
+     */
+    boolean isInt(int index) {
+        return isLong(index) && longs[index] >= Integer.MIN_VALUE && longs[index] <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get the value with the given index as <code>int</code>. The index is not
+     * checked here.
+     */
+    int getInt(int index) {
+        if (!isInt(index)) {
+            throw new NumberFormatException(CLASS + ": not a valid int value: " + getValue(index));
+        }
+        return (int) longs[index];
+    }
+
+    /**
+     * Get the value with the given index as <code>double</code> (in the format
+     * accepted by <code>Double.parseDouble()</code>). The index is not checked
+     * here.
+     */
+    double getDouble(int index) {
+        convertDoubles();
+        if (!validDoubles[index]) {
+            throw new NumberFormatException(CLASS + ": not a valid double value: " + getValue(index));
+        }
+        return doubles[index];
+    }
+
+    /**
+     * Get the value with the given index as <code>boolean</code>, which is
+     * <code>true</code> if the value is equal to "true" (ignoring case), as for
+     * <code>Boolean.parseBoolean()</code>. The index is not checked here.
+     */
+    boolean getBoolean(int index) {
+        int base = index * STRIDE;
+        int start = positions[base + VALUE_START];
+        return positions[base + VALUE_END] - start == 4
+                && arguments[positions[base + VALUE_ARG]].regionMatches(true, start, "true", 0, 4);
+    }
+
+    /**
+     * Helper method: convert all values not yet converted to <code>long</code>
+     */
+    private void convertLongs() {
+
+        if (longCount == counter) {
+            return;
+        }
+        if (longs == null || longs.length < counter) {
+            longs = longs == null ? new long[counter] : Arrays.copyOf(longs, Math.max(counter, 2 * longs.length));
+            validLongs = validLongs == null ? new boolean[longs.length] : Arrays.copyOf(validLongs, longs.length);
+        }
+
+        for (int index = longCount; index < counter; index++) {
+
+            int base = index * STRIDE;
+            String arg = arguments[positions[base + VALUE_ARG]];
+            int pos = positions[base + VALUE_START];
+            int end = positions[base + VALUE_END];
+            boolean negative = false;
+
+            validLongs[index] = false;
+            if (pos < end && (arg.charAt(pos) == '-' || arg.charAt(pos) == '+')) {
+                negative = arg.charAt(pos++) == '-';
+            }
+            if (pos == end) {                                   // No digits at all
+                continue;
+            }
+
+            //.... Accumulate negatively, which covers the full range down to Long.MIN_VALUE
+            long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long n = 0;
+            int digit;
+            while (pos < end) {
+                digit = Character.digit(arg.charAt(pos++), 10);
+                if (digit < 0 || n < limit / 10 || n * 10 < limit + digit) {
+                    break;
+                }
+                n = n * 10 - digit;
+                if (pos == end) {
+                    longs[index] = negative ? n : -n;
+                    validLongs[index] = true;
+                }
+            }
+
+        }
+
+        longCount = counter;
+
+    }
+
+    /**
+     * Helper method: convert all values not yet converted to <code>double</code>
+     */
+    private void convertDoubles() {
+
+        if (doubleCount == counter) {
+            return;
+        }
+        if (doubles == null || doubles.length < counter) {
+            doubles = doubles == null ? new double[counter] : Arrays.copyOf(doubles, Math.max(counter, 2 * doubles.length));
+            validDoubles = validDoubles == null ? new boolean[doubles.length] : Arrays.copyOf(validDoubles, doubles.length);
+        }
+
+        for (int index = doubleCount; index < counter; index++) {
+            try {
+                doubles[index] = Double.parseDouble(getValue(index));
+                validDoubles[index] = true;
+            } catch (NumberFormatException ex) {
+                validDoubles[index] = false;
+            }
+        }
+
+        doubleCount = counter;
+
+    }
+
+    /**
+     * Remove all results. The allocated storage is kept for the next check.
+     */
+    void clear() {
+        counter = 0;
+        longCount = 0;
+        doubleCount = 0;
+        arguments = null;
+    }
+
+    /**
+     * Store the data for a match found. For non-value options, only the match
+     * is counted.
+     * <p>
+     *
+     * @param arguments   The command line arguments checked
+     * @param keyArg      The index of the argument holding the key (and the
+     *                    detail)
+     * @param detailStart The start of the detail within the key argument
+     * @param detailEnd   The end of the detail within the key argument
+     * @param valueArg    The index of the argument holding the value
+     * @param valueStart  The start of the value within the value argument
+     * @param valueEnd    The end of the value within the value argument
+     */
+    void add(String[] arguments, int keyArg, int detailStart, int detailEnd, int valueArg, int valueStart, int valueEnd) {
+        if (value) {
+            if (valueStart < 0) {
+                throw new IllegalArgumentException(CLASS + ": valueStart must be >= 0");
+            }
+            if (detail && detailStart < 0) {
+                throw new IllegalArgumentException(CLASS + ": detailStart must be >= 0");
+            }
+            int base = counter * STRIDE;
+            if (base + STRIDE > positions.length) {
+                positions = Arrays.copyOf(positions, 2 * positions.length);
+            }
+            positions[base + KEY_ARG] = keyArg;
+            positions[base + DETAIL_START] = detailStart;
+            positions[base + DETAIL_END] = detailEnd;
+            positions[base + VALUE_ARG] = valueArg;
+            positions[base + VALUE_START] = valueStart;
+            positions[base + VALUE_END] = valueEnd;
+            this.arguments = arguments;
+        }
+        counter++;
+    }
+}
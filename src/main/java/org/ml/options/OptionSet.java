@@ -1,11 +1,12 @@
 package org.ml.options;
 
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class holds the information for a <i>set</i> of options. A set can hold
@@ -38,12 +39,11 @@ import java.util.regex.Pattern;
 public class OptionSet implements Constrainable {
 
     private final static String CLASS = "OptionSet";
-    private static Pattern keyPattern = Pattern.compile("\\w+");
     private ArrayList<OptionData> options = new ArrayList<>();
     private HashMap<String, OptionData> keys = new HashMap<>();
     private HashSet<String> altKeys = new HashSet<>();
     private ArrayList<String> unmatched = new ArrayList<>();
-    private ArrayList<String> data = new ArrayList<>();
+    private DataList data = new DataList();
     private String name;
     private String[] dataText;
     private String[] helpText;
@@ -58,6 +58,14 @@ public class OptionSet implements Constrainable {
     private boolean unlimitedData = false;
     private int limit = 0;
     private List<Constraint> constraints;
+    private OptionDispatcher dispatcher;
+    private ParseResult scratch;
+    //.... Bitmasks over the ordinals of the options which are not part of an ExclusiveConstraint:
+    //     the options required at least once, and the options allowed at most once
+    private long[] required;
+    private long[] single;
+    private boolean frozen = false;
+    private boolean streamingData = false;
     /**
      * A constant indicating an unlimited number of supported data items
      */
@@ -73,6 +81,7 @@ public class OptionSet implements Constrainable {
                 os.getDefaultMultiplicity(), os.getMinData(), os.getMaxData(), false);
 
         this.limit = os.getLimit();
+        this.streamingData = os.isStreamingData();
 
         for (int i = 0; i < limit; i++) {
             helpText[i] = os.getHelpText(i);
@@ -86,6 +95,7 @@ public class OptionSet implements Constrainable {
         OptionData nod;
         for (OptionData od : os.getOptionData()) {
             nod = new OptionData(od);
+            nod.setOrdinal(options.size());
             options.add(nod);
             keys.put(od.getKey(), nod);
         }
@@ -205,7 +215,7 @@ public class OptionSet implements Constrainable {
      * @return
      */
     public boolean isPurelyOptional() {
-        if (minData > 0) {
+        if (minData > 0 && !streamingData) {                // Streamed data are only counted when they are read
             return false;
         }
         boolean mandatory = false;
@@ -230,12 +240,15 @@ public class OptionSet implements Constrainable {
         if (!constraint.supports(this)) {
             throw new IllegalArgumentException(CLASS + ": the given constraint can not be applied to option sets");
         }
+        checkFrozen();
 
         if (constraints == null) {
             constraints = new ArrayList<>();
         }
 
         constraints.add(constraint);
+        required = null;                            // An ExclusiveConstraint changes the multiplicities
+        single = null;
     }
 
     /**
@@ -270,6 +283,7 @@ public class OptionSet implements Constrainable {
         if (index < 0 || index >= limit) {
             throw new IllegalArgumentException(CLASS + ": invalid value for index");
         }
+        checkFrozen();
         this.dataText[index] = text.trim();
         return this;
     }
@@ -294,6 +308,7 @@ public class OptionSet implements Constrainable {
         if (index < 0 || index >= limit) {
             throw new IllegalArgumentException(CLASS + ": invalid value for index");
         }
+        checkFrozen();
         this.helpText[index] = text.trim();
         return this;
     }
@@ -370,6 +385,172 @@ public class OptionSet implements Constrainable {
         return options;
     }
 
+    /**
+     * Get the compiled dispatch structure for the options of this set. This is
+     * created on first use after the last option has been added.
+     * <p>
+     *
+     * @return The {@link OptionDispatcher} for this set
+     */
+    OptionDispatcher getDispatcher() {
+        if (dispatcher == null) {
+            dispatcher = new OptionDispatcher(Collections.singletonList(options));
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Get the scratch area for an attempt to match this set, which is used by
+     * the <code>check()</code> methods in {@link Options}. The results of an
+     * attempt are only transferred to this set and its options by
+     * {@link #commit(ParseResult)}, a failed attempt is simply discarded with
+     * {@link ParseResult#clear()}. The scratch area is created on first use
+     * after the last option has been added, and is empty whenever it is
+     * returned.
+     * <p>
+     *
+     * @param diagnostics The buffer collecting the diagnostics
+     *                    <p>
+     * @return The scratch area for this set
+     */
+    ParseResult getScratch(Diagnostics diagnostics) {
+        if (scratch == null) {
+            scratch = new ParseResult(this, diagnostics);
+        } else {
+            scratch.setDiagnosticsBuffer(diagnostics);
+        }
+        return scratch;
+    }
+
+    /**
+     * Replace the results stored with this set and its options by those of the
+     * given scratch area (see {@link #getScratch(Diagnostics)}), which is empty
+     * afterwards. The lists of data items and unmatched arguments and the
+     * result holders of the options are exchanged rather than copied.
+     */
+    void commit(ParseResult attempt) {
+        data = attempt.exchangeData(data);
+        unmatched = attempt.exchangeUnmatched(unmatched);
+        for (OptionData od : options) {
+            attempt.exchangeResult(od.getOrdinal(), od.exchangeResult(attempt.getResult(od)));
+        }
+        attempt.clear();
+    }
+
+    /**
+     * Get the options which are required at least once (multiplicity
+     * <code>ONCE</code> or <code>ONCE_OR_MORE</code>), as a bitmask over their
+     * ordinals. Options which are part of an {@link ExclusiveConstraint} are
+     * not included, since they are checked by the constraint.
+     */
+    long[] getRequired() {
+        if (required == null) {
+            computeMasks();
+        }
+        return required;
+    }
+
+    /**
+     * Get the options which are allowed at most once (multiplicity
+     * <code>ONCE</code> or <code>ZERO_OR_ONCE</code>), as a bitmask over their
+     * ordinals. Options which are part of an {@link ExclusiveConstraint} are
+     * not included.
+     */
+    long[] getSingle() {
+        if (single == null) {
+            computeMasks();
+        }
+        return single;
+    }
+
+    //.... Helper method: compute the bitmasks for the multiplicities
+    private void computeMasks() {
+        long[] requiredMask = new long[Bits.words(options.size())];
+        long[] singleMask = new long[requiredMask.length];
+        for (OptionData od : options) {
+            if (od.isExclusive()) {
+                continue;
+            }
+            switch (od.getMultiplicity()) {
+                case ONCE:
+                    Bits.set(requiredMask, od.getOrdinal());
+                    Bits.set(singleMask, od.getOrdinal());
+                    break;
+                case ONCE_OR_MORE:
+                    Bits.set(requiredMask, od.getOrdinal());
+                    break;
+                case ZERO_OR_ONCE:
+                    Bits.set(singleMask, od.getOrdinal());
+                    break;
+            }
+        }
+        single = singleMask;
+        required = requiredMask;
+    }
+
+    /**
+     * Remove all results stored with this set and its options
+     */
+    void clearResults() {
+        data.reset();
+        unmatched.clear();
+        for (OptionData od : options) {
+            od.getResult().clear();
+        }
+    }
+
+    /**
+     * Mark this set and all its options as frozen, i. e. their definitions can
+     * no longer be changed. This is done once an {@link OptionsSpec} has been
+     * compiled.
+     */
+    void freeze() {
+        frozen = true;
+        for (OptionData od : options) {
+            od.freeze();
+        }
+    }
+
+    /**
+     * Select whether the data items for this set can be continued from an
+     * <code>InputStream</code> (see {@link #getDataItems(InputStream)}). For
+     * such a set, the checks only make sure that the data items on the command
+     * line do not exceed <code>maxData</code>. Whether there are at least
+     * <code>minData</code> items is only known once all items have been read,
+     * so this is checked by {@link DataItems#finish()}.
+     * <p>
+     *
+     * @param streamingData A boolean to select whether the data items can be
+     *                      continued from a stream
+     *                      <p>
+     * @return This set to allow for invocation chaining
+     */
+    public OptionSet setStreamingData(boolean streamingData) {
+        checkFrozen();
+        this.streamingData = streamingData;
+        return this;
+    }
+
+    /**
+     * Indicate whether the data items for this set can be continued from an
+     * <code>InputStream</code>
+     * <p>
+     *
+     * @return A boolean indicating whether this set has streaming data
+     */
+    public boolean isStreamingData() {
+        return streamingData;
+    }
+
+    /**
+     * Helper method: throw an exception if the definition is frozen
+     */
+    private void checkFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException(CLASS + ": method can not be invoked, an OptionsSpec has already been compiled");
+        }
+    }
+
     /**
      * Get the data for a specific option, identified by its key name (which is
      * unique)
@@ -505,7 +686,9 @@ public class OptionSet implements Constrainable {
 
     /**
      * Return the data items found (these are the items on the command line
-     * which do not start with the prefix, i. e. non-option arguments)
+     * which do not start with the prefix, i. e. non-option arguments). The
+     * list is read-only, and it refers to the command line arguments rather
+     * than copying them where possible.
      * <p>
      *
      * @return A list of strings with all data items found
@@ -514,6 +697,59 @@ public class OptionSet implements Constrainable {
         return data;
     }
 
+    /**
+     * Return the data items found, one after the other (see {@link DataItems})
+     * <p>
+     *
+     * @return The data items
+     */
+    public DataItems getDataItems() {
+        return new DataItems(this, data);
+    }
+
+    /**
+     * Return the data items found, followed by the items read from the given
+     * stream (see {@link DataItems}). This requires a set with streaming data
+     * (see {@link #setStreamingData(boolean)}).
+     * <p>
+     *
+     * @param in The stream to read further data items from. The items must be
+     *           separated by NUL bytes and encoded in UTF-8.
+     *           <p>
+     * @return The data items
+     */
+    public DataItems getDataItems(InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException(CLASS + ": in may not be null");
+        }
+        if (!streamingData) {
+            throw new UnsupportedOperationException(CLASS + ": set '" + name + "' does not have streaming data");
+        }
+        return new DataItems(this, data, in);
+    }
+
+    /**
+     * Return the data items found, followed by the items delivered by the
+     * given iterator (see {@link DataItems}), e. g. the arguments of an
+     * argument file (see {@link ArgumentFiles#iterator(java.nio.file.Path)}).
+     * This requires a set with streaming data (see
+     * {@link #setStreamingData(boolean)}).
+     * <p>
+     *
+     * @param items The iterator delivering further data items
+     *              <p>
+     * @return The data items
+     */
+    public DataItems getDataItems(Iterator<String> items) {
+        if (items == null) {
+            throw new IllegalArgumentException(CLASS + ": items may not be null");
+        }
+        if (!streamingData) {
+            throw new UnsupportedOperationException(CLASS + ": set '" + name + "' does not have streaming data");
+        }
+        return new DataItems(this, data, items);
+    }
+
     /**
      * Return the number of data items found (these are the items on the command
      * line which do not start with the prefix, i. e. non-option arguments)
@@ -741,6 +977,7 @@ public class OptionSet implements Constrainable {
         if (multiplicity == null) {
             throw new IllegalArgumentException(CLASS + ": multiplicity may not be null");
         }
+        checkFrozen();
         if (keys.containsKey(key)) {
             throw new IllegalArgumentException(CLASS + ": the key " + key + " has already been defined for this OptionSet");
         }
@@ -749,20 +986,23 @@ public class OptionSet implements Constrainable {
         }
 
         //.... Check keys for valid names (especially no whitespace)
-        Matcher m = keyPattern.matcher(key);
-        if (!m.matches()) {
+        if (!isKey(key)) {
             throw new IllegalArgumentException(CLASS + ": invalid key: may only contain [a-zA-Z_0-9]");
         }
         if (altKey != null) {
-            m = keyPattern.matcher(altKey);
-            if (!m.matches()) {
+            if (!isKey(altKey)) {
                 throw new IllegalArgumentException(CLASS + ": invalid alternate key: may only contain [a-zA-Z_0-9]");
             }
         }
 
         OptionData od = new OptionData(type, prefix, altPrefix, key, altKey, separator, multiplicity);
+        od.setOrdinal(options.size());
         options.add(od);
         keys.put(key, od);
+        dispatcher = null;                          // Needs to be recompiled
+        scratch = null;
+        required = null;
+        single = null;
         if (altKey != null) {
             altKeys.add(altKey);
         }
@@ -771,6 +1011,21 @@ public class OptionSet implements Constrainable {
 
     }
 
+    //.... Helper method: check for a valid key, which is a non-empty sequence of [a-zA-Z_0-9]
+    private static boolean isKey(String key) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        char c;
+        for (int i = 0; i < key.length(); i++) {
+            c = key.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @param type
      * @param key
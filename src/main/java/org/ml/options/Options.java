@@ -1,19 +1,14 @@
 package org.ml.options;
 
-import org.jdom2.Document;
-import org.jdom2.Element;
 import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
-import org.xml.sax.SAXException;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The central class for option processing. Sets are identified by their name,
@@ -189,8 +184,26 @@ public class Options {
     // ==========================================================================================
     private TreeMap<String, OptionSet> optionSets = new TreeMap<>();
     private String[] arguments;
+    //.... The arguments to check are arguments[argumentOffset] ... arguments[argumentOffset + argumentCount - 1],
+    //     the array belongs to the caller if it has been wrapped
+    private int argumentOffset = 0;
+    private int argumentCount;
+    private boolean wrapped = false;
     private boolean ignoreUnmatched = false;
-    private StringBuilder checkErrors = new StringBuilder();
+    private int maxDiagnostics = Diagnostics.DEFAULT_CAPACITY;
+    private Diagnostics diagnostics = new Diagnostics(maxDiagnostics);
+    private boolean frozen = false;
+    //.... The dispatch structure for all sets used by getMatchingSet(), together with the sets and
+    //     their number of options it has been built for
+    private OptionDispatcher dispatcher;
+    private SetFilter filter;
+    private OptionSet[] dispatcherSets;
+    private int[] dispatcherSizes;
+    private ForkJoinPool pool;
+    //.... The classified arguments, which are reused for all checks
+    private final ArgumentTokens tokens = new ArgumentTokens();
+    private boolean failFast = false;
+    private boolean endOfOptions = false;
     //.... Defaults
     private Prefix defaultPrefix = getDefaultPrefix();
     private Prefix defaultAltPrefix = Prefix.DOUBLEDASH;
@@ -215,6 +228,134 @@ public class Options {
         for (String s : args) {
             arguments[i++] = s;
         }
+        argumentCount = arguments.length;
+    }
+
+    /**
+     * Create an instance for the given command line arguments. In contrast to
+     * the constructor, the array is used as it is rather than copied, so it
+     * must not be modified as long as the instance (or any result) is in use.
+     * <p>
+     *
+     * @param args The command line arguments to check
+     *             <p>
+     * @return The new instance
+     */
+    public static Options wrap(String[] args) {
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+        return wrap(args, 0, args.length);
+    }
+
+    /**
+     * Create an instance for a range of the given array as command line
+     * arguments. The array is used as it is rather than copied, so it must not
+     * be modified as long as the instance (or any result) is in use. Indices
+     * reported for arguments (e. g. in the diagnostics) are relative to the
+     * start of the range.
+     * <p>
+     *
+     * @param args   The array holding the command line arguments to check
+     * @param offset The index of the first argument within the array
+     * @param length The number of arguments
+     *               <p>
+     * @return The new instance
+     */
+    public static Options wrap(String[] args, int offset, int length) {
+        Options options = new Options(new String[0]);
+        options.setArguments(args, offset, length);
+        return options;
+    }
+
+    /**
+     * Create an instance for the given command line arguments, where arguments
+     * of the form <code>@file</code> are replaced by the arguments contained
+     * in the file (see {@link ArgumentFiles}).
+     * <p>
+     *
+     * @param args The command line arguments to check
+     *             <p>
+     * @return The new instance
+     * @throws IOException If an argument file can not be read or is malformed
+     */
+    public static Options withArgumentFiles(String[] args) throws IOException {
+        return wrap(ArgumentFiles.expand(args));            // A new array already, no need to copy it again
+    }
+
+    /**
+     * Remove all results found by previous checks, for all sets and options,
+     * as well as all error messages. The command line arguments remain the
+     * same. The storage allocated for the results is reused for the following
+     * checks.
+     * <p>
+     *
+     * @return This instance to allow for invocation chaining
+     */
+    public Options reset() {
+        diagnostics.clear();
+        for (OptionSet set : optionSets.values()) {
+            set.clearResults();
+        }
+        return this;
+    }
+
+    /**
+     * Remove all results found by previous checks (see {@link #reset()}) and
+     * replace the command line arguments to check. This allows to run the
+     * checks for any number of argument vectors against the same option sets
+     * and options, without the need to set these up again.
+     * <p>
+     *
+     * @param args The command line arguments to check
+     *             <p>
+     * @return This instance to allow for invocation chaining
+     */
+    public Options reset(String[] args) {
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+        if (wrapped || args.length != arguments.length) {     // Never overwrite the array of the caller
+            arguments = new String[args.length];
+        }
+        System.arraycopy(args, 0, arguments, 0, args.length);
+        argumentOffset = 0;
+        argumentCount = args.length;
+        wrapped = false;
+        return reset();
+    }
+
+    /**
+     * Remove all results found by previous checks (see {@link #reset()}) and
+     * replace the command line arguments to check by a range of the given
+     * array. As for {@link #wrap(String[], int, int)}, the array is used as it
+     * is rather than copied. This allows to check any number of ranges of a
+     * large, shared array against the same option sets and options.
+     * <p>
+     *
+     * @param args   The array holding the command line arguments to check
+     * @param offset The index of the first argument within the array
+     * @param length The number of arguments
+     *               <p>
+     * @return This instance to allow for invocation chaining
+     */
+    public Options reset(String[] args, int offset, int length) {
+        setArguments(args, offset, length);
+        return reset();
+    }
+
+    //.... Helper method: use a range of the given array as arguments
+    private void setArguments(String[] args, int offset, int length) {
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+        if (offset < 0 || length < 0 || offset > args.length - length) {
+            throw new IllegalArgumentException(CLASS + ": invalid range for args");
+        }
+        arguments = args;
+        argumentOffset = offset;
+        argumentCount = length;
+        wrapped = true;
     }
 
     /**
@@ -232,269 +373,150 @@ public class Options {
             throw new IllegalArgumentException(CLASS + ": reader may not be null");
         }
 
-        //.... Copy the XML content into a string. This is done since we need to read the data 
-        //     twice (once for validation, once for evaluation), and not all readers support the 
-        //     reset() method.
-        StringBuilder sb = new StringBuilder(1000);
-        String line;
-        BufferedReader r = new BufferedReader(reader);
-
-        try {
-            while ((line = r.readLine()) != null) {
-                sb.append(line);
-                sb.append('\n');
-            }
-        } catch (IOException ex) {
-            throw new XMLParsingException(CLASS + ": Error while reading XML file!\n" + ex.getMessage());
-        }
-        line = sb.toString();
-
-        //.... Try to validate the XML document against the schema
-        SchemaValidator validator = new SchemaValidator();
+        XMLDocumentLoader.load(this, reader);           // All uses of JDOM are kept in there
+    }
 
-        try {
-            if (!validator.validate(new BufferedReader(new StringReader(line)))) {
-                throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + validator.getError());
-            }
-        } catch (IOException | SAXException ex) {
-            throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + ex.getMessage());
+    /**
+     * Create an instance using the XML file provided by the reader to set up
+     * option sets and options. The result is the same as with
+     * {@link #Options(String[], Reader)}, but the file is processed as a
+     * stream of SAX events (validated against the schema on the way) rather
+     * than as a JDOM document. Sets, options and constraints are created as
+     * soon as their elements have been read, so the memory required depends
+     * on the definitions created, not on the size of the XML file.
+     * <p>
+     *
+     * @param args   The command line arguments to check
+     * @param reader The reader instance providing the XML file
+     *               <p>
+     * @return The new instance
+     */
+    public static Options fromXML(String[] args, Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException(CLASS + ": reader may not be null");
         }
+        Options options = new Options(args);
+        XMLOptionsHandler.load(options, reader);
+        return options;
+    }
 
-        //.... Retrieve the data and create the option sets and options
-        try {
+    // ==========================================================================================
+    // Helper methods for the XML loaders. These take the attribute values and texts found in
+    // the XML file (or null, if not present), so that both loaders create exactly the same
+    // sets, options and constraints.
+    // ==========================================================================================
 
-            SAXBuilder builder = new SAXBuilder();
-            Document doc = builder.build(new BufferedReader(new StringReader(line)));
+    //.... Apply the defaults given as attributes of the <options> tag
+    void setXMLDefaults(String defData, String defMult, String defSep, String defPrefix) {
 
-            //... Process the <options> tag
-            Element root = doc.getRootElement();
-            String value;
-            String[] values;
+        String[] values;
 
-            if (root.getAttribute("defData") != null) {
-                value = root.getAttributeValue("defData");
-                if (value.indexOf(':') < 0) {
-                    setDefault(Integer.parseInt(value));
+        if (defData != null) {
+            if (defData.indexOf(':') < 0) {
+                setDefault(Integer.parseInt(defData));
+            } else {
+                values = defData.split(":");
+                if (values[1].equals("INF")) {
+                    setDefault(Integer.parseInt(values[0]), Integer.MAX_VALUE);
                 } else {
-                    values = value.split(":");
-                    if (values[1].equals("INF")) {
-                        setDefault(Integer.parseInt(values[0]), Integer.MAX_VALUE);
-                    } else {
-                        setDefault(Integer.parseInt(values[0]), Integer.parseInt(values[1]));
-                    }
+                    setDefault(Integer.parseInt(values[0]), Integer.parseInt(values[1]));
                 }
             }
+        }
 
-            if (root.getAttribute("defMult") != null) {
-                setDefault(Multiplicity.valueOf(root.getAttributeValue("defMult")));
-            }
+        if (defMult != null) {
+            setDefault(Multiplicity.valueOf(defMult));
+        }
 
-            if (root.getAttribute("defSep") != null) {
-                value = root.getAttributeValue("defSep");
-                if (value.indexOf(':') < 0) {
-                    setDefault(Separator.valueOf(value));
-                } else {
-                    values = value.split(":");
-                    setDefault(Separator.valueOf(values[0]), Separator.valueOf(values[1]));
-                }
+        if (defSep != null) {
+            if (defSep.indexOf(':') < 0) {
+                setDefault(Separator.valueOf(defSep));
+            } else {
+                values = defSep.split(":");
+                setDefault(Separator.valueOf(values[0]), Separator.valueOf(values[1]));
             }
+        }
 
-            if (root.getAttribute("defPrefix") != null) {
-                value = root.getAttributeValue("defPrefix");
-                if (value.indexOf(':') < 0) {
-                    setDefault(Prefix.valueOf(value));
-                } else {
-                    values = value.split(":");
-                    setDefault(Prefix.valueOf(values[0]), Prefix.valueOf(values[1]));
-                }
+        if (defPrefix != null) {
+            if (defPrefix.indexOf(':') < 0) {
+                setDefault(Prefix.valueOf(defPrefix));
+            } else {
+                values = defPrefix.split(":");
+                setDefault(Prefix.valueOf(values[0]), Prefix.valueOf(values[1]));
             }
+        }
 
-            //... Process the <set> tag(s)
-            OptionSet set;
-            boolean found = false;
-
-            for (Element element : root.getChildren("set")) {
-
-                if (element.getAttribute("data") != null) {          // Create the set
-                    value = element.getAttributeValue("data");
-                    if (value.indexOf(':') < 0) {
-                        set = addSet(element.getAttributeValue("name"),
-                                Integer.parseInt(value));
-                    } else {
-                        values = value.split(":");
-                        if (values[1].equals("INF")) {                        // Allow unlimited number of data items
-                            set = addSet(element.getAttributeValue("name"),
-                                    Integer.parseInt(values[0]), Integer.MAX_VALUE);
-                        } else {
-                            set = addSet(element.getAttributeValue("name"),
-                                    Integer.parseInt(values[0]), Integer.parseInt(values[1]));
-                        }
-                    }
-                } else {
-                    set = addSet(element.getAttributeValue("name"));
-                }
-
-                processSet(set, element);
-                found = true;
-
-            }
+    }
 
-            //... Process the <defaultSet> tag (if present)
-            if (root.getChild("defaultSet") != null) {
-                processSet(getSet(), root.getChild("defaultSet"));
-                found = true;
-            }
+    //.... Create a set for a <set> tag
+    OptionSet addXMLSet(String name, String data) {
 
-            if (!found) {
-                throw new XMLParsingException(CLASS + ": At least one option set needs to be defined");
-            }
+        if (data == null) {
+            return addSet(name);
+        }
 
-            //.... Process the <option> tags (for addOptionAllSets())
-            for (Element element : root.getChildren("option")) {
-                for (String name : optionSets.keySet()) {
-                    addOptions(optionSets.get(name), element);
-                }
-            }
+        if (data.indexOf(':') < 0) {
+            return addSet(name, Integer.parseInt(data));
+        }
 
-        } catch (java.io.IOException ex) {
-            throw new XMLParsingException(CLASS + ": Error during XML file content validation!\n" + ex.getMessage());
+        String[] values = data.split(":");
+        if (values[1].equals("INF")) {                        // Allow unlimited number of data items
+            return addSet(name, Integer.parseInt(values[0]), Integer.MAX_VALUE);
+        } else {
+            return addSet(name, Integer.parseInt(values[0]), Integer.parseInt(values[1]));
         }
 
     }
 
-    //.... Helper method to add the options to a set
-    private void addOptions(OptionSet set, Element element) {
+    //.... Create an option for an <option> tag
+    static void addXMLOption(OptionSet set, String type, String key, String altKey, String mult) {
 
-        String type = element.getAttributeValue("type");
-        String key = element.getAttributeValue("key");
-        String altKey = element.getAttributeValue("altKey");
-        String mult = element.getAttributeValue("mult");
-        String value;
-        String detail;
-        String help;
         OptionData.Type otype;
 
-        //.... Create the option
         if (type.equals(OptionData.Type.SIMPLE.name())) {
             otype = OptionData.Type.SIMPLE;
-            if (altKey == null) {
-                if (mult == null) {
-                    set.addOption(otype, key);
-                } else {
-                    set.addOption(otype, key, Multiplicity.valueOf(mult));
-                }
-            } else {
-                if (mult == null) {
-                    set.addOption(otype, key, altKey);
-                } else {
-                    set.addOption(otype, key, altKey, Multiplicity.valueOf(mult));
-                }
-            }
+        } else if (type.equals(OptionData.Type.VALUE.name())) {
+            otype = OptionData.Type.VALUE;
         } else {
-            if (type.equals(OptionData.Type.VALUE.name())) {
-                otype = OptionData.Type.VALUE;
+            otype = OptionData.Type.DETAIL;
+        }
+
+        if (altKey == null) {
+            if (mult == null) {
+                set.addOption(otype, key);
             } else {
-                otype = OptionData.Type.DETAIL;
+                set.addOption(otype, key, Multiplicity.valueOf(mult));
             }
-            if (altKey == null) {
-                if (mult == null) {
-                    set.addOption(otype, key);
-                } else {
-                    set.addOption(otype, key, Multiplicity.valueOf(mult));
-                }
+        } else {
+            if (mult == null) {
+                set.addOption(otype, key, altKey);
             } else {
-                if (mult == null) {
-                    set.addOption(otype, key, altKey);
-                } else {
-                    set.addOption(otype, key, altKey, Multiplicity.valueOf(mult));
-                }
+                set.addOption(otype, key, altKey, Multiplicity.valueOf(mult));
             }
         }
 
-        //.... Add texts, if necessary
-        if (element.getChild("text") != null) {   // Texts for this set
-
-            Element textElement = element.getChild("text");
-
-            value = textElement.getChildText("value");
-            detail = textElement.getChildText("detail");
-            help = textElement.getChildText("help");
+    }
 
-            if (value != null) {
-                if (detail != null) {
-                    set.getOption(key).setValueText(value).setDetailText(detail).setHelpText(help);
-                } else {
-                    set.getOption(key).setValueText(value).setHelpText(help);
-                }
+    //.... Add the texts of the <text> tag of an option
+    static void setXMLTexts(OptionData option, String value, String detail, String help) {
+        if (value != null) {
+            if (detail != null) {
+                option.setValueText(value).setDetailText(detail).setHelpText(help);
             } else {
-                set.getOption(key).setHelpText(help);
+                option.setValueText(value).setHelpText(help);
             }
-
-        }
-
-        //.... Add constraints, if necessary. Only instances of XMLConstraint are possible here, of course
-        if (element.getChild("constraints") != null) {   // Constraints for this option
-
-            try {
-
-                Element constraints = element.getChild("constraints");
-                XMLConstraint constr;
-                for (Element constraint : constraints.getChildren("constraint")) {
-                    constr = (XMLConstraint) Class.forName(constraint.getAttributeValue("class").trim()).newInstance();
-                    constr.init(set.getOption(key), constraint.getChild("params").getChildren("param"));
-                }
-
-            } catch (InstantiationException | ClassNotFoundException | IllegalAccessException ex) {
-                throw new XMLParsingException(CLASS + ": Could not create constraint instance", ex);
-            }
-
+        } else {
+            option.setHelpText(help);
         }
-
     }
 
-    //.... Helper method to add the texts to a set
-    private void addTexts(OptionSet set, Element element) {
-        int index = Integer.parseInt(element.getAttributeValue("index"));
-        String data = element.getChildText("data");
-        String help = element.getChildText("help");
-
+    //.... Add the texts of a <text> tag of a set
+    static void addXMLTexts(OptionSet set, String index, String data, String help) {
+        int i = Integer.parseInt(index);
         if (help != null) {
-            set.setDataText(index, data).setHelpText(index, help);
+            set.setDataText(i, data).setHelpText(i, help);
         } else {
-            set.setDataText(index, data);
-        }
-    }
-
-    /**
-     * Helper method used when adding a set
-     */
-    private void processSet(OptionSet set, Element element) {
-
-        for (Element subElement : element.getChildren("option")) {
-            addOptions(set, subElement);
-        }
-
-        if (element.getChildren("text") != null) {
-            for (Element subElement : element.getChildren("text")) {
-                addTexts(set, subElement);
-            }
-        }
-
-        if (element.getChild("constraints") != null) {   // Constraints for this set
-
-            try {
-
-                Element constraints = element.getChild("constraints");
-                XMLConstraint constr;
-                for (Element constraint : constraints.getChildren("constraint")) {
-                    constr = (XMLConstraint) Class.forName(constraint.getAttributeValue("class").trim()).newInstance();
-                    constr.init(set, constraint.getChild("params").getChildren("param"));
-                }
-
-            } catch (InstantiationException | ClassNotFoundException | IllegalAccessException ex) {
-                throw new XMLParsingException(CLASS + ": Could not create constraint instance", ex);
-            }
-
+            set.setDataText(i, data);
         }
     }
 
@@ -676,6 +698,91 @@ public class Options {
 
     }
 
+    /**
+     * Define the maximum number of diagnostics to keep for one check (see
+     * {@link #getDiagnostics()}). Further diagnostics are only counted. This
+     * also applies to the results of an {@link OptionsSpec} compiled
+     * <i>after</i> this call. The default is 100.
+     * <p>
+     *
+     * @param maxDiagnostics The maximum number of diagnostics to keep
+     *                       <p>
+     * @return This instance to allow for invocation chaining
+     */
+    public Options setMaxDiagnostics(int maxDiagnostics) {
+        if (maxDiagnostics < 0) {
+            throw new IllegalArgumentException(CLASS + ": maxDiagnostics must be >= 0");
+        }
+        this.maxDiagnostics = maxDiagnostics;
+        diagnostics = new Diagnostics(maxDiagnostics);
+        return this;
+    }
+
+    /**
+     * Select whether {@link #getMatchingSet(boolean, boolean)} checks the sets
+     * in parallel. The set returned is exactly the same as for the sequential
+     * checks: among all matching sets, the first one in the order of their
+     * names wins. Once a set has matched, the checks for later sets which have
+     * not yet started are skipped. This pays off for a large number of sets
+     * with costly checks.
+     * <p>
+     *
+     * @param pool The pool to run the checks in (e. g.
+     *             <code>ForkJoinPool.commonPool()</code>), or <code>null</code>
+     *             to check the sets one after the other (which is the default)
+     *             <p>
+     * @return This instance to allow for invocation chaining
+     */
+    public Options setParallel(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Select whether the checks stop as soon as an option is found which makes
+     * them fail for sure, instead of parsing all arguments first: an option
+     * allowed at most once which occurs again, or a value rejected by a
+     * {@link ValueConstraint}. Only the violation found first is reported in
+     * the diagnostics then, and the results stored for a set checked with
+     * {@link #check(String, boolean, boolean)} are incomplete. The outcome of
+     * the checks is the same in both modes. This also applies to an
+     * {@link OptionsSpec} compiled <i>after</i> this call. The default is
+     * <code>false</code>.
+     * <p>
+     *
+     * @param failFast A boolean to select whether the checks stop at the first
+     *                 violation found
+     *                 <p>
+     * @return This instance to allow for invocation chaining
+     */
+    public Options setFailFast(boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    /**
+     * Select whether the argument <code>--</code> marks the end of the options.
+     * All arguments following it are data then, even if they start with a
+     * prefix, and they are not matched against the options at all. The marker
+     * itself is neither data nor an unmatched option. This also applies to an
+     * {@link OptionsSpec} compiled <i>after</i> this call. The default is
+     * <code>false</code>.
+     * <p>
+     * Independent of this setting, the checks with <code>requireDataLast</code>
+     * do not match the arguments following the first data item against the
+     * options if none of them can be an option.
+     * <p>
+     *
+     * @param endOfOptions A boolean to select whether <code>--</code> marks
+     *                     the end of the options
+     *                     <p>
+     * @return This instance to allow for invocation chaining
+     */
+    public Options setEndOfOptions(boolean endOfOptions) {
+        this.endOfOptions = endOfOptions;
+        return this;
+    }
+
     // ==========================================================================================
     // The actual API
     // ==========================================================================================
@@ -717,17 +824,64 @@ public class Options {
             getSet();
         }
 
-        // Run the checks for all known sets
-        for (String name : optionSets.keySet()) {
-            if (check(name, ignoreUnmatched, requireDataLast)) {
-                return optionSets.get(name);
+        // Run the checks for all known sets. The arguments are classified only once for all of them,
+        // and sets which can not match are ruled out before the detailed checks (which are run for
+        // them if no set matches at all, but only once the diagnostics are requested).
+        diagnostics.clear();
+        tokens.classify(getDispatcher(), arguments, argumentOffset, argumentCount, defaultPrefix, defaultAltPrefix,
+                endOfOptions, requireDataLast);
+        if (pool != null) {
+            return getMatchingSet(tokens, ignoreUnmatched, requireDataLast);
+        }
+        boolean ruledOut = false;
+        for (int i = 0; i < dispatcherSets.length; i++) {
+            if (!filter.accepts(i, tokens, ignoreUnmatched, defaultPrefix, diagnostics)) {
+                ruledOut = true;
+            } else if (check(dispatcherSets[i], i, tokens, ignoreUnmatched, requireDataLast, false)) {
+                return dispatcherSets[i];
             }
         }
 
+        if (ruledOut) {
+            diagnose(tokens, ignoreUnmatched, requireDataLast);
+        }
         return null;
 
     }
 
+    /**
+     * Compile the option sets and options defined so far into an immutable
+     * {@link OptionsSpec}. The spec can be used for any number of checks (also
+     * from several threads at the same time), each of which yields its own
+     * {@link ParseResult}. Once this method has been invoked, the definitions
+     * can no longer be changed: adding sets, options, constraints or texts
+     * throws an <code>UnsupportedOperationException</code>.
+     * <p>
+     * All constraints must support {@link Constraint#isSatisfied(ParseResult)},
+     * otherwise an <code>IllegalArgumentException</code> is thrown.
+     * <p>
+     *
+     * @return The compiled spec
+     */
+    public OptionsSpec compile() {
+
+        // As in getMatchingSet(), the default set is used if no set has been defined
+        if (optionSets.isEmpty()) {
+            getSet();
+        }
+
+        OptionsSpec spec = new OptionsSpec(optionSets.values(), defaultPrefix, defaultAltPrefix, maxDiagnostics,
+                failFast, endOfOptions);
+
+        frozen = true;
+        for (OptionSet set : optionSets.values()) {
+            set.freeze();
+        }
+
+        return spec;
+
+    }
+
     /**
      * Add an option set.
      * <p>
@@ -749,6 +903,9 @@ public class Options {
         if (optionSets.containsKey(name)) {
             throw new IllegalArgumentException(CLASS + ": a set with the name " + name + " has already been defined");
         }
+        if (frozen) {
+            throw new UnsupportedOperationException(CLASS + ": method can not be invoked, an OptionsSpec has already been compiled");
+        }
 
         int limit = maxData;
         if (maxData == OptionSet.INF) {
@@ -868,6 +1025,9 @@ public class Options {
         if (optionSets.containsKey(name)) {
             throw new IllegalArgumentException(CLASS + ": a set with the name " + name + " has already been defined");
         }
+        if (frozen) {
+            throw new UnsupportedOperationException(CLASS + ": method can not be invoked, an OptionsSpec has already been compiled");
+        }
 
         OptionSet os = new OptionSet(name, set);
         optionSets.put(name, os);
@@ -957,15 +1117,27 @@ public class Options {
             throw new IllegalArgumentException(CLASS + ": leadingText may not be null");
         }
 
+        System.out.print(getHelp(helpPrinter, leadingText, lineBreak, printTexts, System.lineSeparator()));
+
+    }
+
+    /**
+     * Helper method: render the help description printed by
+     * {@link #printHelp(HelpPrinter, String, boolean, boolean)}, with the given
+     * line separator after each command line and help text.
+     */
+    String getHelp(HelpPrinter helpPrinter, String leadingText, boolean lineBreak, boolean printTexts, String newLine) {
+
+        StringBuilder sb = new StringBuilder();
         OptionSet set;
 
         //.... No sets are defined, we only work with the default set
         if (getSetNames().isEmpty()) {
             set = getSet();
-            System.out.println(helpPrinter.getCommandLine(set, leadingText, lineBreak));
+            sb.append(helpPrinter.getCommandLine(set, leadingText, lineBreak)).append(newLine);
             if (printTexts) {
-                System.out.print('\n');
-                System.out.println(helpPrinter.getHelpText(set));
+                sb.append('\n');
+                sb.append(helpPrinter.getHelpText(set)).append(newLine);
             }
 
             //.... Loop over all defined sets
@@ -973,17 +1145,19 @@ public class Options {
             Set<String> sets = getSetNames();
             for (String name : sets) {
                 set = getSet(name);
-                System.out.println(helpPrinter.getCommandLine(set, leadingText, lineBreak));
+                sb.append(helpPrinter.getCommandLine(set, leadingText, lineBreak)).append(newLine);
                 if (printTexts) {
-                    System.out.print('\n');
-                    System.out.println(helpPrinter.getHelpText(set));
+                    sb.append('\n');
+                    sb.append(helpPrinter.getHelpText(set)).append(newLine);
                     if (sets.size() > 1) {
-                        System.out.print('\n');
+                        sb.append('\n');
                     }
                 }
             }
         }
 
+        return sb.toString();
+
     }
 
     /**
@@ -999,6 +1173,62 @@ public class Options {
         return optionSets.keySet();
     }
 
+    /**
+     * Add a set created elsewhere (with all of its options and constraints)
+     * under its own name
+     */
+    void putSet(OptionSet set) {
+        if (optionSets.containsKey(set.getName())) {
+            throw new IllegalArgumentException(CLASS + ": a set with the name " + set.getName() + " has already been defined");
+        }
+        if (frozen) {
+            throw new UnsupportedOperationException(CLASS + ": method can not be invoked, an OptionsSpec has already been compiled");
+        }
+        optionSets.put(set.getName(), set);
+    }
+
+    //.... Getters for the defaults and settings (used by OptionsSnapshot)
+
+    Prefix getPrefix() {
+        return defaultPrefix;
+    }
+
+    Prefix getAltPrefix() {
+        return defaultAltPrefix;
+    }
+
+    Separator getValueSeparator() {
+        return defaultValueSeparator;
+    }
+
+    Separator getDetailSeparator() {
+        return defaultDetailSeparator;
+    }
+
+    Multiplicity getDefaultMultiplicity() {
+        return defaultMultiplicity;
+    }
+
+    int getDefaultMinData() {
+        return defaultMinData;
+    }
+
+    int getDefaultMaxData() {
+        return defaultMaxData;
+    }
+
+    int getMaxDiagnostics() {
+        return maxDiagnostics;
+    }
+
+    boolean isFailFast() {
+        return failFast;
+    }
+
+    boolean isEndOfOptions() {
+        return endOfOptions;
+    }
+
     /**
      * This returns the (anonymous) default set
      * <p>
@@ -1082,16 +1312,33 @@ public class Options {
     // The checks 
     // ==========================================================================================
 
+    /**
+     * The diagnostics collected during the last option check (invocation of
+     * any of the <code>check()</code> methods or of
+     * {@link #getMatchingSet(boolean, boolean)}). This is useful to determine
+     * what was wrong with the command line arguments provided. At most the
+     * number of diagnostics configured with {@link #setMaxDiagnostics(int)} is
+     * kept.
+     * <p>
+     *
+     * @return A read-only list with all collected diagnostics
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics.getList();
+    }
+
     /**
      * The error messages collected during the last option check (invocation of
      * any of the <code>check()</code> methods). This is useful to determine
-     * what was wrong with the command line arguments provided
+     * what was wrong with the command line arguments provided. This is a view
+     * on {@link #getDiagnostics()}, the messages are assembled on each
+     * invocation.
      * <p>
      *
      * @return A string with all collected error messages
      */
     public String getCheckErrors() {
-        return checkErrors.toString();
+        return diagnostics.format();
     }
 
     /**
@@ -1163,242 +1410,133 @@ public class Options {
             throw new IllegalArgumentException(CLASS + ": Unknown OptionSet: " + name);
         }
 
-        checkErrors.append("Checking set ");
-        checkErrors.append(name);
-        checkErrors.append('\n');
-
-        //.... Access the data for the set to use
-        OptionSet set = optionSets.get(name);
-        List<OptionData> options = set.getOptionData();
-        List<String> data = set.getData();
-        List<String> unmatched = set.getUnmatched();
-
-        //.... Catch some trivial cases
-        if (options.isEmpty()) {                             // No options have been defined at all
-            if (arguments.length == 0) {
-                if (set.getMinData() > 0) {
-                    checkErrors.append("The set expects data, but no arguments have been given\n");
-                    return false;
-                } else {         // No options and no data expected, no arguments given - technically true, but useless
-                    return true;
-                }
-            }
-        } else if (set.isPurelyOptional() & arguments.length == 0) {  // No arguments provided and set only has optional options
-            return true;
-
-        } else if (arguments.length == 0) {     // Options have been defined, but no arguments given
-            checkErrors.append("Options have been defined, but no arguments have been given; nothing to check\n");
-            return false;
-        }
-
-        //.... Parse all the arguments given
-        int ipos = 0;
-        int offset;
-        int start;
-        Matcher m;
-        String value;
-        String detail;
-        String next;
-        String key;
-        String pre = defaultPrefix.getName();
-        String altPre = defaultAltPrefix.getName();
-        boolean add;
-        boolean[] matched = new boolean[arguments.length];
-
-        for (int i = 0; i < matched.length; i++) // Initially, we assume there was no match at all
-        {
-            matched[i] = false;
-        }
-
-        while (true) {
-
-            value = null;
-            detail = null;
-            offset = 0;
-            start = 1;
-            add = true;
-            key = arguments[ipos];
-
-            for (OptionData optionData : options) {          // For each argument, we need to check all defined options
-
-                m = optionData.getPattern().matcher(key);
-
-                if (m.lookingAt()) {
-
-                    if (optionData.useValue()) {                          // The code section for value options
-
-                        if (optionData.hasAlternateKey()) {
-                            start = 2;
-                        }
-
-                        if (optionData.useDetail()) {
-                            detail = m.group(start);
-                            offset = 2;                                       // required for correct Matcher.group access below
-                        }
-
-                        if (optionData.getSeparator() == Separator.BLANK) { // In this case, the next argument must be the value
-                            if (ipos + 1 == arguments.length) {               // The last argument, thus no value follows it: Error
-                                checkErrors.append("At end of arguments - no value found following argument ");
-                                checkErrors.append(key);
-                                checkErrors.append('\n');
-                                add = false;
-                            } else {
-                                next = arguments[ipos + 1];
-                                if (next.startsWith(pre) || next.startsWith(altPre)) {   // The next item is not a value: Error
-                                    checkErrors.append("No value found following argument ");
-                                    checkErrors.append(key);
-                                    checkErrors.append('\n');
-                                    add = false;
-                                } else {
-                                    value = next;
-                                    matched[ipos++] = true;                       // Mark the key and the value
-                                    matched[ipos] = true;
-                                }
-                            }
-                        } else {                                            // The value follows the separator in this case
-                            value = m.group(start + offset);
-                            matched[ipos] = true;
-                        }
-
-                    } else {                                              // Simple, non-value options
-                        matched[ipos] = true;
-                    }
+        diagnostics.clear();
+        return check(optionSets.get(name), ignoreUnmatched, requireDataLast);
 
-                    if (add) {
-                        optionData.addResult(value, detail);         // Store the result
-                    }
-                    break;                                                // No need to check more options, we have a match
-                }
-            }
+    }
 
-            ipos++;                                                   // Advance to the next argument to check
-            if (ipos >= arguments.length) {
-                break;
-            }                      // Terminating condition for the check loop
-
-        }
-
-        //.... Identify unmatched arguments and actual (non-option) data
-        int first = -1;                                             // Required later for requireDataLast
-        for (int i = 0; i < matched.length; i++) {                  // Assemble the list of unmatched options
-            if (!matched[i]) {
-                if (arguments[i].startsWith(pre) || arguments[i].startsWith(altPre)) {   // An unmatched option
-                    unmatched.add(arguments[i]);
-                    checkErrors.append("No matching option found for argument ");
-                    checkErrors.append(arguments[i]);
-                    checkErrors.append('\n');
-                } else {                                                // This is actual data
-                    if (first < 0) {
-                        first = i;
-                    }
-                    data.add(arguments[i]);
-                }
+    //.... Helper method: check all sets in parallel. Each set has its own scratch area, which is committed
+    //     for the winner and discarded for all others.
+    private OptionSet getMatchingSet(ArgumentTokens tokens, boolean ignoreUnmatched, boolean requireDataLast) {
+
+        OptionSet[] sets = dispatcherSets;
+        SetFilter setFilter = filter;
+        boolean[] success = new boolean[sets.length];
+        boolean[] ruledOut = new boolean[sets.length];
+
+        int winner = ParallelMatcher.firstMatch(pool, sets.length, maxDiagnostics, (i, local) -> {
+            if (!setFilter.accepts(i, tokens, ignoreUnmatched, defaultPrefix, local)) {
+                ruledOut[i] = true;
+                return false;
+            }
+            ParseResult attempt = sets[i].getScratch(local);
+            success[i] = OptionParser.check(sets[i], i, tokens, defaultPrefix, attempt, ignoreUnmatched, requireDataLast,
+                    failFast);
+            if (!success[i]) {
+                attempt.clear();
+            }
+            return success[i];
+        }, diagnostics);
+
+        for (int i = 0; i < sets.length; i++) {
+            if (i == winner) {
+                sets[i].commit(sets[i].getScratch(diagnostics));
+            } else if (success[i]) {                     // A later set which matched as well
+                sets[i].getScratch(diagnostics).clear();
             }
         }
 
-        //.... Checks to determine overall success, start with the multiplicity of options
-        boolean err;
-
-        for (OptionData optionData : options) {
-
-            if (!optionData.isExclusive()) {              // Only check options which are not part of an ExclusiveConstraint
-
-                key = optionData.getKey();
-                err = false;                                // Local check result for one option
-
-                switch (optionData.getMultiplicity()) {
-                    case ONCE:
-                        if (optionData.getResultCount() != 1) {
-                            err = true;
-                        }
-                        break;
-                    case ONCE_OR_MORE:
-                        if (optionData.getResultCount() == 0) {
-                            err = true;
-                        }
-                        break;
-                    case ZERO_OR_ONCE:
-                        if (optionData.getResultCount() > 1) {
-                            err = true;
-                        }
-                        break;
-                }
-
-                if (err) {
-                    checkErrors.append("Wrong number of occurences found for argument ");
-                    checkErrors.append(pre);
-                    checkErrors.append(key);
-                    checkErrors.append('\n');
-                    return false;
+        if (winner < 0) {
+            for (boolean skipped : ruledOut) {
+                if (skipped) {
+                    diagnose(tokens, ignoreUnmatched, requireDataLast);
+                    break;
                 }
-
             }
-
+            return null;
         }
+        return sets[winner];
 
-        //.... Check defined constraints for all options
-        for (OptionData optionData : options) {
+    }
 
-            if (optionData.isSet() && (optionData.getConstraints() != null)) {
-                for (Constraint constraint : optionData.getConstraints()) {
-                    if (!constraint.isSatisfied()) {
-                        checkErrors.append("Constraint ");
-                        checkErrors.append(constraint.toString());
-                        checkErrors.append(" violated for option '");
-                        checkErrors.append(optionData.getKey());
-                        checkErrors.append("'\n");
-                        return false;
-                    }
-                }
+    //.... Helper method: no set matched, but some were ruled out by the filter, which only records the first
+    //     reason. The detailed checks for all sets (in order) are deferred until the diagnostics are requested.
+    //     Any later check clears the diagnostics, so the state captured here remains valid until then.
+    private void diagnose(ArgumentTokens tokens, boolean ignoreUnmatched, boolean requireDataLast) {
+        if (maxDiagnostics == 0) {
+            return;
+        }
+        OptionSet[] sets = dispatcherSets;
+        Diagnostics buffer = diagnostics;
+        Prefix prefix = defaultPrefix;
+        boolean fast = failFast;
+        buffer.defer(() -> {
+            for (int i = 0; i < sets.length; i++) {
+                ParseResult attempt = sets[i].getScratch(buffer);
+                OptionParser.check(sets[i], i, tokens, prefix, attempt, ignoreUnmatched, requireDataLast, fast);
+                attempt.clear();
             }
+        });
+    }
+
+    //.... Helper method: run the checks, the results are stored with the set and its options in any case
+    private boolean check(OptionSet set, boolean ignoreUnmatched, boolean requireDataLast) {
+        tokens.classify(set.getDispatcher(), arguments, argumentOffset, argumentCount, defaultPrefix,
+                defaultAltPrefix, endOfOptions, requireDataLast);
+        return check(set, 0, tokens, ignoreUnmatched, requireDataLast, true);
+    }
 
+    //.... Helper method: run the checks against arguments already classified. The results are collected
+    //     in the scratch area of the set and only stored with the set and its options if the checks
+    //     are successful (or if this is requested), otherwise they are discarded.
+    private boolean check(OptionSet set, int setIndex, ArgumentTokens tokens, boolean ignoreUnmatched,
+                          boolean requireDataLast, boolean keepFailed) {
+        ParseResult attempt = set.getScratch(diagnostics);
+        boolean success = OptionParser.check(set, setIndex, tokens, defaultPrefix, attempt,
+                ignoreUnmatched, requireDataLast, failFast);
+        if (success || keepFailed) {
+            set.commit(attempt);
+        } else {
+            attempt.clear();
         }
+        return success;
+    }
 
-        //.... Check defined constraints for the current set
-        if (set.getConstraints() != null) {
-            for (Constraint constraint : set.getConstraints()) {
-                if (!constraint.isSatisfied()) {
-                    checkErrors.append("Constraint ");
-                    checkErrors.append(constraint.toString());
-                    checkErrors.append(" violated for option set '");
-                    checkErrors.append(set.getName());
-                    checkErrors.append("'\n");
-                    return false;
+    //.... Helper method: get the dispatch structure (and the filter) for all sets, which are rebuilt if
+    //     sets, options or set constraints have been added since they were last used
+    private OptionDispatcher getDispatcher() {
+
+        boolean stale = dispatcher == null || dispatcherSets.length != optionSets.size();
+        if (!stale) {
+            int i = 0;
+            for (OptionSet set : optionSets.values()) {
+                if (set != dispatcherSets[i] || size(set) != dispatcherSizes[i]) {
+                    stale = true;
+                    break;
                 }
+                i++;
             }
         }
 
-        //.... Check range for data
-        int limit = set.getMaxData();
-        if (set.hasUnlimitedData()) {
-            limit = Integer.MAX_VALUE;
-        }
-
-        if (data.size() < set.getMinData() || data.size() > limit) {
-            checkErrors.append("Invalid number of data arguments: ");
-            checkErrors.append(data.size());
-            checkErrors.append(" (allowed range: ");
-            checkErrors.append(set.getMinData());
-            checkErrors.append(" ... ");
-            checkErrors.append(set.getMaxData());
-            checkErrors.append(")\n");
-            return false;
-        }
-
-        //.... Check for location of the data in the list of command line arguments
-        if (requireDataLast && data.size() > 0) {
-            if (first + data.size() != arguments.length) {
-                checkErrors.append("Invalid data specification: data arguments are not the last ones on the command line\n");
-                return false;
+        if (stale) {
+            dispatcherSets = optionSets.values().toArray(new OptionSet[0]);
+            dispatcherSizes = new int[dispatcherSets.length];
+            List<List<OptionData>> optionData = new ArrayList<>();
+            for (int i = 0; i < dispatcherSets.length; i++) {
+                dispatcherSizes[i] = size(dispatcherSets[i]);
+                optionData.add(dispatcherSets[i].getOptionData());
             }
+            dispatcher = new OptionDispatcher(optionData);
+            filter = new SetFilter(dispatcher, dispatcherSets);
         }
 
-        //.... Check for unmatched arguments
-        // Don't accept unmatched arguments
-        //.... If we made it to here, all checks were successful
-        return ignoreUnmatched || unmatched.size() <= 0;
+        return dispatcher;
 
+    }
 
+    //.... Helper method: the number of options and constraints of a set, which only ever grows
+    private static int size(OptionSet set) {
+        return set.getOptionData().size() + (set.getConstraints() == null ? 0 : set.getConstraints().size());
     }
 
     // ==========================================================================================
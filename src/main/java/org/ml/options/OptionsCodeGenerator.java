@@ -0,0 +1,606 @@
+package org.ml.options;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Build-time code generation for option definitions. From the definitions of
+ * an {@link Options} instance (typically loaded from an XML file), the Java
+ * source of a class is generated which
+ * <ul>
+ * <li>sets up the same definitions with direct calls (no XML parsing, no
+ * reflection, no regular expressions, and JDOM is not required at run
+ * time),</li>
+ * <li>keeps a field for each option and offers typed accessors for them (an
+ * <code>int</code> accessor for values restricted by an integer
+ * {@link ValueConstraint}), so the results are read without any lookup by
+ * key,</li>
+ * <li>maps set names and keys to these fields with a <code>switch</code>
+ * (<code>getOption(setName, key)</code>), so options looked up by key do not
+ * need a map either,</li>
+ * <li>contains the help text, rendered by the {@link DefaultHelpPrinter}
+ * during the generation.</li>
+ * </ul>
+ * Matching the arguments is left to the library, as for any other instance
+ * (which does not use regular expressions either).
+ * <p>
+ * The generator can be run as part of a build with the
+ * <code>launix-options-maven-plugin</code> (see the module of that name), or
+ * e. g. with the <code>exec-maven-plugin</code> in the
+ * <code>generate-sources</code> phase with the arguments
+ * <p>
+ * <code>definitions className outputDirectory [leadingText]</code>
+ * <p>
+ * where <code>definitions</code> is an XML file (ending in <code>.xml</code>)
+ * or a snapshot (see {@link OptionsSnapshot}), <code>className</code> is the
+ * fully qualified name of the class to generate, and <code>leadingText</code>
+ * is the text preceding the command lines in the help text (usually the name
+ * of the program).
+ * <p>
+ * Only the constraints of this package can be generated, and all sets and
+ * options need to use the prefixes and separators defined as defaults.
+ */
+public final class OptionsCodeGenerator {
+
+    private final static String CLASS = "OptionsCodeGenerator";
+    private final static int CHUNK = 4096;              // The maximum length of a string literal for the help text
+
+    private OptionsCodeGenerator() {
+    }
+
+    /**
+     * Generate the source file for the definitions given on the command line
+     * (see above)
+     * <p>
+     *
+     * @param args The command line arguments
+     * @throws IOException If the definitions can not be read or the source
+     *                     file can not be written
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 3 || args.length > 4) {
+            System.err.println("Usage: " + CLASS + " definitions className outputDirectory [leadingText]");
+            System.exit(1);
+        }
+
+        generate(Paths.get(args[0]), args[1], Paths.get(args[2]), args.length > 3 ? args[3] : "");
+
+    }
+
+    /**
+     * Generate the source file for the given definitions (used by
+     * {@link #main(String[])} and the <code>launix-options-maven-plugin</code>)
+     * <p>
+     *
+     * @param definitions     The XML file (ending in <code>.xml</code>) or
+     *                        snapshot with the definitions
+     * @param className       The fully qualified name of the class
+     * @param outputDirectory The root directory for the source file
+     * @param leadingText     The text to precede the command line for each
+     *                        option set in the help text
+     *                        <p>
+     * @return The source file written
+     * @throws IOException If the definitions can not be read or the source
+     *                     file can not be written
+     */
+    public static Path generate(Path definitions, String className, Path outputDirectory, String leadingText)
+            throws IOException {
+
+        if (definitions == null) {
+            throw new IllegalArgumentException(CLASS + ": definitions may not be null");
+        }
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException(CLASS + ": outputDirectory may not be null");
+        }
+
+        Options options;
+        if (definitions.toString().endsWith(".xml")) {
+            try (Reader reader = Files.newBufferedReader(definitions, StandardCharsets.UTF_8)) {
+                options = Options.fromXML(new String[0], reader);
+            }
+        } else {
+            options = OptionsSnapshot.read(new String[0], definitions);
+        }
+
+        String source = generate(options, className, leadingText);
+
+        Path file = outputDirectory.resolve(className.replace('.', '/') + ".java");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file;
+
+    }
+
+    /**
+     * Generate the source of a class for the definitions of the given instance.
+     * The names of the accessors are derived from the keys (prefixed with the
+     * set name for sets other than the default set), and an
+     * <code>IllegalArgumentException</code> is thrown if they collide with
+     * each other or with <code>getHelp()</code> and <code>getOptions()</code>.
+     * <p>
+     *
+     * @param options     The instance to generate the class for
+     * @param className   The fully qualified name of the class
+     * @param leadingText The text to precede the command line for each option
+     *                    set in the help text
+     *                    <p>
+     * @return The source of the class
+     */
+    public static String generate(Options options, String className, String leadingText) {
+
+        if (options == null) {
+            throw new IllegalArgumentException(CLASS + ": options may not be null");
+        }
+        if (className == null) {
+            throw new IllegalArgumentException(CLASS + ": className may not be null");
+        }
+        if (leadingText == null) {
+            throw new IllegalArgumentException(CLASS + ": leadingText may not be null");
+        }
+
+        int dot = className.lastIndexOf('.');
+        String simpleName = className.substring(dot + 1);
+        String help = options.getHelp(new DefaultHelpPrinter(), leadingText, false, true, "\n");
+
+        StringBuilder sb = new StringBuilder(4096);
+        StringBuilder accessors = new StringBuilder(4096);
+        Set<String> names = new HashSet<>();
+        names.add("Help");                              // Reserved for getHelp()
+        names.add("Options");                           // Reserved for getOptions()
+
+        //.... Header
+        if (dot > 0) {
+            sb.append("package ").append(className, 0, dot).append(";\n\n");
+        }
+        sb.append("import java.util.List;\n");
+        sb.append("import org.ml.options.ExclusiveConstraint;\n");
+        sb.append("import org.ml.options.OptionData;\n");
+        sb.append("import org.ml.options.OptionSet;\n");
+        sb.append("import org.ml.options.Options;\n");
+        sb.append("import org.ml.options.RelationConstraint;\n");
+        sb.append("import org.ml.options.ValueConstraint;\n\n");
+        sb.append("/**\n");
+        sb.append(" * The options of the command line. This class has been generated by\n");
+        sb.append(" * {@link org.ml.options.OptionsCodeGenerator}, do not edit it.\n");
+        sb.append(" */\n");
+        sb.append("public final class ").append(simpleName).append(" {\n\n");
+
+        //.... Fields (one per option, determined while the constructor is generated)
+        StringBuilder fields = new StringBuilder();
+        StringBuilder constructor = new StringBuilder(4096);
+
+        constructor.append("    /**\n");
+        constructor.append("     * Constructor\n");
+        constructor.append("     * <p>\n");
+        constructor.append("     *\n");
+        constructor.append("     * @param args The command line arguments to check\n");
+        constructor.append("     */\n");
+        constructor.append("    public ").append(simpleName).append("(String[] args) {\n\n");
+        constructor.append("        options = new Options(args);\n");
+        constructor.append("        options.setDefault(").append(constant(options.getPrefix())).append(", ")
+                .append(constant(options.getAltPrefix())).append(");\n");
+        constructor.append("        options.setDefault(").append(constant(options.getValueSeparator())).append(", ")
+                .append(constant(options.getDetailSeparator())).append(");\n");
+        constructor.append("        options.setDefault(").append(constant(options.getDefaultMultiplicity())).append(");\n");
+        constructor.append("        options.setDefault(").append(options.getDefaultMinData()).append(", ")
+                .append(data(options.getDefaultMaxData())).append(");\n");
+        constructor.append("        options.setMaxDiagnostics(").append(options.getMaxDiagnostics()).append(");\n");
+        constructor.append("        options.setFailFast(").append(options.isFailFast()).append(");\n");
+        constructor.append("        options.setEndOfOptions(").append(options.isEndOfOptions()).append(");\n\n");
+        constructor.append("        OptionSet set;\n");
+
+        //.... The switch mapping set names and keys to the fields
+        StringBuilder lookup = new StringBuilder(4096);
+        String defaultSet = null;
+
+        for (String setName : options.getSetNames()) {
+
+            OptionSet set = options.getSet(setName);
+            checkSet(options, set);
+            if (set.isDefault()) {
+                defaultSet = setName;
+            }
+            lookup.append("            case ").append(literal(setName)).append(":\n");
+            lookup.append("                switch (key) {\n");
+
+            constructor.append("\n        set = options.addSet(").append(literal(setName)).append(", ")
+                    .append(set.getMinData()).append(", ").append(data(set.getMaxData())).append(");\n");
+            if (set.isStreamingData()) {
+                constructor.append("        set.setStreamingData(true);\n");
+            }
+            for (int i = 0; i < set.getLimit(); i++) {
+                if (!set.getDataText(i).equals("data")) {
+                    constructor.append("        set.setDataText(").append(i).append(", ")
+                            .append(literal(set.getDataText(i))).append(");\n");
+                }
+                if (!set.getHelpText(i).isEmpty()) {
+                    constructor.append("        set.setHelpText(").append(i).append(", ")
+                            .append(literal(set.getHelpText(i))).append(");\n");
+                }
+            }
+
+            for (OptionData od : set.getOptionData()) {
+
+                String name = (set.isDefault() ? "" : capitalize(identifier(setName))) + capitalize(od.getKey());
+                reserve(names, name);
+                if (od.useDetail()) {
+                    reserve(names, name + (isSingle(od) ? "Detail" : "Details"));
+                }
+                String field = "option" + name;
+                fields.append("    private final OptionData ").append(field).append(";\n");
+                lookup.append("                    case ").append(literal(od.getKey())).append(":\n");
+                lookup.append("                        return ").append(field).append(";\n");
+
+                constructor.append("        ").append(field).append(" = set.addOption(").append(constant(od.getType()))
+                        .append(", ").append(literal(od.getKey()));
+                if (od.getAltKey() != null) {
+                    constructor.append(", ").append(literal(od.getAltKey()));
+                }
+                constructor.append(", ").append(constant(od.getMultiplicity())).append(");\n");
+                if (!od.getHelpText().isEmpty()) {
+                    constructor.append("        ").append(field).append(".setHelpText(")
+                            .append(literal(od.getHelpText())).append(");\n");
+                }
+                if (!od.getValueText().equals("value")) {
+                    constructor.append("        ").append(field).append(".setValueText(")
+                            .append(literal(od.getValueText())).append(");\n");
+                }
+                if (!od.getDetailText().equals("detail")) {
+                    constructor.append("        ").append(field).append(".setDetailText(")
+                            .append(literal(od.getDetailText())).append(");\n");
+                }
+
+                boolean ints = false;
+                if (od.getConstraints() != null) {
+                    for (Constraint constraint : od.getConstraints()) {
+                        ints |= addConstraint(constructor, field, constraint);
+                    }
+                }
+
+                addAccessors(accessors, od, name, field, ints);
+
+            }
+
+            if (set.getConstraints() != null) {
+                for (Constraint constraint : set.getConstraints()) {
+                    addConstraint(constructor, "set", constraint);
+                }
+            }
+
+            lookup.append("                    default:\n");
+            lookup.append("                        throw new IllegalArgumentException(")
+                    .append(literal(simpleName + ": unknown key: ")).append(" + key);\n");
+            lookup.append("                }\n");
+
+        }
+
+        constructor.append("\n    }\n");
+
+        //.... Assemble the class
+        sb.append("    private static final String HELP = new StringBuilder(").append(help.length()).append(")");
+        for (int i = 0; i < help.length(); i += CHUNK) {
+            sb.append("\n            .append(").append(literal(help.substring(i, Math.min(help.length(), i + CHUNK))))
+                    .append(")");
+        }
+        sb.append("\n            .toString();\n");
+        sb.append("    private final Options options;\n");
+        sb.append(fields).append('\n');
+        sb.append(constructor).append('\n');
+
+        sb.append("    /**\n");
+        sb.append("     * Return the instance with the definitions, e. g. to run the checks\n");
+        sb.append("     * <p>\n");
+        sb.append("     *\n");
+        sb.append("     * @return The instance\n");
+        sb.append("     */\n");
+        sb.append("    public Options getOptions() {\n");
+        sb.append("        return options;\n");
+        sb.append("    }\n\n");
+
+        sb.append("    /**\n");
+        sb.append("     * Return the help text, as rendered when this class was generated\n");
+        sb.append("     * <p>\n");
+        sb.append("     *\n");
+        sb.append("     * @return The help text\n");
+        sb.append("     */\n");
+        sb.append("    public static String getHelp() {\n");
+        sb.append("        return HELP;\n");
+        sb.append("    }\n\n");
+
+        sb.append("    /**\n");
+        sb.append("     * Print the help text\n");
+        sb.append("     */\n");
+        sb.append("    public static void printHelp() {\n");
+        sb.append("        System.out.print(HELP);\n");
+        sb.append("    }\n");
+
+        addLookup(sb, simpleName, lookup, defaultSet);
+
+        sb.append(accessors);
+        sb.append("}\n");
+
+        return sb.toString();
+
+    }
+
+    //.... Helper method: add the methods returning the option for a key, with the switch over the set names
+    //     and keys (the same as OptionSet.getOption(), but without a lookup in a map)
+    private static void addLookup(StringBuilder sb, String simpleName, StringBuilder lookup, String defaultSet) {
+
+        sb.append("\n    /**\n");
+        sb.append("     * Return the option for the given key in the set with the given name\n");
+        sb.append("     * <p>\n");
+        sb.append("     *\n");
+        sb.append("     * @param setName The name of the set\n");
+        sb.append("     * @param key     The key of the option\n");
+        sb.append("     *                <p>\n");
+        sb.append("     * @return The option\n");
+        sb.append("     */\n");
+        sb.append("    public OptionData getOption(String setName, String key) {\n");
+        sb.append("        if (setName == null) {\n");
+        sb.append("            throw new IllegalArgumentException(")
+                .append(literal(simpleName + ": setName may not be null")).append(");\n");
+        sb.append("        }\n");
+        sb.append("        if (key == null) {\n");
+        sb.append("            throw new IllegalArgumentException(")
+                .append(literal(simpleName + ": key may not be null")).append(");\n");
+        sb.append("        }\n");
+        sb.append("        switch (setName) {\n");
+        sb.append(lookup);
+        sb.append("            default:\n");
+        sb.append("                throw new IllegalArgumentException(")
+                .append(literal(simpleName + ": unknown set: ")).append(" + setName);\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+
+        if (defaultSet == null) {
+            return;
+        }
+
+        sb.append("\n    /**\n");
+        sb.append("     * Return the option for the given key in the default set\n");
+        sb.append("     * <p>\n");
+        sb.append("     *\n");
+        sb.append("     * @param key The key of the option\n");
+        sb.append("     *            <p>\n");
+        sb.append("     * @return The option\n");
+        sb.append("     */\n");
+        sb.append("    public OptionData getOption(String key) {\n");
+        sb.append("        return getOption(").append(literal(defaultSet)).append(", key);\n");
+        sb.append("    }\n");
+
+    }
+
+    //.... Helper method: only sets and options using the defaults can be created with the public methods
+    private static void checkSet(Options options, OptionSet set) {
+        if (set.getPrefix() != options.getPrefix() || set.getAltPrefix() != options.getAltPrefix()
+                || set.getValueSeparator() != options.getValueSeparator()
+                || set.getDetailSeparator() != options.getDetailSeparator()) {
+            throw new IllegalArgumentException(CLASS + ": set " + set.getName() + " does not use the defaults");
+        }
+        for (OptionData od : set.getOptionData()) {
+            if (od.getSeparator() != (od.useDetail() ? set.getDetailSeparator() : set.getValueSeparator())) {
+                throw new IllegalArgumentException(CLASS + ": option " + od.getKey() + " does not use the defaults");
+            }
+        }
+    }
+
+    //.... Helper method: add the statement creating a constraint. Returns whether the values are integers.
+    private static boolean addConstraint(StringBuilder sb, String target, Constraint constraint) {
+
+        sb.append("        ");
+
+        if (constraint instanceof ValueConstraint) {
+
+            ValueConstraint value = (ValueConstraint) constraint;
+            sb.append("ValueConstraint.add(").append(target).append(", ");
+            switch (value.getType()) {
+                case STRING_ARRAY:
+                    sb.append("new String[]{");
+                    for (int i = 0; i < value.getStrings().length; i++) {
+                        sb.append(i > 0 ? ", " : "").append(literal(value.getStrings()[i]));
+                    }
+                    sb.append("}, ").append(value.isCaseSensitive());
+                    break;
+                case INT_ARRAY:
+                    sb.append("new int[]{");
+                    for (int i = 0; i < value.getInts().length; i++) {
+                        sb.append(i > 0 ? ", " : "").append(value.getInts()[i]);
+                    }
+                    sb.append("}");
+                    break;
+                default:
+                    sb.append(value.getMin()).append(", ").append(value.getMax());
+                    break;
+            }
+            sb.append(");\n");
+            return value.getType() != ValueConstraint.Type.STRING_ARRAY;
+
+        } else if (constraint instanceof ExclusiveConstraint) {
+
+            ExclusiveConstraint exclusive = (ExclusiveConstraint) constraint;
+            sb.append("ExclusiveConstraint.add(").append(target).append(", ")
+                    .append(constant(exclusive.getMultiplicity()));
+            addKeys(sb, exclusive.getOptionData());
+
+        } else if (constraint instanceof RelationConstraint) {
+
+            RelationConstraint relation = (RelationConstraint) constraint;
+            sb.append("RelationConstraint.add(").append(target).append(", RelationConstraint.Relation.")
+                    .append(relation.getRelation().name());
+            if (relation.getRelation().isCounting()) {
+                sb.append(", ").append(relation.getCount());
+            }
+            addKeys(sb, relation.getOptionData());
+
+        } else {
+            throw new IllegalArgumentException(CLASS + ": constraint can not be generated: "
+                    + constraint.getClass().getName());
+        }
+
+        return false;
+
+    }
+
+    //.... Helper method: add the keys of the options of a constraint as the last arguments
+    private static void addKeys(StringBuilder sb, List<OptionData> optionData) {
+        for (OptionData od : optionData) {
+            sb.append(", ").append(literal(od.getKey()));
+        }
+        sb.append(");\n");
+    }
+
+    //.... Helper method: reserve the name of an accessor
+    private static void reserve(Set<String> names, String name) {
+        if (!names.add(name)) {
+            throw new IllegalArgumentException(CLASS + ": the accessor name " + name + " is not unique");
+        }
+    }
+
+    //.... Helper method: whether the accessors of an option return a single value
+    private static boolean isSingle(OptionData od) {
+        return od.getMultiplicity() == Options.Multiplicity.ONCE
+                || od.getMultiplicity() == Options.Multiplicity.ZERO_OR_ONCE;
+    }
+
+    //.... Helper method: add the accessors for an option
+    private static void addAccessors(StringBuilder sb, OptionData od, String name, String field, boolean ints) {
+
+        boolean single = isSingle(od);
+        String key = od.getKey();
+
+        sb.append("\n    /**\n");
+        sb.append("     * Return whether the option <code>").append(key).append("</code> has been found\n");
+        sb.append("     */\n");
+        sb.append("    public boolean is").append(name).append("() {\n");
+        sb.append("        return ").append(field).append(".isSet();\n");
+        sb.append("    }\n");
+
+        if (!od.useValue()) {
+            return;
+        }
+
+        sb.append("\n    /**\n");
+        if (single && ints) {
+            sb.append("     * Return the value of the option <code>").append(key)
+                    .append("</code>, or the given value if it has not been found\n");
+            sb.append("     */\n");
+            sb.append("    public int get").append(name).append("(int defaultValue) {\n");
+            sb.append("        return ").append(field).append(".isSet() ? ").append(field)
+                    .append(".getResultInt(0) : defaultValue;\n");
+        } else if (single) {
+            sb.append("     * Return the value of the option <code>").append(key)
+                    .append("</code>, or <code>null</code> if it has not been found\n");
+            sb.append("     */\n");
+            sb.append("    public String get").append(name).append("() {\n");
+            sb.append("        return ").append(field).append(".isSet() ? ").append(field)
+                    .append(".getResultValue(0) : null;\n");
+        } else if (ints) {
+            sb.append("     * Return the values of the option <code>").append(key).append("</code>\n");
+            sb.append("     */\n");
+            sb.append("    public int[] get").append(name).append("() {\n");
+            sb.append("        return ").append(field).append(".getResultInts();\n");
+        } else {
+            sb.append("     * Return the values of the option <code>").append(key).append("</code>\n");
+            sb.append("     */\n");
+            sb.append("    public List<String> get").append(name).append("() {\n");
+            sb.append("        return ").append(field).append(".getResultValues();\n");
+        }
+        sb.append("    }\n");
+
+        if (!od.useDetail()) {
+            return;
+        }
+
+        sb.append("\n    /**\n");
+        if (single) {
+            sb.append("     * Return the detail of the option <code>").append(key)
+                    .append("</code>, or <code>null</code> if it has not been found\n");
+            sb.append("     */\n");
+            sb.append("    public String get").append(name).append("Detail() {\n");
+            sb.append("        return ").append(field).append(".isSet() ? ").append(field)
+                    .append(".getResultDetail(0) : null;\n");
+        } else {
+            sb.append("     * Return the details of the option <code>").append(key).append("</code>\n");
+            sb.append("     */\n");
+            sb.append("    public List<String> get").append(name).append("Details() {\n");
+            sb.append("        return ").append(field).append(".getResultDetails();\n");
+        }
+        sb.append("    }\n");
+
+    }
+
+    //.... Helper method: the Java expression for an enum constant
+    static String constant(Enum<?> e) {
+        String type = e.getDeclaringClass().getName();
+        return type.substring(type.lastIndexOf('.') + 1).replace('$', '.') + "." + e.name();
+    }
+
+    //.... Helper method: the Java expression for a maximum number of data items
+    private static String data(int maxData) {
+        return maxData == OptionSet.INF || maxData == Integer.MAX_VALUE ? "OptionSet.INF" : String.valueOf(maxData);
+    }
+
+    //.... Helper method: turn a name into a valid Java identifier
+    private static String identifier(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 1);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            sb.append(Character.isJavaIdentifierPart(c) && c != '$' ? c : '_');
+        }
+        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0))) {
+            sb.insert(0, '_');
+        }
+        return sb.toString();
+    }
+
+    //.... Helper method: the name with an upper case first letter
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    //.... Helper method: the Java literal for a string (in ASCII, to be independent of the source encoding)
+    static String literal(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < ' ' || c > '~') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
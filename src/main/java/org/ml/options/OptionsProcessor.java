@@ -0,0 +1,520 @@
+package org.ml.options;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * The annotation processor for options declared with {@link Option} (and
+ * {@link CommandLine}). For each class or record with such declarations, a
+ * class with the name of the type followed by <code>Options</code> is
+ * generated in the same package (for nested types, the names of the
+ * enclosing types are included, separated by <code>_</code>). It offers
+ * <ul>
+ * <li><code>create(String[] args)</code>, which sets up an {@link Options}
+ * instance with the declared options in the default set, using direct calls
+ * only,</li>
+ * <li><code>bind(Options options, T target)</code> for classes, which assigns
+ * the results of the options given on the command line to the fields of the
+ * target (fields of options not given keep their values), and
+ * <code>bind(Options options)</code> for records, which creates the record
+ * from the results (options not given yield <code>false</code>,
+ * <code>0</code>, <code>null</code> or an empty array, list or map).</li>
+ * </ul>
+ * The binder reads the results by the position of the options within the
+ * set, and is to be invoked after a successful <code>check()</code> for the
+ * default set. No reflection is involved at run time, and the fields are
+ * plain fields afterwards.
+ * <p>
+ * The supported field types are <code>boolean</code> (for
+ * {@link OptionData.Type#SIMPLE}), <code>int</code>, <code>long</code>,
+ * <code>double</code> (and their wrappers), <code>String</code> for a single
+ * value, <code>int[]</code>, <code>long[]</code> and
+ * <code>List&lt;String&gt;</code> for all values, and
+ * <code>Map&lt;String, String&gt;</code> from details to values for
+ * {@link OptionData.Type#DETAIL}. Fields of classes must not be private,
+ * final or static. All components of a record need to be declared as
+ * options.
+ * <p>
+ * The declarations are checked during the compilation by setting up the
+ * options, so invalid keys, duplicates and invalid constraint specifications
+ * are reported as errors. The processor is not registered as a service, it
+ * needs to be named explicitly (e. g. with <code>-processor
+ * org.ml.options.OptionsProcessor</code>, or in the
+ * <code>annotationProcessors</code> of the
+ * <code>maven-compiler-plugin</code>).
+ */
+public final class OptionsProcessor extends AbstractProcessor {
+
+    private final static String CLASS = "OptionsProcessor";
+    private final static String SUFFIX = "Options";
+
+    /**
+     * The ways to read a result, depending on the type of the field
+     */
+    private enum Binding {
+
+        BOOLEAN("true", "false", false),
+        INT("od.getResultInt(0)", "0", false),
+        LONG("od.getResultLong(0)", "0L", false),
+        DOUBLE("od.getResultDouble(0)", "0.0", false),
+        STRING("od.getResultValue(0)", "null", false),
+        INTS("od.getResultInts()", null, true),
+        LONGS("od.getResultLongs()", null, true),
+        LIST("od.getResultValues()", null, true),
+        MAP("details(od)", null, true);
+        private final String expression;                     // For the OptionData "od"
+        private final String unset;                          // For records if not set (null if not needed)
+        private final boolean multiple;
+
+        Binding(String expression, String unset, boolean multiple) {
+            this.expression = expression;
+            this.unset = unset;
+            this.multiple = multiple;
+        }
+    }
+
+    /**
+     * The data found for an option
+     */
+    private static class Declaration {
+
+        private final Element element;
+        private final Option option;
+        private final String name;                            // Of the field or record component
+        private final Binding binding;
+        private final OptionData.Type type;
+        private final Options.Multiplicity multiplicity;
+
+        Declaration(Element element, Option option, Binding binding, OptionData.Type type,
+                    Options.Multiplicity multiplicity) {
+            this.element = element;
+            this.option = option;
+            this.name = element.getSimpleName().toString();
+            this.binding = binding;
+            this.type = type;
+            this.multiplicity = multiplicity;
+        }
+
+        String getKey() {
+            return option.key().isEmpty() ? name : option.key();
+        }
+
+        String getAltKey() {
+            return option.altKey().isEmpty() ? null : option.altKey();
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(Option.class.getName(), CommandLine.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Option.class)) {
+            types.add((TypeElement) element.getEnclosingElement());   // Record components are found twice
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(CommandLine.class)) {
+            types.add((TypeElement) element);
+        }
+
+        for (TypeElement type : types) {
+            processType(type);
+        }
+        return true;
+
+    }
+
+    //.... Helper method: check the declarations of one type and generate the class for it
+    private void processType(TypeElement type) {
+
+        boolean record = type.getKind() == ElementKind.RECORD;
+        if (!record && type.getKind() != ElementKind.CLASS) {
+            error(type, "options can only be declared in classes and records");
+            return;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "a type with options may not be private");
+                return;
+            }
+            if (((TypeElement) e).getNestingKind() == NestingKind.LOCAL
+                    || ((TypeElement) e).getNestingKind() == NestingKind.ANONYMOUS) {
+                error(type, "a type with options may not be local or anonymous");
+                return;
+            }
+        }
+
+        //.... Collect the declarations in the order of the source
+        List<Declaration> declarations = new ArrayList<>();
+        boolean valid = true;
+        if (record) {
+            for (RecordComponentElement component : type.getRecordComponents()) {
+                Option option = component.getAnnotation(Option.class);
+                if (option == null) {
+                    error(type, "the component " + component.getSimpleName() + " needs to be declared with @Option");
+                    valid = false;
+                } else {
+                    valid &= declare(declarations, component, option);
+                }
+            }
+        } else {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Option option = field.getAnnotation(Option.class);
+                if (option == null) {
+                    continue;
+                }
+                if (field.getModifiers().contains(Modifier.PRIVATE)
+                        || field.getModifiers().contains(Modifier.FINAL)
+                        || field.getModifiers().contains(Modifier.STATIC)) {
+                    error(field, "fields declared with @Option may not be private, final or static");
+                    valid = false;
+                } else {
+                    valid &= declare(declarations, field, option);
+                }
+            }
+        }
+
+        CommandLine commandLine = type.getAnnotation(CommandLine.class);
+        int minData = commandLine == null ? 0 : commandLine.minData();
+        int maxData = commandLine == null ? 0 : commandLine.maxData();
+
+        if (!valid || !verify(type, declarations, minData, maxData)) {
+            return;
+        }
+
+        //.... Generate the class
+        Elements elements = processingEnv.getElementUtils();
+        String pkg = elements.getPackageOf(type).getQualifiedName().toString();
+        String simpleName = type.getQualifiedName().toString();
+        if (!pkg.isEmpty()) {
+            simpleName = simpleName.substring(pkg.length() + 1);
+        }
+        simpleName = simpleName.replace('.', '_') + SUFFIX;
+        String className = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+
+        String source = generate(type, record, pkg, simpleName, declarations, minData, maxData);
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(className, type).openWriter()) {
+            writer.write(source);
+        } catch (IOException ex) {
+            error(type, "the class " + className + " can not be written: " + ex.getMessage());
+        }
+
+    }
+
+    //.... Helper method: determine type, multiplicity and binding for a field or record component
+    private boolean declare(List<Declaration> declarations, Element element, Option option) {
+
+        if (option.type().length > 1 || option.multiplicity().length > 1 || option.constraint().length > 1) {
+            error(element, "type, multiplicity and constraint take at most one element");
+            return false;
+        }
+
+        Binding binding = binding(element.asType());
+        if (binding == null) {
+            error(element, "the type " + element.asType() + " is not supported for options");
+            return false;
+        }
+
+        OptionData.Type type;
+        if (option.type().length > 0) {
+            type = option.type()[0];
+        } else {
+            type = binding == Binding.BOOLEAN ? OptionData.Type.SIMPLE
+                    : binding == Binding.MAP ? OptionData.Type.DETAIL : OptionData.Type.VALUE;
+        }
+        if ((type == OptionData.Type.SIMPLE) != (binding == Binding.BOOLEAN)) {
+            error(element, "options of type SIMPLE need a boolean field, and boolean fields need type SIMPLE");
+            return false;
+        }
+        if (binding == Binding.MAP && type != OptionData.Type.DETAIL) {
+            error(element, "a Map field needs an option of type DETAIL");
+            return false;
+        }
+
+        Options.Multiplicity multiplicity;
+        if (option.multiplicity().length > 0) {
+            multiplicity = option.multiplicity()[0];
+        } else {
+            multiplicity = binding.multiple ? Options.Multiplicity.ZERO_OR_MORE : Options.Multiplicity.ZERO_OR_ONCE;
+        }
+        if (!binding.multiple && (multiplicity == Options.Multiplicity.ZERO_OR_MORE
+                || multiplicity == Options.Multiplicity.ONCE_OR_MORE)) {
+            error(element, "an option which can be repeated needs an array, List or Map field");
+            return false;
+        }
+        if (option.constraint().length > 0 && type == OptionData.Type.SIMPLE) {
+            error(element, "options of type SIMPLE can not have a value constraint");
+            return false;
+        }
+
+        declarations.add(new Declaration(element, option, binding, type, multiplicity));
+        return true;
+
+    }
+
+    //.... Helper method: the binding for a field type (null if not supported)
+    private Binding binding(TypeMirror mirror) {
+
+        switch (mirror.getKind()) {
+            case BOOLEAN:
+                return Binding.BOOLEAN;
+            case INT:
+                return Binding.INT;
+            case LONG:
+                return Binding.LONG;
+            case DOUBLE:
+                return Binding.DOUBLE;
+            case ARRAY:
+                TypeKind component = ((ArrayType) mirror).getComponentType().getKind();
+                return component == TypeKind.INT ? Binding.INTS : component == TypeKind.LONG ? Binding.LONGS : null;
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        TypeMirror string = elements.getTypeElement("java.lang.String").asType();
+
+        if (types.isSameType(mirror, string)) {
+            return Binding.STRING;
+        }
+        if (types.isSameType(mirror, types.getDeclaredType(elements.getTypeElement("java.util.List"), string))) {
+            return Binding.LIST;
+        }
+        if (types.isSameType(mirror, types.getDeclaredType(elements.getTypeElement("java.util.Map"), string, string))) {
+            return Binding.MAP;
+        }
+        try {
+            switch (types.unboxedType(mirror).getKind()) {
+                case BOOLEAN:
+                    return Binding.BOOLEAN;
+                case INT:
+                    return Binding.INT;
+                case LONG:
+                    return Binding.LONG;
+                case DOUBLE:
+                    return Binding.DOUBLE;
+                default:
+                    return null;
+            }
+        } catch (IllegalArgumentException ex) {                 // Not a wrapper type
+            return null;
+        }
+
+    }
+
+    //.... Helper method: set up the options once, so the library checks keys and constraints
+    private boolean verify(TypeElement type, List<Declaration> declarations, int minData, int maxData) {
+
+        Options options = new Options(new String[0]);
+        try {
+            options.setDefault(minData, maxData);
+        } catch (IllegalArgumentException ex) {
+            error(type, ex.getMessage());
+            return false;
+        }
+        OptionSet set = options.getSet();
+
+        boolean valid = true;
+        for (Declaration declaration : declarations) {
+            try {
+                OptionData od = set.addOption(declaration.type, declaration.getKey(), declaration.getAltKey(),
+                        declaration.multiplicity);
+                if (declaration.option.constraint().length > 0) {
+                    ValueConstraint.add(od, declaration.option.constraint()[0], declaration.option.values());
+                }
+            } catch (IllegalArgumentException ex) {
+                error(declaration.element, ex.getMessage());
+                valid = false;
+            }
+        }
+        return valid;
+
+    }
+
+    //.... Helper method: the source of the class
+    private static String generate(TypeElement type, boolean record, String pkg, String simpleName,
+                                   List<Declaration> declarations, int minData, int maxData) {
+
+        String target = type.getQualifiedName().toString();
+        boolean details = false;
+        StringBuilder sb = new StringBuilder(4096);
+
+        //.... Header
+        if (!pkg.isEmpty()) {
+            sb.append("package ").append(pkg).append(";\n\n");
+        }
+        sb.append("import java.util.List;\n");
+        sb.append("import org.ml.options.OptionData;\n");
+        sb.append("import org.ml.options.OptionSet;\n");
+        sb.append("import org.ml.options.Options;\n");
+        sb.append("import org.ml.options.ValueConstraint;\n\n");
+        sb.append("/**\n");
+        sb.append(" * The options declared in {@link ").append(target).append("}. This class has been\n");
+        sb.append(" * generated by {@link org.ml.options.OptionsProcessor}, do not edit it.\n");
+        sb.append(" */\n");
+        sb.append("public final class ").append(simpleName).append(" {\n\n");
+        sb.append("    private ").append(simpleName).append("() {\n");
+        sb.append("    }\n\n");
+
+        //.... The definitions
+        sb.append("    /**\n");
+        sb.append("     * Create an instance with the declared options in the default set\n");
+        sb.append("     * <p>\n");
+        sb.append("     *\n");
+        sb.append("     * @param args The command line arguments to check\n");
+        sb.append("     * @return The instance\n");
+        sb.append("     */\n");
+        sb.append("    public static Options create(String[] args) {\n\n");
+        sb.append("        Options options = new Options(args);\n");
+        sb.append("        options.setDefault(").append(minData).append(", ")
+                .append(maxData == OptionSet.INF ? "OptionSet.INF" : String.valueOf(maxData)).append(");\n");
+        sb.append("        OptionSet set = options.getSet();\n");
+        sb.append("        OptionData od;\n\n");
+
+        for (Declaration declaration : declarations) {
+
+            Option option = declaration.option;
+            sb.append("        od = set.addOption(").append(OptionsCodeGenerator.constant(declaration.type)).append(", ")
+                    .append(OptionsCodeGenerator.literal(declaration.getKey()));
+            if (declaration.getAltKey() != null) {
+                sb.append(", ").append(OptionsCodeGenerator.literal(declaration.getAltKey()));
+            }
+            sb.append(", ").append(OptionsCodeGenerator.constant(declaration.multiplicity)).append(");\n");
+            if (!option.help().isEmpty()) {
+                sb.append("        od.setHelpText(").append(OptionsCodeGenerator.literal(option.help())).append(");\n");
+            }
+            if (!option.valueText().equals("value")) {
+                sb.append("        od.setValueText(").append(OptionsCodeGenerator.literal(option.valueText())).append(");\n");
+            }
+            if (!option.detailText().equals("detail")) {
+                sb.append("        od.setDetailText(").append(OptionsCodeGenerator.literal(option.detailText())).append(");\n");
+            }
+            if (option.constraint().length > 0) {
+                sb.append("        ValueConstraint.add(od, ").append(OptionsCodeGenerator.constant(option.constraint()[0]))
+                        .append(", ").append(OptionsCodeGenerator.literal(option.values())).append(");\n");
+            }
+            details |= declaration.binding == Binding.MAP;
+
+        }
+
+        sb.append("\n        return options;\n\n");
+        sb.append("    }\n\n");
+
+        //.... The binder
+        sb.append("    /**\n");
+        if (record) {
+            sb.append("     * Create the record from the results of the last check for the default set\n");
+            sb.append("     * <p>\n");
+            sb.append("     *\n");
+            sb.append("     * @param options The instance set up by {@link #create(String[])}\n");
+            sb.append("     * @return The record\n");
+            sb.append("     */\n");
+            sb.append("    public static ").append(target).append(" bind(Options options) {\n");
+        } else {
+            sb.append("     * Assign the results of the last check for the default set to the fields of\n");
+            sb.append("     * the target. Fields of options not found keep their values.\n");
+            sb.append("     * <p>\n");
+            sb.append("     *\n");
+            sb.append("     * @param options The instance set up by {@link #create(String[])}\n");
+            sb.append("     * @param target  The instance to assign the results to\n");
+            sb.append("     */\n");
+            sb.append("    public static void bind(Options options, ").append(target).append(" target) {\n");
+        }
+        sb.append("        if (options == null) {\n");
+        sb.append("            throw new IllegalArgumentException(\"").append(simpleName)
+                .append(": options may not be null\");\n");
+        sb.append("        }\n");
+        if (!record) {
+            sb.append("        if (target == null) {\n");
+            sb.append("            throw new IllegalArgumentException(\"").append(simpleName)
+                    .append(": target may not be null\");\n");
+            sb.append("        }\n");
+        }
+        sb.append("        List<OptionData> optionData = options.getSet().getOptionData();\n");
+        sb.append("        OptionData od;\n");
+
+        for (int i = 0; i < declarations.size(); i++) {
+            Declaration declaration = declarations.get(i);
+            Binding binding = declaration.binding;
+            sb.append("        od = optionData.get(").append(i).append(");\n");
+            if (record) {
+                sb.append("        ").append(declaration.element.asType()).append(" v").append(i).append(" = ");
+                if (binding == Binding.BOOLEAN) {
+                    sb.append("od.isSet();\n");
+                } else if (binding.unset != null) {
+                    sb.append("od.isSet() ? ").append(binding.expression).append(" : ")
+                            .append(declaration.element.asType().getKind() == TypeKind.DECLARED ? "null" : binding.unset)
+                            .append(";\n");
+                } else {
+                    sb.append(binding.expression).append(";\n");
+                }
+            } else {
+                sb.append("        if (od.isSet()) {\n");
+                sb.append("            target.").append(declaration.name).append(" = ").append(binding.expression).append(";\n");
+                sb.append("        }\n");
+            }
+        }
+
+        if (record) {
+            sb.append("        return new ").append(target).append("(");
+            for (int i = 0; i < declarations.size(); i++) {
+                sb.append(i == 0 ? "" : ", ").append('v').append(i);
+            }
+            sb.append(");\n");
+        }
+        sb.append("    }\n");
+
+        //.... The details of an option as a map
+        if (details) {
+            sb.append("\n");
+            sb.append("    private static java.util.Map<String, String> details(OptionData od) {\n");
+            sb.append("        java.util.Map<String, String> map = new java.util.LinkedHashMap<>();\n");
+            sb.append("        for (int i = 0; i < od.getResultCount(); i++) {\n");
+            sb.append("            map.put(od.getResultDetail(i), od.getResultValue(i));\n");
+            sb.append("        }\n");
+            sb.append("        return map;\n");
+            sb.append("    }\n");
+        }
+
+        sb.append("}\n");
+        return sb.toString();
+
+    }
+
+    //.... Helper method: report an error for an element
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(javax.tools.Diagnostic.Kind.ERROR, CLASS + ": " + message, element);
+    }
+}
@@ -0,0 +1,503 @@
+package org.ml.options;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Support for snapshots: a compact binary form of the definitions of an
+ * {@link Options} instance (defaults, sets, options, texts and constraints),
+ * which is written once (e. g. at build time) and then loaded instead of an
+ * XML file. Loading a snapshot requires neither an XML parser nor the
+ * reflective creation of constraints, and a snapshot file is mapped into
+ * memory rather than read.
+ * <p>
+ * Only the constraints of this package ({@link ValueConstraint},
+ * {@link ExclusiveConstraint} and {@link RelationConstraint}) can be part of a
+ * snapshot. The tables used to match the arguments are not stored, they are
+ * built from the options when they are first needed, just as for instances
+ * set up in any other way.
+ * <p>
+ * The format starts with a magic number and a version. A snapshot written by
+ * a different version of this class is rejected. All strings are stored once
+ * in a table at the beginning and referenced by their index afterwards, so
+ * e. g. options added to all sets only add their key once.
+ */
+public final class OptionsSnapshot {
+
+    private final static String CLASS = "OptionsSnapshot";
+    private final static int MAGIC = 0x4f505453;                // "OPTS"
+    private final static int VERSION = 1;
+    //.... The tags for the types of constraints
+    private final static byte VALUE = 1;
+    private final static byte EXCLUSIVE = 2;
+    private final static byte RELATION = 3;
+
+    private OptionsSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of the definitions of the given instance to a file
+     * <p>
+     *
+     * @param options The instance to write the definitions of
+     * @param file    The file to write
+     * @throws IOException If the file can not be written
+     */
+    public static void write(Options options, Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException(CLASS + ": file may not be null");
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(options, out);
+        }
+    }
+
+    /**
+     * Write a snapshot of the definitions of the given instance to a stream.
+     * The stream is not closed.
+     * <p>
+     *
+     * @param options The instance to write the definitions of
+     * @param out     The stream to write to
+     * @throws IOException If the stream can not be written
+     */
+    public static void write(Options options, OutputStream out) throws IOException {
+
+        if (options == null) {
+            throw new IllegalArgumentException(CLASS + ": options may not be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException(CLASS + ": out may not be null");
+        }
+
+        //.... The definitions come first, collecting the strings on the way
+        Writer writer = new Writer();
+        writer.putByte(options.getPrefix().ordinal());
+        writer.putByte(options.getAltPrefix().ordinal());
+        writer.putByte(options.getValueSeparator().ordinal());
+        writer.putByte(options.getDetailSeparator().ordinal());
+        writer.putByte(options.getDefaultMultiplicity().ordinal());
+        writer.putInt(options.getDefaultMinData());
+        writer.putInt(options.getDefaultMaxData());
+        writer.putInt(options.getMaxDiagnostics());
+        writer.putBoolean(options.isFailFast());
+        writer.putBoolean(options.isEndOfOptions());
+
+        writer.putInt(options.getSetNames().size());
+        for (String name : options.getSetNames()) {
+            writeSet(writer, options.getSet(name));
+        }
+
+        //.... Then the file is assembled: header, string table, definitions
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(writer.strings.size());
+        for (String s : writer.strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        writer.bytes.writeTo(data);
+        data.flush();
+
+    }
+
+    /**
+     * Create an instance for the given command line arguments with the
+     * definitions from a snapshot file. The file is mapped into memory.
+     * <p>
+     *
+     * @param args The command line arguments to check
+     * @param file The snapshot file
+     *             <p>
+     * @return The new instance
+     * @throws IOException If the file can not be read or is not a valid
+     *                     snapshot
+     */
+    public static Options read(String[] args, Path file) throws IOException {
+
+        if (file == null) {
+            throw new IllegalArgumentException(CLASS + ": file may not be null");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(args, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+
+    }
+
+    /**
+     * Create an instance for the given command line arguments with the
+     * definitions from a snapshot read from a stream (e. g. a resource in a
+     * JAR file). The stream is not closed.
+     * <p>
+     *
+     * @param args The command line arguments to check
+     * @param in   The stream to read the snapshot from
+     *             <p>
+     * @return The new instance
+     * @throws IOException If the stream can not be read or does not contain a
+     *                     valid snapshot
+     */
+    public static Options read(String[] args, InputStream in) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException(CLASS + ": in may not be null");
+        }
+        return read(args, ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    //.... Helper method: create the instance from the snapshot in the buffer
+    private static Options read(String[] args, ByteBuffer buffer) throws IOException {
+
+        Options options = new Options(args);
+
+        try {
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(CLASS + ": not a snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(CLASS + ": unsupported snapshot version " + version);
+            }
+
+            Reader reader = new Reader(buffer);
+
+            options.setDefault(reader.getEnum(Options.Prefix.values()), reader.getEnum(Options.Prefix.values()));
+            options.setDefault(reader.getEnum(Options.Separator.values()), reader.getEnum(Options.Separator.values()));
+            options.setDefault(reader.getEnum(Options.Multiplicity.values()));
+            int minData = buffer.getInt();
+            options.setDefault(minData, buffer.getInt());
+            options.setMaxDiagnostics(buffer.getInt());
+            options.setFailFast(reader.getBoolean());
+            options.setEndOfOptions(reader.getBoolean());
+
+            for (int count = buffer.getInt(); count > 0; count--) {
+                options.putSet(readSet(reader));
+            }
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                 | IllegalArgumentException ex) {
+            throw new IOException(CLASS + ": corrupt snapshot", ex);
+        }
+
+        return options;
+
+    }
+
+    //.... Helper method: write a set with its options and constraints
+    private static void writeSet(Writer writer, OptionSet set) {
+
+        writer.putString(set.getName());
+        writer.putBoolean(set.isDefault());
+        writer.putByte(set.getPrefix().ordinal());
+        writer.putByte(set.getAltPrefix().ordinal());
+        writer.putByte(set.getValueSeparator().ordinal());
+        writer.putByte(set.getDetailSeparator().ordinal());
+        writer.putByte(set.getDefaultMultiplicity().ordinal());
+        writer.putInt(set.getMinData());
+        writer.putInt(set.getMaxData());
+        writer.putBoolean(set.isStreamingData());
+
+        for (int i = 0; i < set.getLimit(); i++) {
+            writer.putString(set.getDataText(i));
+            writer.putString(set.getHelpText(i));
+        }
+
+        writer.putInt(set.getOptionData().size());
+        for (OptionData od : set.getOptionData()) {
+            writer.putByte(od.getType().ordinal());
+            writer.putString(od.getKey());
+            writer.putString(od.getAltKey());
+            writer.putByte(od.getSeparator() == null ? -1 : od.getSeparator().ordinal());
+            writer.putByte(od.getMultiplicity().ordinal());
+            writer.putString(od.getHelpText());
+            writer.putString(od.getValueText());
+            writer.putString(od.getDetailText());
+            writeConstraints(writer, od.getConstraints());
+        }
+
+        writeConstraints(writer, set.getConstraints());
+
+    }
+
+    //.... Helper method: read a set with its options and constraints
+    private static OptionSet readSet(Reader reader) {
+
+        ByteBuffer buffer = reader.buffer;
+
+        String name = reader.getString();
+        boolean isDefault = reader.getBoolean();
+        Options.Prefix prefix = reader.getEnum(Options.Prefix.values());
+        Options.Prefix altPrefix = reader.getEnum(Options.Prefix.values());
+        Options.Separator valueSeparator = reader.getEnum(Options.Separator.values());
+        Options.Separator detailSeparator = reader.getEnum(Options.Separator.values());
+        Options.Multiplicity multiplicity = reader.getEnum(Options.Multiplicity.values());
+        int minData = buffer.getInt();
+        int maxData = buffer.getInt();
+        if (maxData == OptionSet.INF) {
+            maxData = Integer.MAX_VALUE;
+        }
+
+        OptionSet set = new OptionSet(name, prefix, altPrefix, valueSeparator, detailSeparator, multiplicity,
+                minData, maxData, isDefault);
+        set.setStreamingData(reader.getBoolean());
+
+        for (int i = 0; i < set.getLimit(); i++) {
+            set.setDataText(i, reader.getString());
+            set.setHelpText(i, reader.getString());
+        }
+
+        OptionData od;
+        for (int count = buffer.getInt(); count > 0; count--) {
+            od = set.addOption(reader.getEnum(OptionData.Type.values()), reader.getString(), reader.getString(),
+                    reader.getEnum(Options.Separator.values()), reader.getEnum(Options.Multiplicity.values()));
+            od.setHelpText(reader.getString());
+            od.setValueText(reader.getString());
+            od.setDetailText(reader.getString());
+            readConstraints(reader, set, od);
+        }
+
+        readConstraints(reader, set, set);
+
+        return set;
+
+    }
+
+    //.... Helper method: write the constraints of a set or an option
+    private static void writeConstraints(Writer writer, List<Constraint> constraints) {
+
+        if (constraints == null) {
+            writer.putInt(0);
+            return;
+        }
+
+        writer.putInt(constraints.size());
+        for (Constraint constraint : constraints) {
+
+            if (constraint instanceof ValueConstraint) {
+
+                ValueConstraint value = (ValueConstraint) constraint;
+                writer.putByte(VALUE);
+                writer.putByte(value.getType().ordinal());
+                switch (value.getType()) {
+                    case STRING_ARRAY:
+                        writer.putBoolean(value.isCaseSensitive());
+                        writer.putInt(value.getStrings().length);
+                        for (String s : value.getStrings()) {
+                            writer.putString(s);
+                        }
+                        break;
+                    case INT_ARRAY:
+                        writer.putInt(value.getInts().length);
+                        for (int i : value.getInts()) {
+                            writer.putInt(i);
+                        }
+                        break;
+                    default:
+                        writer.putInt(value.getMin());
+                        writer.putInt(value.getMax());
+                        break;
+                }
+
+            } else if (constraint instanceof ExclusiveConstraint) {
+
+                ExclusiveConstraint exclusive = (ExclusiveConstraint) constraint;
+                writer.putByte(EXCLUSIVE);
+                writer.putByte(exclusive.getMultiplicity().ordinal());
+                writeKeys(writer, exclusive.getOptionData());
+
+            } else if (constraint instanceof RelationConstraint) {
+
+                RelationConstraint relation = (RelationConstraint) constraint;
+                writer.putByte(RELATION);
+                writer.putByte(relation.getRelation().ordinal());
+                writer.putInt(relation.getCount());
+                writeKeys(writer, relation.getOptionData());
+
+            } else {
+                throw new IllegalArgumentException(CLASS + ": constraint can not be part of a snapshot: "
+                        + constraint.getClass().getName());
+            }
+
+        }
+
+    }
+
+    //.... Helper method: read the constraints of a set or an option
+    private static void readConstraints(Reader reader, OptionSet set, Constrainable constrainable) {
+
+        ByteBuffer buffer = reader.buffer;
+        OptionData od = constrainable instanceof OptionData ? (OptionData) constrainable : null;
+
+        for (int count = buffer.getInt(); count > 0; count--) {
+
+            byte tag = buffer.get();
+
+            switch (tag) {
+
+                case VALUE:
+
+                    ValueConstraint.Type type = reader.getEnum(ValueConstraint.Type.values());
+                    switch (type) {
+                        case STRING_ARRAY:
+                            boolean caseSensitive = reader.getBoolean();
+                            String[] strings = new String[buffer.getInt()];
+                            for (int i = 0; i < strings.length; i++) {
+                                strings[i] = reader.getString();
+                            }
+                            constrainable.addConstraint(new ValueConstraint(od, strings, caseSensitive));
+                            break;
+                        case INT_ARRAY:
+                            int[] ints = new int[buffer.getInt()];
+                            for (int i = 0; i < ints.length; i++) {
+                                ints[i] = buffer.getInt();
+                            }
+                            constrainable.addConstraint(new ValueConstraint(od, ints));
+                            break;
+                        default:
+                            int imin = buffer.getInt();
+                            constrainable.addConstraint(new ValueConstraint(od, imin, buffer.getInt()));
+                            break;
+                    }
+                    break;
+
+                case EXCLUSIVE:
+
+                    Options.Multiplicity multiplicity = reader.getEnum(Options.Multiplicity.values());
+                    constrainable.addConstraint(new ExclusiveConstraint(set, multiplicity, readKeys(reader)));
+                    break;
+
+                case RELATION:
+
+                    RelationConstraint.Relation relation = reader.getEnum(RelationConstraint.Relation.values());
+                    int number = buffer.getInt();
+                    constrainable.addConstraint(new RelationConstraint(set, relation, number, readKeys(reader)));
+                    break;
+
+                default:
+
+                    throw new IllegalArgumentException(CLASS + ": unknown constraint type " + tag);
+
+            }
+
+        }
+
+    }
+
+    //.... Helper method: write the keys of the options of a constraint
+    private static void writeKeys(Writer writer, List<OptionData> optionData) {
+        writer.putInt(optionData.size());
+        for (OptionData od : optionData) {
+            writer.putString(od.getKey());
+        }
+    }
+
+    //.... Helper method: read the keys of the options of a constraint
+    private static String[] readKeys(Reader reader) {
+        String[] keys = new String[reader.buffer.getInt()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = reader.getString();
+        }
+        return keys;
+    }
+
+    /**
+     * The definitions written so far, and the strings referenced by them
+     * (with their indices)
+     */
+    private static class Writer {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        void putByte(int b) {
+            try {
+                out.writeByte(b);
+            } catch (IOException ex) {                      // Not possible for a ByteArrayOutputStream
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        void putBoolean(boolean b) {
+            putByte(b ? 1 : 0);
+        }
+
+        void putInt(int i) {
+            try {
+                out.writeInt(i);
+            } catch (IOException ex) {                      // Not possible for a ByteArrayOutputStream
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        void putString(String s) {
+            if (s == null) {
+                putInt(-1);
+            } else {
+                Integer index = strings.get(s);
+                if (index == null) {
+                    index = strings.size();
+                    strings.put(s, index);
+                }
+                putInt(index);
+            }
+        }
+    }
+
+    /**
+     * The snapshot being read, with the strings of its table
+     */
+    private static class Reader {
+
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        Reader(ByteBuffer buffer) {
+
+            this.buffer = buffer;
+            strings = new String[buffer.getInt()];
+
+            byte[] bytes = new byte[256];
+            int length;
+            for (int i = 0; i < strings.length; i++) {
+                length = buffer.getInt();
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, 2 * bytes.length)];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+
+        }
+
+        boolean getBoolean() {
+            return buffer.get() != 0;
+        }
+
+        String getString() {
+            int index = buffer.getInt();
+            return index < 0 ? null : strings[index];
+        }
+
+        <T extends Enum<T>> T getEnum(T[] values) {
+            int ordinal = buffer.get();
+            return ordinal < 0 ? null : values[ordinal];
+        }
+    }
+}
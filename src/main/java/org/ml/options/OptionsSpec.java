@@ -0,0 +1,349 @@
+package org.ml.options;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable, compiled form of the option sets and options defined in an
+ * {@link Options} instance. It is created by {@link Options#compile()}, after
+ * which the definitions can no longer be changed.
+ * <p>
+ * In contrast to {@link Options}, a spec is not tied to a particular set of
+ * command line arguments and does not store any results itself: each
+ * invocation of one of the <code>parse()</code> methods returns a new
+ * {@link ParseResult}. A spec can therefore be compiled once and then be used
+ * for any number of checks, also by several threads at the same time.
+ */
+public final class OptionsSpec {
+
+    private final static String CLASS = "OptionsSpec";
+    private final OptionSet[] sets;
+    private final OptionDispatcher dispatcher;
+    private final SetFilter filter;
+    private final Map<String, Integer> names = new HashMap<>();
+    private final Options.Prefix prefix;
+    private final Options.Prefix altPrefix;
+    private final int maxDiagnostics;
+    private final boolean failFast;
+    private final boolean endOfOptions;
+
+    /**
+     * Constructor. The sets must be given in the order in which they are to be
+     * checked by {@link #parse(String[], boolean, boolean)}. At most
+     * <code>maxDiagnostics</code> diagnostics are kept for each parse, and
+     * <code>failFast</code> selects whether the checks stop at the first
+     * violation found (see {@link Options#setFailFast(boolean)}), and
+     * <code>endOfOptions</code> whether <code>--</code> marks the end of the
+     * options (see {@link Options#setEndOfOptions(boolean)}).
+     */
+    OptionsSpec(Collection<OptionSet> optionSets, Options.Prefix prefix, Options.Prefix altPrefix, int maxDiagnostics,
+                boolean failFast, boolean endOfOptions) {
+
+        if (optionSets == null) {
+            throw new IllegalArgumentException(CLASS + ": optionSets may not be null");
+        }
+        if (prefix == null) {
+            throw new IllegalArgumentException(CLASS + ": prefix may not be null");
+        }
+        if (altPrefix == null) {
+            throw new IllegalArgumentException(CLASS + ": altPrefix may not be null");
+        }
+
+        if (maxDiagnostics < 0) {
+            throw new IllegalArgumentException(CLASS + ": maxDiagnostics must be >= 0");
+        }
+
+        this.prefix = prefix;
+        this.altPrefix = altPrefix;
+        this.maxDiagnostics = maxDiagnostics;
+        this.failFast = failFast;
+        this.endOfOptions = endOfOptions;
+
+        sets = optionSets.toArray(new OptionSet[0]);
+        List<List<OptionData>> optionData = new ArrayList<>();
+
+        for (int i = 0; i < sets.length; i++) {
+            checkConstraints(sets[i].getConstraints());
+            for (OptionData od : sets[i].getOptionData()) {
+                checkConstraints(od.getConstraints());
+            }
+            optionData.add(sets[i].getOptionData());
+            names.put(sets[i].getName(), i);
+            sets[i].getRequired();                          // Compute the bitmasks before the set is shared
+            sets[i].getSingle();
+        }
+
+        //.... One dispatcher for all sets, such that the arguments need to be classified only once
+        dispatcher = new OptionDispatcher(optionData);
+        filter = new SetFilter(dispatcher, sets);
+
+    }
+
+    /**
+     * Helper method: make sure all constraints can be evaluated against a
+     * {@link ParseResult}
+     */
+    private static void checkConstraints(List<Constraint> constraints) {
+
+        if (constraints == null) {
+            return;
+        }
+
+        for (Constraint constraint : constraints) {
+            try {
+                if (constraint.getClass().getMethod("isSatisfied", ParseResult.class).getDeclaringClass() == Constraint.class) {
+                    throw new IllegalArgumentException(CLASS + ": constraint " + constraint.getClass().getName()
+                            + " does not implement isSatisfied(ParseResult)");
+                }
+            } catch (NoSuchMethodException ex) {
+                throw new IllegalArgumentException(CLASS + ": constraint " + constraint.getClass().getName()
+                        + " does not implement isSatisfied(ParseResult)", ex);
+            }
+        }
+
+    }
+
+    /**
+     * Return the definition of an option set - or <code>null</code>, if no set
+     * with the given name exists. The set must not be used to access results,
+     * these are only available from the {@link ParseResult}.
+     * <p>
+     *
+     * @param name The name for the set to retrieve
+     *             <p>
+     * @return The set to retrieve (or <code>null</code>, if no set with the
+     * given name exists)
+     */
+    public OptionSet getSet(String name) {
+        Integer index = names.get(name);
+        return index == null ? null : sets[index];
+    }
+
+    /**
+     * Check the given arguments against all sets and return the result for the
+     * first matching one. This does not ignore unmatched options and requires
+     * that data items are the last ones on the command line. It is equivalent
+     * to calling <code>parse(args, false, true)</code>.
+     * <p>
+     *
+     * @param args The command line arguments to check. The array is used as
+     *             it is and must not be modified as long as the result is in
+     *             use, since values are taken from it on demand.
+     *             <p>
+     * @return The result for the first matching set. If no set matches,
+     * {@link ParseResult#isSuccess()} returns <code>false</code> and the
+     * errors are available from {@link ParseResult#getDiagnostics()}.
+     */
+    public ParseResult parse(String[] args) {
+        return parse(args, false, true);
+    }
+
+    /**
+     * Check the given arguments against all sets and return the result for the
+     * first matching one (see {@link Options#getMatchingSet(boolean, boolean)}).
+     * <p>
+     *
+     * @param args            The command line arguments to check. The array is
+     *                        used as it is and must not be modified as long as
+     *                        the result is in use.
+     * @param ignoreUnmatched A boolean to select whether unmatched options can
+     *                        be ignored in the checks or not
+     * @param requireDataLast A boolean to indicate whether the data items have
+     *                        to be the last ones on the command line or not
+     *                        <p>
+     * @return The result for the first matching set. If no set matches,
+     * {@link ParseResult#isSuccess()} returns <code>false</code> and the
+     * errors are available from {@link ParseResult#getDiagnostics()}.
+     */
+    public ParseResult parse(String[] args, boolean ignoreUnmatched, boolean requireDataLast) {
+
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+
+        return parse(args, 0, args.length, ignoreUnmatched, requireDataLast);
+
+    }
+
+    /**
+     * Check a range of the given array as command line arguments against all
+     * sets and return the result for the first matching one (see
+     * {@link #parse(String[], boolean, boolean)}). Indices reported for
+     * arguments (e. g. in the diagnostics) are relative to the start of the
+     * range.
+     * <p>
+     *
+     * @param args            The array holding the command line arguments to
+     *                        check. The array is used as it is and must not be
+     *                        modified as long as the result is in use.
+     * @param offset          The index of the first argument within the array
+     * @param length          The number of arguments
+     * @param ignoreUnmatched A boolean to select whether unmatched options can
+     *                        be ignored in the checks or not
+     * @param requireDataLast A boolean to indicate whether the data items have
+     *                        to be the last ones on the command line or not
+     *                        <p>
+     * @return The result for the first matching set. If no set matches,
+     * {@link ParseResult#isSuccess()} returns <code>false</code> and the
+     * errors are available from {@link ParseResult#getDiagnostics()}.
+     */
+    public ParseResult parse(String[] args, int offset, int length, boolean ignoreUnmatched, boolean requireDataLast) {
+
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+        if (offset < 0 || length < 0 || offset > args.length - length) {
+            throw new IllegalArgumentException(CLASS + ": invalid range for args");
+        }
+
+        Diagnostics diagnostics = new Diagnostics(maxDiagnostics);
+        ArgumentTokens tokens = new ArgumentTokens(dispatcher, args, offset, length, prefix, altPrefix, endOfOptions,
+                requireDataLast);
+        ParseResult result;
+        boolean ruledOut = false;
+
+        for (int i = 0; i < sets.length; i++) {
+            if (!filter.accepts(i, tokens, ignoreUnmatched, prefix, diagnostics)) {
+                ruledOut = true;                            // Ruled out without the detailed checks
+                continue;
+            }
+            result = new ParseResult(sets[i], diagnostics);
+            if (OptionParser.check(sets[i], i, tokens, prefix, result, ignoreUnmatched, requireDataLast, failFast)) {
+                return result;
+            }
+        }
+
+        if (ruledOut) {
+            diagnose(tokens, ignoreUnmatched, requireDataLast, diagnostics);
+        }
+        return new ParseResult(null, diagnostics);
+
+    }
+
+    /**
+     * Check the given arguments against all sets in parallel, and return the
+     * result for the first matching one. The outcome is exactly the same as
+     * for {@link #parse(String[], boolean, boolean)}, including the order of
+     * the diagnostics: among all matching sets, the one checked first by a
+     * sequential run wins. Once a set has matched, the checks for later sets
+     * which have not yet started are skipped.
+     * <p>
+     * This pays off for a large number of sets with costly checks (e. g. many
+     * constraints). For a few sets, the sequential method is usually faster.
+     * <p>
+     *
+     * @param args            The command line arguments to check. The array is
+     *                        used as it is and must not be modified as long as
+     *                        the result is in use.
+     * @param ignoreUnmatched A boolean to select whether unmatched options can
+     *                        be ignored in the checks or not
+     * @param requireDataLast A boolean to indicate whether the data items have
+     *                        to be the last ones on the command line or not
+     * @param pool            The pool to run the checks in (e. g.
+     *                        <code>ForkJoinPool.commonPool()</code>)
+     *                        <p>
+     * @return The result for the first matching set. If no set matches,
+     * {@link ParseResult#isSuccess()} returns <code>false</code> and the
+     * errors are available from {@link ParseResult#getDiagnostics()}.
+     */
+    public ParseResult parse(String[] args, boolean ignoreUnmatched, boolean requireDataLast, ForkJoinPool pool) {
+
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException(CLASS + ": pool may not be null");
+        }
+
+        ArgumentTokens tokens = new ArgumentTokens(dispatcher, args, 0, args.length, prefix, altPrefix, endOfOptions,
+                requireDataLast);
+        ParseResult[] results = new ParseResult[sets.length];
+        Diagnostics diagnostics = new Diagnostics(maxDiagnostics);
+        boolean[] ruledOut = new boolean[sets.length];
+
+        int winner = ParallelMatcher.firstMatch(pool, sets.length, maxDiagnostics, (i, local) -> {
+            if (!filter.accepts(i, tokens, ignoreUnmatched, prefix, local)) {
+                ruledOut[i] = true;
+                return false;
+            }
+            results[i] = new ParseResult(sets[i], local);
+            return OptionParser.check(sets[i], i, tokens, prefix, results[i], ignoreUnmatched, requireDataLast,
+                    failFast);
+        }, diagnostics);
+
+        if (winner < 0) {
+            for (boolean skipped : ruledOut) {
+                if (skipped) {
+                    diagnose(tokens, ignoreUnmatched, requireDataLast, diagnostics);
+                    break;
+                }
+            }
+            return new ParseResult(null, diagnostics);
+        }
+
+        results[winner].setDiagnosticsBuffer(diagnostics);
+        return results[winner];
+
+    }
+
+    /**
+     * Check the given arguments against the given set (see
+     * {@link Options#check(String, boolean, boolean)}).
+     * <p>
+     *
+     * @param name            The name for the set to check
+     * @param args            The command line arguments to check. The array is
+     *                        used as it is and must not be modified as long as
+     *                        the result is in use.
+     * @param ignoreUnmatched A boolean to select whether unmatched options can
+     *                        be ignored in the checks or not
+     * @param requireDataLast A boolean to indicate whether the data items have
+     *                        to be the last ones on the command line or not
+     *                        <p>
+     * @return The result of the check
+     */
+    public ParseResult parse(String name, String[] args, boolean ignoreUnmatched, boolean requireDataLast) {
+
+        if (name == null) {
+            throw new IllegalArgumentException(CLASS + ": name may not be null");
+        }
+        if (args == null) {
+            throw new IllegalArgumentException(CLASS + ": args may not be null");
+        }
+
+        Integer index = names.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException(CLASS + ": Unknown OptionSet: " + name);
+        }
+
+        ParseResult result = new ParseResult(sets[index], new Diagnostics(maxDiagnostics));
+        ArgumentTokens tokens = new ArgumentTokens(dispatcher, args, 0, args.length, prefix, altPrefix, endOfOptions,
+                requireDataLast);
+        OptionParser.check(sets[index], index, tokens, prefix, result, ignoreUnmatched, requireDataLast, failFast);
+        return result;
+
+    }
+
+    /**
+     * Helper method: no set matched, but some were ruled out by the filter,
+     * which only records the first reason. The detailed checks for all sets
+     * (in order) are deferred until the diagnostics of the result are
+     * requested.
+     */
+    private void diagnose(ArgumentTokens tokens, boolean ignoreUnmatched, boolean requireDataLast,
+                          Diagnostics diagnostics) {
+        if (maxDiagnostics == 0) {
+            return;
+        }
+        diagnostics.defer(() -> {
+            for (int i = 0; i < sets.length; i++) {
+                OptionParser.check(sets[i], i, tokens, prefix, new ParseResult(sets[i], diagnostics),
+                        ignoreUnmatched, requireDataLast, failFast);
+            }
+        });
+    }
+}
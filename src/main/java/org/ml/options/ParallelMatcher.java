@@ -0,0 +1,129 @@
+package org.ml.options;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the attempts to match a number of sets in parallel, while producing
+ * exactly the outcome of running them one after the other: the set with the
+ * lowest index among the successful ones wins. Once a set has succeeded,
+ * attempts for sets with a higher index which have not yet started are
+ * skipped. All sets with a lower index than the winner have always been
+ * attempted (and have failed), their diagnostics are therefore available in the
+ * same order as for a sequential run.
+ */
+final class ParallelMatcher {
+
+    private final static String CLASS = "ParallelMatcher";
+
+    /**
+     * One attempt to match a set
+     */
+    interface Attempt {
+
+        /**
+         * Run the checks for the set with the given index.
+         * <p>
+         *
+         * @param index       The index of the set
+         * @param diagnostics The buffer collecting the diagnostics for this
+         *                    attempt
+         *                    <p>
+         * @return A boolean indicating whether all checks were successful or
+         * not
+         */
+        boolean run(int index, Diagnostics diagnostics);
+    }
+
+    private ParallelMatcher() {
+    }
+
+    /**
+     * Determine the first set which matches.
+     * <p>
+     *
+     * @param pool     The pool to run the attempts in
+     * @param count    The number of sets
+     * @param capacity The maximum number of diagnostics to keep per attempt
+     * @param attempt  The attempt to run for each set
+     * @param target   The buffer receiving the diagnostics of all attempts up
+     *                 to the winning one (or of all attempts, if no set matches)
+     *                 <p>
+     * @return The index of the first set which matches, or <code>-1</code>
+     */
+    static int firstMatch(ForkJoinPool pool, int count, int capacity, Attempt attempt, Diagnostics target) {
+
+        if (pool == null) {
+            throw new IllegalArgumentException(CLASS + ": pool may not be null");
+        }
+        if (attempt == null) {
+            throw new IllegalArgumentException(CLASS + ": attempt may not be null");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException(CLASS + ": target may not be null");
+        }
+
+        if (count == 0) {
+            return -1;
+        }
+
+        AtomicInteger best = new AtomicInteger(count);
+        Diagnostics[] local = new Diagnostics[count];
+
+        pool.invoke(new Task(attempt, best, local, capacity, 0, count));
+
+        int winner = best.get();
+        int last = winner < count ? winner : count - 1;
+        for (int i = 0; i <= last; i++) {
+            target.addAll(local[i]);
+        }
+
+        return winner < count ? winner : -1;
+
+    }
+
+    /**
+     * The task for a range of sets, which is split until single sets remain
+     */
+    private static class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final Attempt attempt;
+        private final AtomicInteger best;
+        private final Diagnostics[] local;
+        private final int capacity;
+        private final int lo;
+        private final int hi;
+
+        Task(Attempt attempt, AtomicInteger best, Diagnostics[] local, int capacity, int lo, int hi) {
+            this.attempt = attempt;
+            this.best = best;
+            this.local = local;
+            this.capacity = capacity;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (lo >= best.get()) {                      // A set with a lower index has already matched
+                return;
+            }
+
+            if (hi - lo == 1) {
+                local[lo] = new Diagnostics(capacity);
+                if (attempt.run(lo, local[lo])) {
+                    best.accumulateAndGet(lo, Math::min);
+                }
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Task(attempt, best, local, capacity, lo, mid),
+                    new Task(attempt, best, local, capacity, mid, hi));
+
+        }
+    }
+}
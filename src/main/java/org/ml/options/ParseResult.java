@@ -0,0 +1,557 @@
+package org.ml.options;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class holds the results of checking one set of command line arguments
+ * against an {@link OptionsSpec}. While the spec itself is immutable and can be
+ * shared, a new instance of this class is created for each check, such that
+ * several checks can run at the same time.
+ * <p>
+ * The results are accessed through the keys of the options, which are the same
+ * as for {@link OptionSet#getOption(String)}.
+ */
+public final class ParseResult {
+
+    private final static String CLASS = "ParseResult";
+    private final OptionSet set;
+    private final OptionResult[] results;
+    private DataList data;
+    private ArrayList<String> unmatched;
+    private Diagnostics diagnostics;
+    private boolean success = false;
+    //.... Bitmasks over the ordinals of the options: found at least once, and found more than once
+    private final long[] seen;
+    private final long[] repeated;
+    //.... Scratch space for the checks
+    private boolean[] matched;
+    private final int[] bounds = new int[OptionDispatcher.BOUNDS];
+
+    /**
+     * Constructor for a new, empty result for the given set. If
+     * <code>set</code> is <code>null</code>, this is the result of a check
+     * where no set matched at all.
+     */
+    ParseResult(OptionSet set, Diagnostics diagnostics) {
+
+        if (diagnostics == null) {
+            throw new IllegalArgumentException(CLASS + ": diagnostics may not be null");
+        }
+
+        this.set = set;
+        this.diagnostics = diagnostics;
+        data = new DataList();
+        unmatched = new ArrayList<>();
+
+        if (set == null) {
+            results = new OptionResult[0];
+            seen = new long[0];
+        } else {
+            List<OptionData> options = set.getOptionData();
+            results = new OptionResult[options.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = new OptionResult(options.get(i).getType());
+            }
+            seen = new long[Bits.words(results.length)];
+        }
+        repeated = new long[seen.length];
+
+    }
+
+    // ==========================================================================================
+    // Internal access
+    // ==========================================================================================
+
+    /**
+     * Get the set these results belong to
+     */
+    OptionSet getSet() {
+        return set;
+    }
+
+    /**
+     * Get the result holder for the given option
+     */
+    OptionResult getResult(OptionData optionData) {
+        return results[optionData.getOrdinal()];
+    }
+
+    /**
+     * Get the result holder for the option with the given ordinal
+     */
+    OptionResult getResult(int ordinal) {
+        return results[ordinal];
+    }
+
+    /**
+     * Get the buffer collecting the diagnostics
+     */
+    Diagnostics getDiagnosticsBuffer() {
+        return diagnostics;
+    }
+
+    /**
+     * Get an array to mark the arguments matched during the check. All
+     * elements up to <code>length</code> are <code>false</code>. The array is
+     * reused for later checks with the same instance.
+     */
+    boolean[] getMatched(int length) {
+        if (matched == null || matched.length < length) {
+            matched = new boolean[length];
+        } else {
+            Arrays.fill(matched, 0, length, false);
+        }
+        return matched;
+    }
+
+    /**
+     * Get the array receiving the positions of detail and value from
+     * {@link ArgumentTokens#match(int, int, int[])}
+     */
+    int[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Store the data for a match of the option with the given ordinal (see
+     * {@link OptionResult#add(String[], int, int, int, int, int, int)}), and
+     * record the match in the bitmasks
+     */
+    void add(int ordinal, String[] arguments, int keyArg, int detailStart, int detailEnd,
+             int valueArg, int valueStart, int valueEnd) {
+        results[ordinal].add(arguments, keyArg, detailStart, detailEnd, valueArg, valueStart, valueEnd);
+        if (Bits.get(seen, ordinal)) {
+            Bits.set(repeated, ordinal);
+        } else {
+            Bits.set(seen, ordinal);
+        }
+    }
+
+    /**
+     * Get the options found at least once, as a bitmask over their ordinals
+     */
+    long[] getSeen() {
+        return seen;
+    }
+
+    /**
+     * Get the options found more than once, as a bitmask over their ordinals
+     */
+    long[] getRepeated() {
+        return repeated;
+    }
+
+    /**
+     * Replace the buffer collecting the diagnostics
+     */
+    void setDiagnosticsBuffer(Diagnostics diagnostics) {
+        if (diagnostics == null) {
+            throw new IllegalArgumentException(CLASS + ": diagnostics may not be null");
+        }
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Replace the holder for the results of the option with the given ordinal
+     * by the given one, and return the holder replaced
+     */
+    OptionResult exchangeResult(int ordinal, OptionResult other) {
+        OptionResult previous = results[ordinal];
+        results[ordinal] = other;
+        return previous;
+    }
+
+    /**
+     * Get the list collecting the data items
+     */
+    DataList getDataList() {
+        return data;
+    }
+
+    /**
+     * Replace the list of data items by the given one, and return the list
+     * replaced
+     */
+    DataList exchangeData(DataList other) {
+        DataList previous = data;
+        data = other;
+        return previous;
+    }
+
+    /**
+     * Replace the list of unmatched arguments by the given one, and return the
+     * list replaced
+     */
+    ArrayList<String> exchangeUnmatched(ArrayList<String> other) {
+        ArrayList<String> previous = unmatched;
+        unmatched = other;
+        return previous;
+    }
+
+    /**
+     * Discard all results, such that the instance can be used for another
+     * check. The allocated storage is kept.
+     */
+    void clear() {
+        success = false;
+        data.reset();
+        unmatched.clear();
+        for (OptionResult result : results) {
+            result.clear();
+        }
+        Arrays.fill(seen, 0L);
+        Arrays.fill(repeated, 0L);
+    }
+
+    /**
+     * Record the overall outcome of the check
+     */
+    void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    //.... Helper method: find the results for a given key
+    private OptionResult getResult(String key) {
+        if (set == null) {
+            throw new IllegalStateException(CLASS + ": no option set matched the arguments");
+        }
+        return results[set.getOption(key).getOrdinal()];
+    }
+
+    //.... Helper method: check the index for a given result
+    private static void checkIndex(OptionResult result, int index) {
+        if (index < 0 || index >= result.getCount()) {
+            throw new IllegalArgumentException(CLASS + ": illegal value for index");
+        }
+    }
+
+    //.... Helper method: check the index for typed access to a given result
+    private static void checkTypedIndex(OptionResult result, int index) {
+        if (!result.hasValue()) {
+            throw new UnsupportedOperationException(CLASS + ": typed access requires a value option");
+        }
+        checkIndex(result, index);
+    }
+
+    // ==========================================================================================
+    // The public API
+    // ==========================================================================================
+
+    /**
+     * Indicate whether all checks were successful
+     * <p>
+     *
+     * @return A boolean indicating whether all checks were successful or not
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Return the name of the set these results belong to
+     * <p>
+     *
+     * @return The name of the set (or <code>null</code> if no set matched)
+     */
+    public String getSetName() {
+        return set == null ? null : set.getName();
+    }
+
+    /**
+     * Check whether a specific option has been found on the command line
+     * <p>
+     *
+     * @param key The key for the option
+     *            <p>
+     * @return A boolean indicating whether this option has been found on the
+     * command line
+     */
+    public boolean isSet(String key) {
+        return getResult(key).getCount() > 0;
+    }
+
+    /**
+     * Get the number of results found for an option, which is number of times
+     * the key matched
+     * <p>
+     *
+     * @param key The key for the option
+     *            <p>
+     * @return The number of results
+     */
+    public int getResultCount(String key) {
+        return getResult(key).getCount();
+    }
+
+    /**
+     * Get the value with the given index for an option (see
+     * {@link OptionData#getResultValue(int)}).
+     * <p>
+     *
+     * @param key   The key for the option
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     */
+    public String getResultValue(String key, int index) {
+        OptionResult result = getResult(key);
+        checkIndex(result, index);
+        return result.getValue(index);
+    }
+
+    /**
+     * Get a read-only view on the value with the given index for an option
+     * (see {@link OptionData#getResultValueView(int)}).
+     * <p>
+     *
+     * @param key   The key for the option
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     */
+    public CharSequence getResultValueView(String key, int index) {
+        OptionResult result = getResult(key);
+        checkIndex(result, index);
+        return result.getValueView(index);
+    }
+
+    /**
+     * Get the value with the given index for an option as <code>int</code>
+     * (see {@link OptionData#getResultInt(int)})
+     * <p>
+     *
+     * @param key   The key for the option
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     */
+    public int getResultInt(String key, int index) {
+        OptionResult result = getResult(key);
+        checkTypedIndex(result, index);
+        return result.getInt(index);
+    }
+
+    /**
+     * Get the value with the given index for an option as <code>long</code>
+     * (see {@link OptionData#getResultLong(int)})
+     * <p>
+     *
+     * @param key   The key for the option
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     */
+    public long getResultLong(String key, int index) {
+        OptionResult result = getResult(key);
+        checkTypedIndex(result, index);
+        return result.getLong(index);
+    }
+
+    /**
+     * Get the value with the given index for an option as <code>double</code>
+     * (see {@link OptionData#getResultDouble(int)})
+     * <p>
+     *
+     * @param key   The key for the option
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     */
+    public double getResultDouble(String key, int index) {
+        OptionResult result = getResult(key);
+        checkTypedIndex(result, index);
+        return result.getDouble(index);
+    }
+
+    /**
+     * Get the value with the given index for an option as <code>boolean</code>
+     * (see {@link OptionData#getResultBoolean(int)})
+     * <p>
+     *
+     * @param key   The key for the option
+     * @param index The index for the desired value
+     *              <p>
+     * @return The option value with the given index
+     */
+    public boolean getResultBoolean(String key, int index) {
+        OptionResult result = getResult(key);
+        checkTypedIndex(result, index);
+        return result.getBoolean(index);
+    }
+
+    /**
+     * Return a list of all result values for an option
+     * <p>
+     *
+     * @param key The key for the option
+     *            <p>
+     * @return A list with all result values
+     */
+    public List<String> getResultValues(String key) {
+        OptionResult result = getResult(key);
+        List<String> list = new ArrayList<>();
+        for (int index = 0; index < result.getCount(); index++) {
+            list.add(result.getValue(index));
+        }
+        return list;
+    }
+
+    /**
+     * Get the detail with the given index for an option (see
+     * {@link OptionData#getResultDetail(int)}).
+     * <p>
+     *
+     * @param key   The key for the option
+     * @param index The index for the desired detail
+     *              <p>
+     * @return The option detail with the given index
+     */
+    public String getResultDetail(String key, int index) {
+        OptionResult result = getResult(key);
+        checkIndex(result, index);
+        return result.getDetail(index);
+    }
+
+    /**
+     * Return a list of all result details for an option
+     * <p>
+     *
+     * @param key The key for the option
+     *            <p>
+     * @return A list with all result details
+     */
+    public List<String> getResultDetails(String key) {
+        OptionResult result = getResult(key);
+        List<String> list = new ArrayList<>();
+        for (int index = 0; index < result.getCount(); index++) {
+            list.add(result.getDetail(index));
+        }
+        return list;
+    }
+
+    /**
+     * Return the data items found (these are the items on the command line
+     * which do not start with the prefix, i. e. non-option arguments). The
+     * list is read-only, and it refers to the command line arguments rather
+     * than copying them where possible.
+     * <p>
+     *
+     * @return A list of strings with all data items found
+     */
+    public List<String> getData() {
+        return data;
+    }
+
+    /**
+     * Return the data items found, one after the other (see {@link DataItems})
+     * <p>
+     *
+     * @return The data items
+     */
+    public DataItems getDataItems() {
+        return new DataItems(set, data);
+    }
+
+    /**
+     * Return the data items found, followed by the items read from the given
+     * stream (see {@link DataItems}). This requires that a set with streaming
+     * data has matched (see {@link OptionSet#setStreamingData(boolean)}).
+     * <p>
+     *
+     * @param in The stream to read further data items from. The items must be
+     *           separated by NUL bytes and encoded in UTF-8.
+     *           <p>
+     * @return The data items
+     */
+    public DataItems getDataItems(InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException(CLASS + ": in may not be null");
+        }
+        if (set == null || !set.isStreamingData()) {
+            throw new UnsupportedOperationException(CLASS + ": no set with streaming data has matched");
+        }
+        return new DataItems(set, data, in);
+    }
+
+    /**
+     * Return the data items found, followed by the items delivered by the
+     * given iterator (see {@link DataItems}), e. g. the arguments of an
+     * argument file (see {@link ArgumentFiles#iterator(java.nio.file.Path)}).
+     * This requires that a set with streaming data has matched (see
+     * {@link OptionSet#setStreamingData(boolean)}).
+     * <p>
+     *
+     * @param items The iterator delivering further data items
+     *              <p>
+     * @return The data items
+     */
+    public DataItems getDataItems(Iterator<String> items) {
+        if (items == null) {
+            throw new IllegalArgumentException(CLASS + ": items may not be null");
+        }
+        if (set == null || !set.isStreamingData()) {
+            throw new UnsupportedOperationException(CLASS + ": no set with streaming data has matched");
+        }
+        return new DataItems(set, data, items);
+    }
+
+    /**
+     * Return the number of data items found
+     * <p>
+     *
+     * @return The number of all data items found
+     */
+    public int getDataCount() {
+        return data.size();
+    }
+
+    /**
+     * Return all unmatched items found (these are the items on the command line
+     * which start with the prefix, but do not match to one of the options)
+     * <p>
+     *
+     * @return A list of strings with all unmatched items found
+     */
+    public List<String> getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * Return the number of unmatched items found
+     * <p>
+     *
+     * @return The number of all unmatched items found
+     */
+    public int getUnmatchedCount() {
+        return unmatched.size();
+    }
+
+    /**
+     * The diagnostics collected during the check. This is useful to determine
+     * what was wrong with the command line arguments provided. At most the
+     * number of diagnostics configured with
+     * {@link Options#setMaxDiagnostics(int)} is kept.
+     * <p>
+     *
+     * @return A read-only list with all collected diagnostics
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics.getList();
+    }
+
+    /**
+     * The error messages collected during the check, one per line. This is a
+     * view on {@link #getDiagnostics()}, the messages are assembled on each
+     * invocation.
+     * <p>
+     *
+     * @return A string with all collected error messages
+     */
+    public String getCheckErrors() {
+        return diagnostics.format();
+    }
+}
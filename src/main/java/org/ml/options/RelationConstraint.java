@@ -0,0 +1,375 @@
+package org.ml.options;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jdom2.Element;
+
+/**
+ * A constraint describing a relation between the options of a set, like one
+ * option requiring or excluding others. This type of constraint can only be
+ * added to an option set as it combines several options. The relations
+ * available are
+ * <ul>
+ * <li>{@link Relation#REQUIRES}: if the first option is set, all of the other
+ * options must be set as well</li>
+ * <li>{@link Relation#IMPLIES}: if the first option is set, at least one of
+ * the other options must be set as well</li>
+ * <li>{@link Relation#CONFLICTS}: if the first option is set, none of the
+ * other options may be set</li>
+ * <li>{@link Relation#AT_LEAST}: at least a given number of the options must
+ * be set</li>
+ * <li>{@link Relation#AT_MOST}: at most a given number of the options may be
+ * set</li>
+ * </ul>
+ * The options involved are stored as bitmasks over their ordinals within the
+ * set, so checking a constraint against the results of a check just takes a
+ * few word-wide operations, no matter how many options are involved.
+ */
+public class RelationConstraint implements XMLConstraint {
+
+    private static final String CLASS = "RelationConstraint";
+    private List<OptionData> optionData = new ArrayList<>();
+    private Relation relation = null;
+    private int count = 0;
+    //.... The first option (for REQUIRES, IMPLIES and CONFLICTS, or -1) and the other options as
+    //     a bitmask over their ordinals
+    private int trigger = -1;
+    private long[] mask;
+
+    /**
+     * The relations between options supported by this constraint
+     */
+    public enum Relation {
+
+        /**
+         * If the first option is set, all of the other options must be set as
+         * well
+         */
+        REQUIRES("requires"),
+        /**
+         * If the first option is set, at least one of the other options must
+         * be set as well
+         */
+        IMPLIES("implies"),
+        /**
+         * If the first option is set, none of the other options may be set
+         */
+        CONFLICTS("conflicts with"),
+        /**
+         * At least a given number of the options must be set
+         */
+        AT_LEAST("at least"),
+        /**
+         * At most a given number of the options may be set
+         */
+        AT_MOST("at most");
+        private final String name;
+
+        Relation(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        //.... Whether the relation takes a count instead of a first option
+        boolean isCounting() {
+            return this == AT_LEAST || this == AT_MOST;
+        }
+    }
+
+    /**
+     * The public no-org constructor. This is a prereq for all constraints since
+     * it is used for initialization based on XML data.
+     */
+    public RelationConstraint() {
+    }
+
+    /**
+     * This method is used to initialize this constraint based on data read from
+     * an XML configuration file. The method is invoked internally during setup
+     * with the instance of {@link Constrainable} to which the constraint
+     * applies and a list of JDOM elements, which contain the details about the
+     * constraint itself.
+     * <p>
+     * This method initializes the constraint and attaches it to the list of
+     * constraints of the {@link Constrainable} instance.
+     * <p>
+     * The parameters expected in the XML <code>&lt;param&gt;</code> tags for
+     * this constraint are
+     *
+     * <table border=1>
+     * <caption>Default caption</caption>
+     * <tr> <td> <b >Name</b> </td><td> <b>Value</b> </td><td>Status</td>
+     * </tr>
+     * <tr> <td> relation </td><td> The name of one of the {@link Relation}
+     * constants </td><td> Required</td></tr>
+     * <tr> <td> keys </td><td> The keys of the options, separated by
+     * <code>|</code>. For <code>REQUIRES</code>, <code>IMPLIES</code> and
+     * <code>CONFLICTS</code>, the first key is the one the others relate to
+     * </td><td> Required</td></tr>
+     * <tr> <td> count </td><td> Same as the <code>count</code> parameter in
+     * {@link #add(OptionSet, Relation, int, String[])} </td><td> Required for
+     * <code>AT_LEAST</code> and <code>AT_MOST</code></td></tr>
+     * </table>
+     * <p>
+     *
+     * @param constrainable The {@link Constrainable} instance to which this
+     * constraint applies
+     * @param list A list of JDOM elements to be used to initialize the
+     * constraint. Specifically, these are tags of the form
+     * <p>
+     * <code>&lt;param name="..." value="..." /&gt;</code>
+     * <p>
+     * containing key/value pairs with information.
+     */
+    @Override
+    public void init(Constrainable constrainable, List<Element> list) {
+
+        if (list == null) {
+            throw new IllegalArgumentException(CLASS + ": list may not be null");
+        }
+        if (constrainable == null) {
+            throw new IllegalArgumentException(CLASS + ": constrainable may not be null");
+        }
+        if (!supports(constrainable)) {
+            throw new IllegalArgumentException(CLASS + ": Constrainable must be instance of OptionSet");
+        }
+
+        //.... Extract all parameters
+        Map<String, String> params = new HashMap<>();
+        for (Element param : list) {
+            params.put(param.getAttributeValue("name").trim(), param.getAttributeValue("value").trim());
+        }
+
+        //.... Checks
+        if (!params.containsKey("relation")) {
+            throw new IllegalArgumentException(CLASS + ": missing <param> element with attribute named 'relation'");
+        }
+        if (!params.containsKey("keys")) {
+            throw new IllegalArgumentException(CLASS + ": missing <param> element with attribute named 'keys'");
+        }
+
+        Relation rel = Relation.valueOf(params.get("relation"));
+        String[] keys = params.get("keys").split("\\|");
+
+        //.... Add the constraint
+        if (rel.isCounting()) {
+            if (!params.containsKey("count")) {
+                throw new IllegalArgumentException(CLASS + ": missing <param> element with attribute named 'count'");
+            }
+            add((OptionSet) constrainable, rel, Integer.parseInt(params.get("count")), keys);
+        } else {
+            add((OptionSet) constrainable, rel, keys);
+        }
+
+    }
+
+    /**
+     * Add a constraint relating an option to others to the given option set
+     * <p>
+     *
+     * @param optionSet The {@link OptionSet} to add this constraint to
+     * @param relation The {@link Relation} between the options. This must be
+     * one of <code>REQUIRES</code>, <code>IMPLIES</code> and
+     * <code>CONFLICTS</code>.
+     * @param keys The keys of the options to relate. At least two keys must
+     * be given here, the first one is the option the others relate to. The
+     * corresponding options must already be defined in the set.
+     */
+    public static void add(OptionSet optionSet, Relation relation, String... keys) {
+        if (optionSet == null) {
+            throw new IllegalArgumentException(CLASS + ": optionSet may not be null");
+        }
+        if (relation == null) {
+            throw new IllegalArgumentException(CLASS + ": relation may not be null");
+        }
+        if (relation.isCounting()) {
+            throw new IllegalArgumentException(CLASS + ": relation " + relation + " requires a count");
+        }
+        if (keys.length < 2) {
+            throw new IllegalArgumentException(CLASS + ": at least two keys must be provided");
+        }
+        optionSet.addConstraint(new RelationConstraint(optionSet, relation, 0, keys));
+    }
+
+    /**
+     * Add a constraint on the number of options set to the given option set
+     * <p>
+     *
+     * @param optionSet The {@link OptionSet} to add this constraint to
+     * @param relation The {@link Relation} between the options. This must be
+     * one of <code>AT_LEAST</code> and <code>AT_MOST</code>.
+     * @param count The number of options which must at least (or may at most)
+     * be set. This must be between 0 and the number of keys.
+     * @param keys The keys of the options to count. At least two keys must be
+     * given here, and the corresponding options must already be defined in the
+     * set.
+     */
+    public static void add(OptionSet optionSet, Relation relation, int count, String... keys) {
+        if (optionSet == null) {
+            throw new IllegalArgumentException(CLASS + ": optionSet may not be null");
+        }
+        if (relation == null) {
+            throw new IllegalArgumentException(CLASS + ": relation may not be null");
+        }
+        if (!relation.isCounting()) {
+            throw new IllegalArgumentException(CLASS + ": relation " + relation + " does not take a count");
+        }
+        if (keys.length < 2) {
+            throw new IllegalArgumentException(CLASS + ": at least two keys must be provided");
+        }
+        if (count < 0 || count > keys.length) {
+            throw new IllegalArgumentException(CLASS + ": count must be between 0 and the number of keys");
+        }
+        optionSet.addConstraint(new RelationConstraint(optionSet, relation, count, keys));
+    }
+
+    /**
+     * Constructor
+     */
+    RelationConstraint(OptionSet optionSet, Relation relation, int count, String[] keys) {
+        this.relation = relation;
+        this.count = count;
+        mask = new long[Bits.words(optionSet.getOptionData().size())];
+        OptionData od;
+        for (int i = 0; i < keys.length; i++) {
+            od = optionSet.getOption(keys[i]);
+            if (optionData.contains(od)) {
+                throw new IllegalArgumentException(CLASS + ": option '" + keys[i] + "' is given more than once");
+            }
+            optionData.add(od);
+            if (i == 0 && !relation.isCounting()) {
+                trigger = od.getOrdinal();
+            } else {
+                Bits.set(mask, od.getOrdinal());
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    Relation getRelation() {
+        return relation;
+    }
+
+    /**
+     *
+     */
+    List<OptionData> getOptionData() {
+        return optionData;
+    }
+
+    /**
+     * Return the number of options which must at least (or may at most) be
+     * found for a counting relation (see {@link Relation#isCounting()}), which
+     * is written to snapshots and generated code. It is 0 for all other
+     * relations.
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Indicates whether a constraint supports a given type of
+     * {@link Constrainable}
+     * <p>
+     *
+     * @param constrainable The constraint to check
+     * @return A boolean to indicate whether this {@link Constrainable} is
+     * supported. This constraint only supports {@link OptionSet} constrainables
+     */
+    @Override
+    public boolean supports(Constrainable constrainable) {
+        if (constrainable == null) {
+            throw new IllegalArgumentException(CLASS + ": constrainable may not be null");
+        }
+        return constrainable instanceof OptionSet;
+    }
+
+    /**
+     * The actual check routine
+     * <p>
+     *
+     * @return A boolean indicating whether the constraint is satisfied or not
+     */
+    @Override
+    public boolean isSatisfied() {
+        return isSatisfied(null);
+    }
+
+    /**
+     * The actual check routine for the results of one particular check
+     * <p>
+     *
+     * @param result The results of the check (if <code>null</code>, the
+     *               results stored with the options are used)
+     * @return A boolean indicating whether the constraint is satisfied or not
+     */
+    @Override
+    public boolean isSatisfied(ParseResult result) {
+
+        boolean triggered;
+        int found;
+
+        if (result != null) {
+            long[] seen = result.getSeen();
+            triggered = trigger >= 0 && Bits.get(seen, trigger);
+            found = Bits.countCommon(mask, seen);
+        } else {
+            triggered = false;
+            found = 0;
+            for (OptionData od : optionData) {
+                if (od.getResultCount() > 0) {
+                    if (od.getOrdinal() == trigger) {
+                        triggered = true;
+                    } else {
+                        found++;
+                    }
+                }
+            }
+        }
+
+        switch (relation) {
+            case REQUIRES:
+                return !triggered || found == optionData.size() - 1;
+            case IMPLIES:
+                return !triggered || found > 0;
+            case CONFLICTS:
+                return !triggered || found == 0;
+            case AT_LEAST:
+                return found >= count;
+            default:
+                return found <= count;
+        }
+
+    }
+
+    /**
+     * This is the overloaded {@link Object#toString()} method
+     * <p>
+     *
+     * @return A string representing the instance
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int first = 0;
+        if (relation.isCounting()) {
+            sb.append(relation.getName()).append(' ').append(count).append(" of ");
+        } else {
+            sb.append(optionData.get(0).getKey()).append(' ').append(relation.getName()).append(' ');
+            first = 1;
+        }
+        for (int i = first; i < optionData.size(); i++) {
+            sb.append(optionData.get(i).getKey());
+            sb.append("|");
+        }
+        sb.deleteCharAt(sb.length() - 1);
+        return sb.toString();
+    }
+}
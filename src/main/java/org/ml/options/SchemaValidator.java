@@ -15,11 +15,18 @@ import org.xml.sax.SAXParseException;
 /**
  * Validator for XML documents using XML schema. This is based on JDK 5.0 and
  * requires no outside library.
+ * <p>
+ * The schema is compiled only once and then shared by all instances, since a
+ * <code>Schema</code> is thread-safe. A <code>Validator</code> is not, but it
+ * is cheap to create from the compiled schema, so each validation uses a new
+ * one (rather than keeping one per thread, which would hold on to this class
+ * and its class loader in pooled threads).
  */
 public class SchemaValidator extends org.xml.sax.helpers.DefaultHandler {
 
     private final String CLASS = "SchemaValidator";
-    private final String xsdFile = "config/options.xsd";
+    private final static String xsdFile = "config/options.xsd";
+    private static volatile Schema schema = null;
     private String error = null;
 
     /**
@@ -40,14 +47,9 @@ public class SchemaValidator extends org.xml.sax.helpers.DefaultHandler {
             throw new IllegalArgumentException(CLASS + ": xmlReader may not be null");
         }
 
-        //.... Get the XML schema from the JAR and create a validator
-
-        SchemaFactory factory = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        ClassLoader loader = this.getClass().getClassLoader();
-        URL url = loader.getResource(xsdFile);
-        Schema schema = factory.newSchema(url);
-        Validator validator = schema.newValidator();
+        //.... Create a validator from the XML schema in the JAR (which is compiled on first use)
 
+        Validator validator = getSchema().newValidator();
         validator.setErrorHandler(this);
 
         //.... Try to validate the XML file given
@@ -59,6 +61,30 @@ public class SchemaValidator extends org.xml.sax.helpers.DefaultHandler {
 
     }
 
+    /**
+     * Return the compiled XML schema, which is loaded from the JAR on first
+     * use
+     * <p>
+     *
+     * @return The schema
+     * @throws SAXException If the schema can not be compiled
+     */
+    static Schema getSchema() throws SAXException {
+        Schema result = schema;
+        if (result == null) {
+            synchronized (SchemaValidator.class) {
+                result = schema;
+                if (result == null) {
+                    SchemaFactory factory = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
+                    URL url = SchemaValidator.class.getClassLoader().getResource(xsdFile);
+                    result = factory.newSchema(url);
+                    schema = result;
+                }
+            }
+        }
+        return result;
+    }
+
     //-----------------------------------------------------------------------------------------
     // Below are helper methods that are required to improve the error handling (specifically,
     // to make sure all thrown exceptions are reported, and row and column numbers are added
@@ -0,0 +1,203 @@
+package org.ml.options;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A quick pre-check to rule out option sets before the detailed checks are
+ * run. For each set, bitmasks over the shapes of an {@link OptionDispatcher}
+ * are prepared for the options which are allowed, the options which are
+ * required, and groups of options at least one of which must be present
+ * (required options with an alternate key, and the options tied together by an
+ * {@link ExclusiveConstraint}). A set is rejected if
+ * <ul>
+ * <li>a required option (or group) does not appear in any argument</li>
+ * <li>an argument with a prefix does not match any option of the set, and
+ * unmatched arguments are not to be ignored</li>
+ * </ul>
+ * Both conditions make the detailed checks fail for sure, so rejecting a set
+ * never changes which set is found to match. Each of them only needs a few
+ * word-wide operations on the bitmasks from {@link ArgumentTokens}.
+ * <p>
+ * For a rejected set, only the first reason is recorded in the diagnostics.
+ * If no set matches at all, the callers defer the detailed checks for all
+ * sets until the diagnostics are requested (see
+ * {@link Diagnostics#defer(Runnable)}), so a failed check costs no more than
+ * the filter unless someone looks at the diagnostics.
+ * <p>
+ * Instances are immutable once created and can therefore be shared between
+ * threads.
+ */
+final class SetFilter {
+
+    private final static String CLASS = "SetFilter";
+    private final OptionDispatcher dispatcher;
+    private final OptionSet[] sets;
+    private final long[][] allowed;
+    private final long[][] required;
+    //.... The groups for each set, together with what to report if a group is missing
+    //     (the OptionData for a required option, or the ExclusiveConstraint)
+    private final long[][][] groups;
+    private final Object[][] reasons;
+
+    /**
+     * Constructor. The sets must be in the same order as for the dispatcher.
+     */
+    SetFilter(OptionDispatcher dispatcher, OptionSet[] sets) {
+
+        if (dispatcher == null) {
+            throw new IllegalArgumentException(CLASS + ": dispatcher may not be null");
+        }
+        if (sets == null) {
+            throw new IllegalArgumentException(CLASS + ": sets may not be null");
+        }
+
+        this.dispatcher = dispatcher;
+        this.sets = sets;
+
+        int words = Bits.words(dispatcher.getShapeCount());
+        allowed = new long[sets.length][words];
+        required = new long[sets.length][words];
+        groups = new long[sets.length][][];
+        reasons = new Object[sets.length][];
+
+        for (int set = 0; set < sets.length; set++) {
+
+            List<long[]> masks = new ArrayList<>();
+            List<Object> sources = new ArrayList<>();
+            List<OptionData> options = sets[set].getOptionData();
+
+            for (int ordinal = 0; ordinal < options.size(); ordinal++) {
+                OptionData od = options.get(ordinal);
+                int[] shapes = dispatcher.getShapes(set, ordinal);
+                for (int shape : shapes) {
+                    Bits.set(allowed[set], shape);
+                }
+                if (od.isMandatory() && !od.isExclusive()) {
+                    if (shapes.length == 1) {
+                        Bits.set(required[set], shapes[0]);
+                    } else {
+                        masks.add(mask(words, shapes));
+                        sources.add(od);
+                    }
+                }
+            }
+
+            if (sets[set].getConstraints() != null) {
+                for (Constraint constraint : sets[set].getConstraints()) {
+                    if (constraint instanceof ExclusiveConstraint) {
+                        long[] mask = new long[words];
+                        for (OptionData od : ((ExclusiveConstraint) constraint).getOptionData()) {
+                            for (int shape : dispatcher.getShapes(set, od.getOrdinal())) {
+                                Bits.set(mask, shape);
+                            }
+                        }
+                        masks.add(mask);
+                        sources.add(constraint);
+                    }
+                }
+            }
+
+            groups[set] = masks.toArray(new long[0][]);
+            reasons[set] = sources.toArray();
+
+        }
+
+    }
+
+    //.... Helper method: a bitmask with the given shapes
+    private static long[] mask(int words, int[] shapes) {
+        long[] mask = new long[words];
+        for (int shape : shapes) {
+            Bits.set(mask, shape);
+        }
+        return mask;
+    }
+
+    /**
+     * Check whether the given set can match the arguments at all. If not, the
+     * reason is recorded in the diagnostics.
+     * <p>
+     *
+     * @param set             The index of the set
+     * @param tokens          The classified command line arguments
+     * @param ignoreUnmatched A boolean to select whether unmatched options can
+     *                        be ignored in the checks or not
+     * @param prefix          The prefix for options
+     * @param diagnostics     The buffer collecting the diagnostics
+     *                        <p>
+     * @return A boolean indicating whether the detailed checks need to be run
+     * for the set
+     */
+    boolean accepts(int set, ArgumentTokens tokens, boolean ignoreUnmatched, Options.Prefix prefix, Diagnostics diagnostics) {
+
+        //.... Without arguments, the detailed checks take some shortcuts (e. g. for purely optional sets)
+        if (tokens.getLength() == 0) {
+            return true;
+        }
+
+        String name = sets[set].getName();
+        long[] present = tokens.getPresent();
+        long[] single = tokens.getSingle();
+        long[] allowedMask = allowed[set];
+        long[] requiredMask = required[set];
+
+        //.... A required option is missing
+        int missing = Bits.firstMissing(requiredMask, present);
+        if (missing >= 0) {
+            String key = sets[set].getOptionData().get(dispatcher.getOrdinal(set, missing)).getKey();
+            diagnostics.add(new Diagnostic(Diagnostic.Code.CHECKING_SET, name, -1, null, null));
+            diagnostics.add(new Diagnostic(Diagnostic.Code.WRONG_MULTIPLICITY, name, -1, key, prefix.getName() + key));
+            return false;
+        }
+
+        for (int group = 0; group < groups[set].length; group++) {
+            if (!Bits.intersects(groups[set][group], present)) {
+                diagnostics.add(new Diagnostic(Diagnostic.Code.CHECKING_SET, name, -1, null, null));
+                if (reasons[set][group] instanceof OptionData) {
+                    String key = ((OptionData) reasons[set][group]).getKey();
+                    diagnostics.add(new Diagnostic(Diagnostic.Code.WRONG_MULTIPLICITY, name, -1, key, prefix.getName() + key));
+                } else {
+                    diagnostics.add(new Diagnostic(Diagnostic.Code.SET_CONSTRAINT_VIOLATED, name, -1, null, reasons[set][group]));
+                }
+                return false;
+            }
+        }
+
+        if (ignoreUnmatched) {
+            return true;
+        }
+
+        //.... An argument with a prefix does not match any option of the set
+        int foreign = tokens.getUnknown();
+        if (foreign < 0) {
+            int extra = Bits.firstMissing(single, allowedMask);
+            if (extra >= 0) {
+                foreign = tokens.getFirstArgument(extra);
+            }
+        }
+        if (foreign < 0) {
+            for (int k = 0; k < tokens.getAmbiguousCount(); k++) {
+                int index = tokens.getAmbiguous(k);
+                boolean match = false;
+                for (int i = tokens.getShapeStart(index); i < tokens.getShapeStart(index + 1) && !match; i++) {
+                    match = dispatcher.getOrdinal(set, tokens.getShape(i)) >= 0;
+                }
+                if (!match) {
+                    foreign = index;
+                    break;
+                }
+            }
+        }
+
+        if (foreign >= 0) {
+            diagnostics.add(new Diagnostic(Diagnostic.Code.CHECKING_SET, name, -1, null, null));
+            diagnostics.add(new Diagnostic(Diagnostic.Code.UNMATCHED_OPTION, name, foreign, null,
+                    tokens.getArgument(foreign)));
+            return false;
+        }
+
+        return true;
+
+    }
+}
@@ -1,8 +1,11 @@
 package org.ml.options;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.jdom2.Element;
 
 /**
@@ -38,6 +41,10 @@ public class ValueConstraint implements XMLConstraint {
     private boolean caseSensitive = true;
     private Type type = null;
     private OptionData optionData = null;
+    //.... The compiled form of the acceptable values, built once by compile(): a hash set of the
+    //     (case-folded, if required) strings, and the int values sorted for a binary search
+    private Set<String> s_set = null;
+    private int[] i_sorted = null;
 
     /**
      * The public no-org constructor. This is a prereq for all constraints since
@@ -207,10 +214,11 @@ public class ValueConstraint implements XMLConstraint {
         if (values.length == 0) {
             throw new IllegalArgumentException(CLASS + ": values must contain at least one element");
         }
-        s_values = values;
+        s_values = values.clone();
         type = Type.STRING_ARRAY;
         this.caseSensitive = caseSensitive;
         this.optionData = optionData;
+        compile();
     }
 
     /**
@@ -227,9 +235,10 @@ public class ValueConstraint implements XMLConstraint {
         if (values.length == 0) {
             throw new IllegalArgumentException(CLASS + ": values must contain at least one element");
         }
-        i_values = values;
+        i_values = values.clone();
         type = Type.INT_ARRAY;
         this.optionData = optionData;
+        compile();
     }
 
     /**
@@ -323,6 +332,54 @@ public class ValueConstraint implements XMLConstraint {
 
         }
 
+        compile();
+
+    }
+
+    /**
+     * Helper method: compile the acceptable values into a form which allows
+     * to check a value in constant (strings) or logarithmic (ints) time
+     */
+    private void compile() {
+
+        switch (type) {
+
+            case STRING_ARRAY:
+
+                s_set = new HashSet<>();
+                for (String s : s_values) {
+                    if (s == null) {
+                        throw new IllegalArgumentException(CLASS + ": values may not contain null");
+                    }
+                    s_set.add(caseSensitive ? s : fold(s));
+                }
+                break;
+
+            case INT_ARRAY:
+
+                i_sorted = i_values.clone();
+                Arrays.sort(i_sorted);
+                break;
+
+            default:
+
+                break;
+
+        }
+
+    }
+
+    /**
+     * Helper method: fold the case of a string such that two strings are equal
+     * after folding exactly if <code>String.equalsIgnoreCase()</code> considers
+     * them equal
+     */
+    private static String fold(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
     }
 
     /**
@@ -333,70 +390,81 @@ public class ValueConstraint implements XMLConstraint {
      */
     @Override
     public boolean isSatisfied() {
+        return isSatisfied(optionData.getResult());
+    }
 
-        String test;
+    /**
+     * The actual check routine for the results of one particular check
+     * <p>
+     *
+     * @param result The results of the check
+     * @return A boolean indicating whether the constraint is satisfied or not
+     */
+    @Override
+    public boolean isSatisfied(ParseResult result) {
+        return isSatisfied(result.getResult(optionData));
+    }
+
+    //.... Helper method: check the values found for the option
+    private boolean isSatisfied(OptionResult result) {
 
-        for (int i = 0; i < optionData.getResultCount(); i++) {
+        int outcome;
+        for (int i = 0; i < result.getCount(); i++) {
+            outcome = checkValue(result, i);
+            if (outcome != 0) {
+                return outcome > 0;
+            }
+        }
 
-            test = optionData.getResultValue(i);
+        return false;
 
-            switch (type) {
+    }
 
-                case STRING_ARRAY:
+    /**
+     * Check a single value found for the option. The constraint is satisfied
+     * by the first acceptable value, unless a value which is not an integer at
+     * all is found before (for the integer types).
+     * <p>
+     *
+     * @param result The values found for the option
+     * @param index  The index of the value to check
+     *               <p>
+     * @return <code>1</code> if the value satisfies the constraint,
+     * <code>-1</code> if it makes the constraint fail for sure, and
+     * <code>0</code> if the outcome depends on the values following
+     */
+    int checkValue(OptionResult result, int index) {
 
-                    if (caseSensitive) {
-                        for (String s : s_values) {
-                            if (s.equals(test)) {
-                                return true;
-                            }
-                        }
-                    } else {
-                        for (String s : s_values) {
-                            if (s.equalsIgnoreCase(test)) {
-                                return true;
-                            }
-                        }
-                    }
+        switch (type) {
 
-                    break;
+            case STRING_ARRAY:
 
-                case INT_ARRAY:
+                String test = result.getValue(index);
+                return s_set.contains(caseSensitive ? test : fold(test)) ? 1 : 0;
 
-                    int t;
-                    try {
-                        t = Integer.parseInt(test);
-                    } catch (NumberFormatException ex) {
-                        return false;
-                    }
+            case INT_ARRAY:
 
-                    for (int ii : i_values) {
-                        if (ii == t) {
-                            return true;
-                        }
-                    }
+                if (!result.isInt(index)) {                 // Converted only once, see OptionResult
+                    return -1;
+                }
 
-                    break;
+                return Arrays.binarySearch(i_sorted, result.getInt(index)) >= 0 ? 1 : 0;
 
-                case INT_RANGE:
+            case INT_RANGE:
 
-                    try {
-                        t = Integer.parseInt(test);
-                    } catch (NumberFormatException ex) {
-                        return false;
-                    }
+                if (!result.isInt(index)) {
+                    return -1;
+                }
 
-                    if ((t >= imin) && (t <= imax)) {
-                        return true;
-                    }
+                int t = result.getInt(index);
+                return (t >= imin) && (t <= imax) ? 1 : 0;
 
-                    break;
+            default:
 
-            }
+                return 0;
 
         }
 
-        return false;
-
     }
 
     /**
@@ -427,6 +495,42 @@ public class ValueConstraint implements XMLConstraint {
         return type;
     }
 
+    /**
+     * Return the acceptable values for <code>STRING_ARRAY</code>
+     */
+    String[] getStrings() {
+        return s_values;
+    }
+
+    /**
+     * Return the acceptable values for <code>INT_ARRAY</code>
+     */
+    int[] getInts() {
+        return i_values;
+    }
+
+    /**
+     * Return the minimum value for <code>INT_RANGE</code>
+     */
+    int getMin() {
+        return imin;
+    }
+
+    /**
+     * Return the maximum value for <code>INT_RANGE</code>
+     */
+    int getMax() {
+        return imax;
+    }
+
+    /**
+     * Return whether the values for <code>STRING_ARRAY</code> are compared
+     * case sensitive
+     */
+    boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
     /**
      * This is the overloaded {@link Object#toString()} method
      * <p>
@@ -0,0 +1,169 @@
+package org.ml.options;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.XMLReaderSchemaFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * The loader for XML files defining option sets and options used by
+ * {@link Options#Options(String[], java.io.Reader)}. The file is read into a
+ * JDOM document (validated against the schema at the same time), from which
+ * sets, options and constraints are created.
+ * <p>
+ * All uses of JDOM are kept in this class and in {@link XMLOptionsHandler}, so
+ * JDOM is only loaded when XML files are actually processed, and
+ * {@link Options} can be used without it otherwise (e. g. by classes
+ * generated by {@link OptionsCodeGenerator}, or with {@link OptionsSnapshot}).
+ */
+final class XMLDocumentLoader {
+
+    private final static String CLASS = "Options";      // The messages are those of the constructor
+
+    private XMLDocumentLoader() {
+    }
+
+    /**
+     * Set up option sets and options for the given instance from the XML file
+     * provided by the reader.
+     * <p>
+     *
+     * @param options The instance to set up
+     * @param reader  The reader instance providing the XML file
+     * @throws JDOMException If something went wrong in the JDOM library
+     */
+    static void load(Options options, Reader reader) throws JDOMException {
+
+        if (options == null) {
+            throw new IllegalArgumentException(CLASS + ": options may not be null");
+        }
+        if (reader == null) {
+            throw new IllegalArgumentException(CLASS + ": reader may not be null");
+        }
+
+        //.... Parse the XML document and validate it against the schema at the same time. The validation
+        //     errors are collected by the SchemaValidator instance, the document is only used if there are none.
+        SchemaValidator validator = new SchemaValidator();
+        Document doc;
+
+        try {
+            SAXBuilder builder = new SAXBuilder(new XMLReaderSchemaFactory(SchemaValidator.getSchema()));
+            builder.setErrorHandler(validator);
+            doc = builder.build(reader);
+        } catch (SAXException ex) {
+            throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + ex.getMessage());
+        } catch (JDOMException ex) {
+            if (validator.getError() != null) {             // The document is not even well-formed
+                throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + validator.getError());
+            }
+            throw ex;
+        } catch (IOException ex) {
+            throw new XMLParsingException(CLASS + ": Error while reading XML file!\n" + ex.getMessage());
+        }
+
+        if (validator.getError() != null) {
+            throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + validator.getError());
+        }
+
+        //.... Retrieve the data and create the option sets and options
+
+        //... Process the <options> tag
+        Element root = doc.getRootElement();
+        options.setXMLDefaults(root.getAttributeValue("defData"), root.getAttributeValue("defMult"),
+                root.getAttributeValue("defSep"), root.getAttributeValue("defPrefix"));
+
+        //... Process the <set> tag(s)
+        boolean found = false;
+
+        for (Element element : root.getChildren("set")) {
+            processSet(options.addXMLSet(element.getAttributeValue("name"), element.getAttributeValue("data")), element);
+            found = true;
+        }
+
+        //... Process the <defaultSet> tag (if present)
+        if (root.getChild("defaultSet") != null) {
+            processSet(options.getSet(), root.getChild("defaultSet"));
+            found = true;
+        }
+
+        if (!found) {
+            throw new XMLParsingException(CLASS + ": At least one option set needs to be defined");
+        }
+
+        //.... Process the <option> tags (for addOptionAllSets())
+        for (Element element : root.getChildren("option")) {
+            for (String name : options.getSetNames()) {
+                addOptions(options.getSet(name), element);
+            }
+        }
+
+    }
+
+    //.... Helper method to add the options to a set
+    private static void addOptions(OptionSet set, Element element) {
+
+        String key = element.getAttributeValue("key");
+
+        Options.addXMLOption(set, element.getAttributeValue("type"), key, element.getAttributeValue("altKey"),
+                element.getAttributeValue("mult"));
+
+        //.... Add texts, if necessary
+        if (element.getChild("text") != null) {   // Texts for this set
+            Element textElement = element.getChild("text");
+            Options.setXMLTexts(set.getOption(key), textElement.getChildText("value"), textElement.getChildText("detail"),
+                    textElement.getChildText("help"));
+        }
+
+        //.... Add constraints, if necessary. Only instances of XMLConstraint are possible here, of course
+        if (element.getChild("constraints") != null) {   // Constraints for this option
+            for (Element constraint : element.getChild("constraints").getChildren("constraint")) {
+                addConstraint(set.getOption(key), constraint.getAttributeValue("class"),
+                        constraint.getChild("params").getChildren("param"));
+            }
+        }
+
+    }
+
+    /**
+     * Helper method used when adding a set
+     */
+    private static void processSet(OptionSet set, Element element) {
+
+        for (Element subElement : element.getChildren("option")) {
+            addOptions(set, subElement);
+        }
+
+        if (element.getChildren("text") != null) {
+            for (Element subElement : element.getChildren("text")) {
+                Options.addXMLTexts(set, subElement.getAttributeValue("index"), subElement.getChildText("data"),
+                        subElement.getChildText("help"));
+            }
+        }
+
+        if (element.getChild("constraints") != null) {   // Constraints for this set
+            for (Element constraint : element.getChild("constraints").getChildren("constraint")) {
+                addConstraint(set, constraint.getAttributeValue("class"),
+                        constraint.getChild("params").getChildren("param"));
+            }
+        }
+    }
+
+    /**
+     * Create a constraint for a <code>&lt;constraint&gt;</code> tag (also used
+     * by {@link XMLOptionsHandler}). Only instances of {@link XMLConstraint}
+     * are possible here, of course.
+     */
+    static void addConstraint(Constrainable constrainable, String className, List<Element> params) {
+        try {
+            XMLConstraint constr = (XMLConstraint) Class.forName(className.trim()).newInstance();
+            constr.init(constrainable, params);
+        } catch (InstantiationException | ClassNotFoundException | IllegalAccessException ex) {
+            throw new XMLParsingException(CLASS + ": Could not create constraint instance", ex);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package org.ml.options;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.ValidatorHandler;
+import org.jdom2.Element;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The streaming loader for XML files defining option sets and options (see
+ * {@link Options#fromXML(String[], java.io.Reader)}). The SAX events of the
+ * parser pass a <code>ValidatorHandler</code> for the schema first, and are
+ * then turned into sets, options and constraints right away. Only the data of
+ * the option or set currently being read is kept: options are created at the
+ * end of their <code>&lt;option&gt;</code> tag, texts and constraints of a
+ * set at the end of the set. The <code>&lt;option&gt;</code> tags for all sets
+ * are collected and added once the whole file has been read.
+ * <p>
+ * The order in which things are created is the same as in
+ * {@link Options#Options(String[], java.io.Reader)}, and both use the same
+ * helper methods, so the results are identical.
+ */
+final class XMLOptionsHandler extends DefaultHandler {
+
+    private final static String CLASS = "XMLOptionsHandler";
+    private final Options options;
+    private final SchemaValidator validator;
+    private final Deque<String> path = new ArrayDeque<>();   // The names of the open elements
+    private final List<OptionDefinition> allSets = new ArrayList<>();
+    private boolean found = false;
+    //.... The data of the set or option currently being read
+    private OptionSet set = null;
+    private final List<String[]> setTexts = new ArrayList<>();
+    private final List<ConstraintDefinition> setConstraints = new ArrayList<>();
+    private OptionDefinition option = null;
+    private ConstraintDefinition constraint = null;
+    private String[] texts = null;                                // value, detail, help or data, help
+    //.... The text content of the element currently being read (if any)
+    private StringBuilder text = null;
+
+    /**
+     * The data found for an option
+     */
+    private static class OptionDefinition {
+
+        private String type;
+        private String key;
+        private String altKey;
+        private String mult;
+        private String[] texts = null;
+        private List<ConstraintDefinition> constraints = new ArrayList<>();
+
+        //.... Create the option in the given set
+        void addTo(OptionSet set) {
+            Options.addXMLOption(set, type, key, altKey, mult);
+            if (texts != null) {
+                Options.setXMLTexts(set.getOption(key), texts[0], texts[1], texts[2]);
+            }
+            for (ConstraintDefinition definition : constraints) {
+                definition.addTo(set.getOption(key));
+            }
+        }
+    }
+
+    /**
+     * The data found for a constraint
+     */
+    private static class ConstraintDefinition {
+
+        private String className;
+        private List<Element> params = new ArrayList<>();
+
+        //.... Create the constraint for the given set or option
+        void addTo(Constrainable constrainable) {
+            XMLDocumentLoader.addConstraint(constrainable, className, params);
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    private XMLOptionsHandler(Options options, SchemaValidator validator) {
+        this.options = options;
+        this.validator = validator;
+    }
+
+    /**
+     * Set up option sets and options for the given instance from the XML file
+     * provided by the reader.
+     * <p>
+     *
+     * @param options The instance to set up
+     * @param reader  The reader instance providing the XML file
+     */
+    static void load(Options options, Reader reader) {
+
+        if (options == null) {
+            throw new IllegalArgumentException(CLASS + ": options may not be null");
+        }
+        if (reader == null) {
+            throw new IllegalArgumentException(CLASS + ": reader may not be null");
+        }
+
+        SchemaValidator validator = new SchemaValidator();
+        XMLOptionsHandler handler = new XMLOptionsHandler(options, validator);
+
+        try {
+
+            ValidatorHandler validatorHandler = SchemaValidator.getSchema().newValidatorHandler();
+            validatorHandler.setErrorHandler(validator);
+            validatorHandler.setContentHandler(handler);
+
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+            xmlReader.setContentHandler(validatorHandler);
+            xmlReader.setErrorHandler(validator);
+            xmlReader.parse(new InputSource(reader));
+
+        } catch (SAXException | ParserConfigurationException ex) {
+            if (validator.getError() != null) {
+                throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + validator.getError());
+            }
+            throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + ex.getMessage());
+        } catch (IOException ex) {
+            throw new XMLParsingException(CLASS + ": Error while reading XML file!\n" + ex.getMessage());
+        }
+
+        if (validator.getError() != null) {
+            throw new XMLParsingException(CLASS + ": Error in XML file validation against schema!\n" + validator.getError());
+        }
+
+        handler.finish();
+
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+
+        checkValid();
+
+        String name = localName.isEmpty() ? qName : localName;
+        String parent = path.peek();
+        path.push(name);
+
+        if (parent == null) {                                   // The <options> tag
+            options.setXMLDefaults(attributes.getValue("defData"), attributes.getValue("defMult"),
+                    attributes.getValue("defSep"), attributes.getValue("defPrefix"));
+            return;
+        }
+
+        switch (name) {
+            case "set":
+                if (path.size() == 2) {
+                    set = options.addXMLSet(attributes.getValue("name"), attributes.getValue("data"));
+                    found = true;
+                }
+                break;
+            case "defaultSet":
+                if (path.size() == 2) {
+                    set = options.getSet();
+                    found = true;
+                }
+                break;
+            case "option":
+                option = new OptionDefinition();
+                option.type = attributes.getValue("type");
+                option.key = attributes.getValue("key");
+                option.altKey = attributes.getValue("altKey");
+                option.mult = attributes.getValue("mult");
+                break;
+            case "text":
+                if (parent.equals("option")) {                      // value, detail, help
+                    texts = new String[3];
+                    option.texts = texts;
+                } else {                                            // index, data, help
+                    texts = new String[]{attributes.getValue("index"), null, null};
+                    setTexts.add(texts);
+                }
+                break;
+            case "constraint":
+                constraint = new ConstraintDefinition();
+                constraint.className = attributes.getValue("class");
+                if (option != null) {
+                    option.constraints.add(constraint);
+                } else {
+                    setConstraints.add(constraint);
+                }
+                break;
+            case "param":
+                Element param = new Element("param");               // Constraints are initialized with JDOM elements
+                if (attributes.getValue("name") != null) {
+                    param.setAttribute("name", attributes.getValue("name"));
+                }
+                if (attributes.getValue("value") != null) {
+                    param.setAttribute("value", attributes.getValue("value"));
+                }
+                constraint.params.add(param);
+                break;
+            case "value":
+            case "detail":
+            case "help":
+            case "data":
+                if (parent.equals("text")) {
+                    text = new StringBuilder();
+                }
+                break;
+            default:
+                break;
+        }
+
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (text != null) {
+            text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+
+        checkValid();
+
+        String name = path.pop();
+
+        switch (name) {
+            case "set":
+            case "defaultSet":
+                if (path.size() == 1) {                             // Texts and constraints come after all options
+                    for (String[] definition : setTexts) {
+                        Options.addXMLTexts(set, definition[0], definition[1], definition[2]);
+                    }
+                    for (ConstraintDefinition definition : setConstraints) {
+                        definition.addTo(set);
+                    }
+                    setTexts.clear();
+                    setConstraints.clear();
+                    set = null;
+                }
+                break;
+            case "option":
+                if (set != null) {
+                    option.addTo(set);
+                } else {                                            // For all sets, added at the end
+                    allSets.add(option);
+                }
+                option = null;
+                break;
+            case "text":
+                texts = null;
+                break;
+            case "constraint":
+                constraint = null;
+                break;
+            case "value":
+            case "detail":
+            case "help":
+            case "data":
+                if (text != null) {
+                    setText(name, text.toString());
+                    text = null;
+                }
+                break;
+            default:
+                break;
+        }
+
+    }
+
+    //.... Helper method: the checks and additions which require the whole file to be read
+    private void finish() {
+
+        if (!found) {
+            throw new XMLParsingException(CLASS + ": At least one option set needs to be defined");
+        }
+
+        for (OptionDefinition definition : allSets) {
+            for (String name : options.getSetNames()) {
+                definition.addTo(options.getSet(name));
+            }
+        }
+
+    }
+
+    //.... Helper method: store the text of an element within a <text> tag. Only the first one counts.
+    private void setText(String name, String value) {
+        int index;
+        if (option != null) {
+            index = name.equals("value") ? 0 : name.equals("detail") ? 1 : name.equals("help") ? 2 : -1;
+        } else {
+            index = name.equals("data") ? 1 : name.equals("help") ? 2 : -1;
+        }
+        if (index >= 0 && texts[index] == null) {
+            texts[index] = value;
+        }
+    }
+
+    //.... Helper method: stop as soon as the document has turned out to be invalid
+    private void checkValid() throws SAXException {
+        if (validator.getError() != null) {
+            throw new SAXException(CLASS + ": invalid XML file");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the expansion of argument files in both formats, and the errors
+ * for malformed files.
+ */
+class ArgumentFilesTest {
+
+    @TempDir
+    Path directory;
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void whitespaceSeparated() throws IOException {
+        Path file = write("args.txt", "-v  --out\t'a file'\n\"say \\\"hi\\\"\" x'y z'w \u00e4\r\n");
+        String[] args = {"first", "@" + file, "@@literal", "@", "last"};
+        assertArrayEquals(new String[]{"first", "-v", "--out", "a file", "say \"hi\"", "xy zw", "\u00e4",
+                "@literal", "@", "last"}, ArgumentFiles.expand(args));
+    }
+
+    @Test
+    void nulSeparated() throws IOException {
+        Path file = write("args.bin", "a b\u0000\u0000'c'\u0000d");
+        assertArrayEquals(new String[]{"a b", "", "'c'", "d"}, ArgumentFiles.read(file));
+        assertArrayEquals(new String[0], ArgumentFiles.read(write("empty.bin", "")));
+    }
+
+    @Test
+    void iteratorDecodesLazily() throws IOException {
+        Path file = write("bad.txt", "one two 'three");
+        Iterator<String> iterator = ArgumentFiles.iterator(file);
+        assertEquals("one", iterator.next());
+        assertEquals("two", iterator.next());
+        assertThrows(UncheckedIOException.class, iterator::next);           // Only once it is reached
+        assertThrows(IOException.class, () -> ArgumentFiles.read(file));
+        assertThrows(IOException.class, () -> ArgumentFiles.expand(new String[]{"@" + directory.resolve("none")}));
+    }
+
+    @Test
+    void optionsFromArgumentFile() throws IOException {
+        Path file = write("args.txt", "-x -y\nd1 d2\n");
+        Options options = Options.withArgumentFiles(new String[]{"@" + file});
+        OptionSet set = addSet(options);
+        assertTrue(options.check("b"), options.getCheckErrors());
+        assertTrue(set.isSet("y"));
+        assertFalse(set.isSet("z"));
+        assertEquals(Arrays.asList("d1", "d2"), set.getData());
+    }
+
+    //.... Helper method: the definitions of set "b" of the fixtures
+    private static OptionSet addSet(Options options) {
+        OptionSet b = options.addSet("b", 1, 2);
+        b.addOption(OptionData.Type.SIMPLE, "x", Options.Multiplicity.ONCE);
+        b.addOption(OptionData.Type.SIMPLE, "y");
+        b.addOption(OptionData.Type.SIMPLE, "z");
+        ExclusiveConstraint.add(b, Options.Multiplicity.ONCE, "y", "z");
+        return b;
+    }
+}
@@ -0,0 +1,97 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the positions of detail and value found by the argument scanner,
+ * and that classifying arguments with a reused {@link ArgumentTokens}
+ * instance does not allocate any memory.
+ */
+class ArgumentTokensTest {
+
+    private final static String[] ARGS = {"-v", "-o", "file", "-Dkey=value", "-Pname", "x", "-c=red", "--verbose",
+            "data"};
+
+    private static OptionSet build() {
+        Options options = new Options(new String[0]);
+        options.setDefault(Options.Prefix.DASH, Options.Prefix.DOUBLEDASH);
+        OptionSet set = options.getSet();
+        set.addOption(OptionData.Type.SIMPLE, "v", "verbose", Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.VALUE, "o");
+        set.addOption(OptionData.Type.DETAIL, "D", Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.DETAIL, "P", null, Options.Separator.BLANK, Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.VALUE, "c", null, Options.Separator.EQUALS, Options.Multiplicity.ZERO_OR_ONCE);
+        return set;
+    }
+
+    @Test
+    void positionsOfDetailAndValue() {
+
+        OptionDispatcher dispatcher = new OptionDispatcher(Collections.singletonList(build().getOptionData()));
+        ArgumentTokens tokens = new ArgumentTokens(dispatcher, ARGS, 0, ARGS.length, Options.Prefix.DASH,
+                Options.Prefix.DOUBLEDASH, false, false);
+        int[] bounds = new int[OptionDispatcher.BOUNDS];
+
+        assertEquals(0, tokens.match(0, 0, bounds));
+        assertEquals(1, tokens.match(0, 1, bounds));
+        assertEquals(-1, bounds[OptionDispatcher.VALUE_START]);            // The value is the next argument
+        assertEquals(-1, tokens.match(0, 2, bounds));
+
+        assertEquals(2, tokens.match(0, 3, bounds));                      // -Dkey=value
+        assertArrayEquals(new int[]{2, 5, 6, 11}, bounds);
+        assertEquals(3, tokens.match(0, 4, bounds));                      // -Pname
+        assertEquals(2, bounds[OptionDispatcher.DETAIL_START]);
+        assertEquals(6, bounds[OptionDispatcher.DETAIL_END]);
+        assertEquals(-1, bounds[OptionDispatcher.VALUE_START]);
+        assertEquals(4, tokens.match(0, 6, bounds));                      // -c=red
+        assertEquals(3, bounds[OptionDispatcher.VALUE_START]);
+        assertEquals(6, bounds[OptionDispatcher.VALUE_END]);
+        assertEquals(0, tokens.match(0, 7, bounds));                      // --verbose
+        assertEquals(-1, tokens.match(0, 8, bounds));
+
+    }
+
+    @Test
+    void reusedScannerDoesNotAllocate() {
+
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "Allocations of a thread can not be measured");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+
+        OptionDispatcher dispatcher = new OptionDispatcher(Collections.singletonList(build().getOptionData()));
+        ArgumentTokens tokens = new ArgumentTokens();
+        int[] bounds = new int[OptionDispatcher.BOUNDS];
+        int sum = 0;
+        for (int i = 0; i < 1000; i++) {                    // Size the buffers, and let the JIT do its work
+            sum += classify(tokens, dispatcher, bounds);
+        }
+
+        long start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 10000; i++) {
+            sum += classify(tokens, dispatcher, bounds);
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - start;
+
+        assertTrue(sum != 0);
+        assertTrue(allocated < 10000, "Allocated " + allocated + " bytes");     // Less than one byte per call
+
+    }
+
+    //.... Helper method: classify all arguments and match them
+    private static int classify(ArgumentTokens tokens, OptionDispatcher dispatcher, int[] bounds) {
+        tokens.classify(dispatcher, ARGS, 0, ARGS.length, Options.Prefix.DASH, Options.Prefix.DOUBLEDASH, false, false);
+        int sum = 0;
+        for (int i = 0; i < ARGS.length; i++) {
+            sum += tokens.match(0, i, bounds);
+        }
+        return sum;
+    }
+}
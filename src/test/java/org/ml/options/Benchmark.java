@@ -0,0 +1,123 @@
+package org.ml.options;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * A small harness for the benchmarks next to it. The benchmarks are plain
+ * programs rather than tests (so they are not run by the build), e. g.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.ml.options.SnapshotBenchmark
+ * </pre>
+ * An operation is run for a number of warm-up rounds first, then for a
+ * number of measured rounds, and the median over the measured rounds is
+ * reported. The figures depend on the machine, of course; they are meant to
+ * compare the variants measured by the same run.
+ */
+final class Benchmark {
+
+    private final static String CLASS = "Benchmark";
+    private final static int WARMUP_ROUNDS = 5;
+    private final static int ROUNDS = 10;
+
+    private Benchmark() {
+    }
+
+    /**
+     * An operation to measure
+     */
+    interface Operation {
+
+        void run() throws Exception;
+    }
+
+    /**
+     * Measure the time per invocation of an operation, and print it
+     * <p>
+     *
+     * @param label       The label for the output
+     * @param invocations The number of invocations per round
+     * @param operation   The operation to measure
+     *                    <p>
+     * @return The median time per invocation, in nanoseconds
+     * @throws Exception If the operation fails
+     */
+    static double time(String label, int invocations, Operation operation) throws Exception {
+
+        if (invocations <= 0) {
+            throw new IllegalArgumentException(CLASS + ": invocations must be > 0");
+        }
+
+        double[] rounds = new double[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < invocations; i++) {
+                operation.run();
+            }
+            if (round >= 0) {
+                rounds[round] = (double) (System.nanoTime() - start) / invocations;
+            }
+        }
+
+        double result = median(rounds);
+        System.out.printf("%-48s %12.1f ns/op%n", label, result);
+        return result;
+
+    }
+
+    /**
+     * Measure the heap memory allocated per invocation of an operation by the
+     * current thread, and print it. This requires a JVM which supports
+     * measuring the allocations of a thread (such as HotSpot); otherwise,
+     * <code>-1</code> is returned.
+     * <p>
+     *
+     * @param label       The label for the output
+     * @param invocations The number of invocations per round
+     * @param operation   The operation to measure
+     *                    <p>
+     * @return The median number of bytes allocated per invocation
+     * @throws Exception If the operation fails
+     */
+    static double allocation(String label, int invocations, Operation operation) throws Exception {
+
+        if (invocations <= 0) {
+            throw new IllegalArgumentException(CLASS + ": invocations must be > 0");
+        }
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.printf("%-48s %12s%n", label, "n/a");
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+
+        double[] rounds = new double[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = threads.getThreadAllocatedBytes(id);
+            for (int i = 0; i < invocations; i++) {
+                operation.run();
+            }
+            if (round >= 0) {
+                rounds[round] = (double) (threads.getThreadAllocatedBytes(id) - start) / invocations;
+            }
+        }
+
+        double result = median(rounds);
+        System.out.printf("%-48s %12.1f bytes/op%n", label, result);
+        return result;
+
+    }
+
+    /**
+     * Return the median of the given values (the array is sorted)
+     */
+    static double median(double[] values) {
+        Arrays.sort(values);
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+}
@@ -0,0 +1,85 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the data items of a set with streaming data: the command line data
+ * continued by a stream or an iterator, and the number of items checked
+ * while they are read.
+ */
+class DataItemsTest {
+
+    //.... A set with 2 to 4 data items, which may partly come from a stream
+    private static OptionSet check(String... args) {
+        Options options = new Options(args);
+        OptionSet set = options.addSet("s", 2, 4).setStreamingData(true);
+        set.addOption(OptionData.Type.SIMPLE, "v", Options.Multiplicity.ZERO_OR_ONCE);
+        assertTrue(options.check("s"), options.getCheckErrors());
+        return set;
+    }
+
+    private static ByteArrayInputStream stream(String items) {
+        return new ByteArrayInputStream(items.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void commandLineFollowedByStream() {
+        OptionSet set = check("-v", "d1");
+        List<String> items = set.getDataItems(stream("s1\u0000s\u00e42\u0000s3")).stream()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("d1", "s1", "s\u00e42", "s3"), items);
+    }
+
+    @Test
+    void commandLineFollowedByIterator() {
+        OptionSet set = check("d1", "d2");
+        DataItems items = set.getDataItems(Arrays.asList("i1", "i2").iterator());
+        assertEquals("d1", items.next());
+        assertEquals("d2", items.next());
+        assertEquals("i1", items.next());
+        assertEquals(3, items.getCount());
+        items.finish();
+        assertEquals(4, items.getCount());
+    }
+
+    @Test
+    void tooManyItems() {
+        OptionSet set = check("d1");
+        DataItems items = set.getDataItems(stream("s1\u0000s2\u0000s3\u0000s4\u0000"));
+        for (int i = 0; i < 4; i++) {
+            items.next();
+        }
+        assertTrue(items.hasNext());                                       // Only next() reports the item
+        DataCountException ex = assertThrows(DataCountException.class, items::next);
+        assertEquals(Diagnostic.Code.INVALID_DATA_COUNT, ex.getDiagnostic().getCode());
+        assertFalse(items.hasNext());
+    }
+
+    @Test
+    void tooFewItems() {
+        OptionSet set = check("-v");                                       // Not counted before reading
+        DataItems items = set.getDataItems(stream("s1\u0000"));
+        assertEquals("s1", items.next());
+        assertFalse(items.hasNext());
+        assertThrows(DataCountException.class, items::finish);
+        assertThrows(DataCountException.class,
+                () -> set.getDataItems(stream("s1")).stream().count());
+    }
+
+    @Test
+    void emptyItem() {
+        OptionSet set = check("d1");
+        assertEquals(Arrays.asList("d1", "", "s2"),
+                set.getDataItems(stream("\u0000s2\u0000")).stream().collect(Collectors.toList()));
+    }
+}
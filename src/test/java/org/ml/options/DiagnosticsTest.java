@@ -0,0 +1,87 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the structured diagnostics of failed checks, the limit on their
+ * number, and the error messages assembled from them.
+ */
+class DiagnosticsTest {
+
+    @Test
+    void codesAndPositions() {
+
+        Options options = Fixtures.build(new String[]{"-c=green", "-q", "-o"});
+        assertFalse(options.check("a"));
+
+        List<Diagnostic.Code> codes = new ArrayList<>();
+        for (Diagnostic diagnostic : options.getDiagnostics()) {
+            codes.add(diagnostic.getCode());
+            assertEquals("a", diagnostic.getSetName());
+        }
+        assertEquals(Diagnostic.Code.CHECKING_SET, codes.get(0));
+        assertTrue(codes.contains(Diagnostic.Code.UNMATCHED_OPTION), codes.toString());
+        assertTrue(codes.contains(Diagnostic.Code.MISSING_VALUE_AT_END), codes.toString());
+        assertTrue(codes.contains(Diagnostic.Code.OPTION_CONSTRAINT_VIOLATED), codes.toString());
+
+        List<Integer> unmatched = new ArrayList<>();
+        for (Diagnostic diagnostic : options.getDiagnostics()) {
+            if (diagnostic.getCode() == Diagnostic.Code.UNMATCHED_OPTION) {
+                unmatched.add(diagnostic.getArgumentIndex());
+            } else if (diagnostic.getCode() == Diagnostic.Code.OPTION_CONSTRAINT_VIOLATED) {
+                assertEquals("c", diagnostic.getOptionKey());
+            }
+        }
+        assertEquals(1, (int) unmatched.get(0));                            // -q, the first one
+
+        StringBuilder sb = new StringBuilder();
+        for (Diagnostic diagnostic : options.getDiagnostics()) {
+            sb.append(diagnostic.getMessage()).append('\n');
+        }
+        assertEquals(sb.toString(), options.getCheckErrors());
+        assertThrows(UnsupportedOperationException.class, () -> options.getDiagnostics().clear());
+
+    }
+
+    @Test
+    void dataCount() {
+        Options options = Fixtures.build(new String[]{"-x", "-y", "d1", "d2", "d3"});
+        assertFalse(options.check("b"));
+        boolean found = false;
+        for (Diagnostic diagnostic : options.getDiagnostics()) {
+            found |= diagnostic.getCode() == Diagnostic.Code.INVALID_DATA_COUNT;
+        }
+        assertTrue(found, options.getCheckErrors());
+    }
+
+    @Test
+    void limitedNumber() {
+
+        String[] args = new String[50];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = "-unknown" + i;
+        }
+        Options options = Fixtures.build(args).setMaxDiagnostics(5);
+        assertFalse(options.check("a"));
+        assertEquals(5, options.getDiagnostics().size());
+        assertTrue(options.getCheckErrors().endsWith(" more messages suppressed\n"), options.getCheckErrors());
+
+        options.setMaxDiagnostics(0);
+        assertFalse(options.check("a"));
+        assertTrue(options.getDiagnostics().isEmpty());
+
+        options.reset(new String[]{"-v"});
+        options.setMaxDiagnostics(100);
+        assertTrue(options.check("a"));
+        assertEquals(1, options.getDiagnostics().size());                // Only CHECKING_SET
+        assertThrows(IllegalArgumentException.class, () -> options.setMaxDiagnostics(-1));
+
+    }
+}
@@ -0,0 +1,58 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the trailing data copied in bulk: the arguments following the
+ * end-of-options marker selected with {@link Options#setEndOfOptions(boolean)}
+ * are data, even if they look like options, and the data following the last
+ * option under <code>requireDataLast</code> are kept in order.
+ */
+class EndOfOptionsTest {
+
+    private final static String[] ARGS = {"-v", "--", "-o", "file", "-v", "--"};
+
+    @Test
+    void argumentsAfterMarkerAreData() {
+
+        Options options = Fixtures.build(ARGS).setEndOfOptions(true);
+        OptionSet set = options.getMatchingSet(false, true);
+        assertEquals("a", set.getName(), options.getCheckErrors());
+        assertEquals(1, set.getOption("v").getResultCount());
+        assertFalse(set.isSet("o"));
+        assertEquals(Arrays.asList("-o", "file", "-v", "--"), set.getData());
+
+        OptionsSpec spec = Fixtures.build(new String[0]).setEndOfOptions(true).compile();
+        ParseResult result = spec.parse(ARGS, false, true);
+        assertTrue(result.isSuccess(), result.getCheckErrors());
+        assertEquals(Arrays.asList("-o", "file", "-v", "--"), result.getData());
+
+    }
+
+    @Test
+    void markerIsOffByDefault() {
+        Options options = Fixtures.build(ARGS);
+        assertNull(options.getMatchingSet(false, true), options.getCheckErrors());
+    }
+
+    @Test
+    void trailingDataUnderRequireDataLast() {
+
+        String[] args = {"-x", "-y", "d1", "d2"};
+        OptionSet set = Fixtures.build(args).getMatchingSet(false, true);
+        assertEquals("b", set.getName());
+        assertEquals(Arrays.asList("d1", "d2"), set.getData());
+
+        Options options = Fixtures.build(new String[]{"-v", "d1", "-o", "f", "d2"});
+        assertNull(options.getMatchingSet(false, true));                   // Data before an option
+        options.reset(new String[]{"-v", "-o", "f", "d1", "d2", "d3"});
+        assertEquals(Arrays.asList("d1", "d2", "d3"), options.getMatchingSet(false, true).getData());
+
+    }
+}
@@ -0,0 +1,82 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the fail-fast mode of {@link Options#setFailFast(boolean)}
+ * selects the same set as the regular checks, for an {@link Options}
+ * instance as well as for an {@link OptionsSpec}, and only reports the
+ * violation found first, without parsing the remaining arguments.
+ */
+class FailFastTest {
+
+    private final static String[] ARGUMENTS = {"-x", "-y", "-z", "-k:3", "-k:4", "-k:x", "-c=red", "-c=green",
+            "-c=Blue", "-n", "4", "11", "-v", "-o", "d"};
+
+    @Test
+    void sameOutcomeAsRegularChecks() {
+
+        Random random = new Random(15);
+        OptionsSpec regularSpec = Fixtures.build(new String[0]).compile();
+        OptionsSpec failFastSpec = Fixtures.build(new String[0]).setFailFast(true).compile();
+
+        for (int round = 0; round < 3000; round++) {
+
+            String[] args = new String[random.nextInt(6)];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = ARGUMENTS[random.nextInt(ARGUMENTS.length)];
+            }
+            boolean ignoreUnmatched = random.nextBoolean();
+            String message = Arrays.toString(args) + " " + ignoreUnmatched;
+
+            OptionSet regular = Fixtures.build(args).getMatchingSet(ignoreUnmatched, true);
+            OptionSet failFast = Fixtures.build(args).setFailFast(true).getMatchingSet(ignoreUnmatched, true);
+            String expected = regular == null ? null : regular.getName();
+            assertEquals(expected, failFast == null ? null : failFast.getName(), message);
+
+            ParseResult result = failFastSpec.parse(args, ignoreUnmatched, true);
+            assertEquals(regularSpec.parse(args, ignoreUnmatched, true).isSuccess(), result.isSuccess(), message);
+            if (result.isSuccess()) {
+                assertEquals(expected, result.getSetName(), message);
+            }
+
+        }
+
+    }
+
+    @Test
+    void stopsAtFirstViolation() {
+
+        String[] args = {"-x", "-x", "-y", "-k:4", "d"};
+
+        Options regular = Fixtures.build(args);
+        assertFalse(regular.check("b"));
+        assertEquals(Arrays.asList("d"), regular.getSet("b").getData());   // All arguments have been parsed
+
+        Options failFast = Fixtures.build(args).setFailFast(true);
+        assertFalse(failFast.check("b"));
+        assertTrue(failFast.getSet("b").getData().isEmpty());              // Stopped at the second -x
+        assertFalse(failFast.getSet("b").isSet("y"));
+        assertEquals(1, violations(failFast.getDiagnostics()), failFast.getCheckErrors());
+        assertEquals(regular.getCheckErrors(), failFast.getCheckErrors());
+
+    }
+
+    //.... Helper method: the number of diagnostics which are actual errors
+    private static int violations(List<Diagnostic> diagnostics) {
+        int count = 0;
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.getCode() != Diagnostic.Code.CHECKING_SET) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
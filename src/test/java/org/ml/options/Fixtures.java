@@ -0,0 +1,161 @@
+package org.ml.options;
+
+/**
+ * The definitions and command lines shared by the tests. The definitions
+ * cover all types of options, separators, alternate keys, value constraints
+ * and an exclusive constraint, in two sets.
+ */
+final class Fixtures {
+
+    /**
+     * Command lines which match either set, both or none
+     */
+    final static String[][] COMMAND_LINES = {
+            {},
+            {"-v", "--verbose", "-o", "f.txt", "-Dfoo.bar=baz=q", "-Dx", "d1", "d2"},
+            {"-n", "4", "-n", "5", "-c=red"},
+            {"-c=BLUE", "-n", "11"},
+            {"-c=green"},
+            {"-o"},
+            {"-o", "-v"},
+            {"-Pa.b", "val", "data"},
+            {"-x", "-y", "-k:3", "-k:7", "dd"},
+            {"-x", "-y", "-z", "dd"},
+            {"-x", "-k:4", "-y", "dd"},
+            {"-x", "-y", "dd", "-q"},
+            {"d", "-v"},
+            {"-D=x", "-Da=", "-D.=1", "-k:3"},
+            {"-o=1", "--out", "q", "-Dmulti\nline=3"},
+    };
+
+    /**
+     * Definitions in XML, equivalent to {@link #buildXMLEquivalent(String[])}
+     */
+    final static String XML = "<options defData=\"0:INF\" defSep=\"EQUALS\">"
+            + "<set name=\"a\">"
+            + "<option type=\"SIMPLE\" key=\"v\" altKey=\"verbose\" mult=\"ZERO_OR_MORE\"/>"
+            + "<option type=\"VALUE\" key=\"o\" altKey=\"out\">"
+            + "<text><value>file</value><help>The output file</help></text></option>"
+            + "<option type=\"DETAIL\" key=\"D\" mult=\"ZERO_OR_MORE\"/>"
+            + "<text index=\"0\"><data>input</data><help>The input files</help></text>"
+            + "</set>"
+            + "<set name=\"b\" data=\"1:2\">"
+            + "<option type=\"SIMPLE\" key=\"x\" mult=\"ONCE\"/>"
+            + "<option type=\"SIMPLE\" key=\"y\"/>"
+            + "<option type=\"SIMPLE\" key=\"z\"/>"
+            + "<constraints><constraint class=\"org.ml.options.ExclusiveConstraint\"><params>"
+            + "<param name=\"keys\" value=\"y|z\"/><param name=\"mult\" value=\"ONCE\"/>"
+            + "</params></constraint></constraints>"
+            + "</set>"
+            + "<option type=\"SIMPLE\" key=\"h\" altKey=\"help\" mult=\"ZERO_OR_ONCE\"/>"
+            + "</options>";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Set up the definitions of {@link #XML} in code
+     */
+    static Options buildXMLEquivalent(String[] args) {
+        Options options = new Options(args);
+        options.setDefault(0, Integer.MAX_VALUE);                      // As read from "0:INF"
+        options.setDefault(Options.Separator.EQUALS);
+        OptionSet a = options.addSet("a");
+        a.addOption(OptionData.Type.SIMPLE, "v", "verbose", Options.Multiplicity.ZERO_OR_MORE);
+        a.addOption(OptionData.Type.VALUE, "o", "out").setValueText("file").setHelpText("The output file");
+        a.addOption(OptionData.Type.DETAIL, "D", Options.Multiplicity.ZERO_OR_MORE);
+        a.setDataText(0, "input").setHelpText(0, "The input files");
+        OptionSet b = options.addSet("b", 1, 2);
+        b.addOption(OptionData.Type.SIMPLE, "x", Options.Multiplicity.ONCE);
+        b.addOption(OptionData.Type.SIMPLE, "y");
+        b.addOption(OptionData.Type.SIMPLE, "z");
+        ExclusiveConstraint.add(b, Options.Multiplicity.ONCE, "y", "z");
+        options.addOptionAllSets(OptionData.Type.SIMPLE, "h", "help", Options.Multiplicity.ZERO_OR_ONCE);
+        return options;
+    }
+
+    /**
+     * Set up the definitions for the given command line arguments
+     */
+    static Options build(String[] args) {
+        Options options = new Options(args);
+        options.setDefault(Options.Prefix.DASH, Options.Prefix.DOUBLEDASH);
+        OptionSet a = options.addSet("a", 0, OptionSet.INF);
+        a.addOption(OptionData.Type.SIMPLE, "v", "verbose", Options.Multiplicity.ZERO_OR_MORE);
+        a.addOption(OptionData.Type.VALUE, "o", "out");
+        a.addOption(OptionData.Type.DETAIL, "D", Options.Multiplicity.ZERO_OR_MORE);
+        a.addOption(OptionData.Type.SIMPLE, "Dx");
+        a.addOption(OptionData.Type.VALUE, "n", Options.Multiplicity.ZERO_OR_MORE);
+        ValueConstraint.add(a.getOption("n"), 1, 10);
+        a.addOption(OptionData.Type.VALUE, "c", "color", Options.Separator.EQUALS, Options.Multiplicity.ZERO_OR_ONCE);
+        ValueConstraint.add(a.getOption("c"), new String[]{"red", "Blue"}, false);
+        a.addOption(OptionData.Type.DETAIL, "P", null, Options.Separator.BLANK, Options.Multiplicity.ZERO_OR_MORE);
+        OptionSet b = options.addSet("b", 1, 2);
+        b.addOption(OptionData.Type.SIMPLE, "x", Options.Multiplicity.ONCE);
+        b.addOption(OptionData.Type.SIMPLE, "y");
+        b.addOption(OptionData.Type.SIMPLE, "z");
+        ExclusiveConstraint.add(b, Options.Multiplicity.ONCE, "y", "z");
+        b.addOption(OptionData.Type.VALUE, "k", null, Options.Separator.COLON, Options.Multiplicity.ZERO_OR_MORE);
+        ValueConstraint.add(b.getOption("k"), new int[]{3, 5, 7});
+        return options;
+    }
+
+    /**
+     * Describe the definitions (sets with their data range and texts, options
+     * and the number of constraints)
+     */
+    static String definitions(Options options) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : new java.util.TreeSet<>(options.getSetNames())) {
+            OptionSet set = options.getSet(name);
+            sb.append(name).append(' ').append(set.getMinData()).append(':').append(set.getMaxData())
+                    .append(' ').append(set.acceptsData() ? set.getDataText(0) + '/' + set.getHelpText(0) : "-")
+                    .append(" constraints: ").append(set.getConstraints() == null ? 0 : set.getConstraints().size())
+                    .append('\n');
+            for (OptionData od : set.getOptionData()) {
+                sb.append(od).append("constraints: ")
+                        .append(od.getConstraints() == null ? 0 : od.getConstraints().size()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Describe the outcome of {@link Options#getMatchingSet(boolean, boolean)}
+     * (the set, the results of all its options, data, unmatched arguments
+     * and the errors)
+     */
+    static String describe(Options options, boolean ignoreUnmatched, boolean requireDataLast) {
+        OptionSet set = options.getMatchingSet(ignoreUnmatched, requireDataLast);
+        StringBuilder sb = new StringBuilder();
+        if (set == null) {
+            sb.append("none");
+        } else {
+            sb.append(set.getName());
+            for (OptionData od : set.getOptionData()) {
+                sb.append(' ').append(od.getKey()).append(od.getResultValues()).append(od.getResultDetails());
+            }
+            sb.append(' ').append(set.getData()).append(set.getUnmatched());
+        }
+        return sb.append(" errors: ").append(options.getCheckErrors()).toString();
+    }
+
+    /**
+     * Describe a {@link ParseResult} as {@link #describe(Options, boolean, boolean)}
+     * does for the same definitions
+     */
+    static String describe(OptionsSpec spec, ParseResult result) {
+        StringBuilder sb = new StringBuilder();
+        if (!result.isSuccess()) {
+            sb.append("none");
+        } else {
+            sb.append(result.getSetName());
+            for (OptionData od : spec.getSet(result.getSetName()).getOptionData()) {
+                sb.append(' ').append(od.getKey()).append(result.getResultValues(od.getKey()))
+                        .append(result.getResultDetails(od.getKey()));
+            }
+            sb.append(' ').append(result.getData()).append(result.getUnmatched());
+        }
+        return sb.append(" errors: ").append(result.getCheckErrors()).toString();
+    }
+}
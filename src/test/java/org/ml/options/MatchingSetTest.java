@@ -0,0 +1,86 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link Options#getMatchingSet(boolean, boolean)}, which
+ * classifies the arguments once for all sets, selects the same set with the
+ * same results as checking the sets one after the other. The sets use the
+ * same keys for options of different types, so the arguments are matched
+ * differently for each set.
+ */
+class MatchingSetTest {
+
+    private final static String[] ARGUMENTS = {"-k", "-k=1", "-kx", "-kx=2", "-k:3", "--key", "-v", "-vv", "-vx=4",
+            "value", "data", "-", "--"};
+
+    private static Options build(String[] args) {
+        Options options = new Options(args);
+        options.setDefault(Options.Prefix.DASH, Options.Prefix.DOUBLEDASH);
+        OptionSet a = options.addSet("a", 0, 1);
+        a.addOption(OptionData.Type.SIMPLE, "k", "key", Options.Multiplicity.ZERO_OR_MORE);
+        a.addOption(OptionData.Type.SIMPLE, "v", Options.Multiplicity.ZERO_OR_ONCE);
+        OptionSet b = options.addSet("b", 0, 2);
+        b.addOption(OptionData.Type.VALUE, "k", null, Options.Separator.EQUALS, Options.Multiplicity.ZERO_OR_MORE);
+        b.addOption(OptionData.Type.DETAIL, "v", null, Options.Separator.EQUALS, Options.Multiplicity.ZERO_OR_MORE);
+        OptionSet c = options.addSet("c", 0, OptionSet.INF);
+        c.addOption(OptionData.Type.DETAIL, "k", null, Options.Separator.BLANK, Options.Multiplicity.ZERO_OR_MORE);
+        c.addOption(OptionData.Type.VALUE, "v", Options.Multiplicity.ONCE);
+        OptionSet d = options.addSet("d", 1, 1);
+        d.addOption(OptionData.Type.VALUE, "k", null, Options.Separator.COLON, Options.Multiplicity.ONCE);
+        return options;
+    }
+
+    @Test
+    void sameAsSequentialChecks() {
+
+        Random random = new Random(11);
+
+        for (int round = 0; round < 3000; round++) {
+
+            String[] args = new String[random.nextInt(5)];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = ARGUMENTS[random.nextInt(ARGUMENTS.length)];
+            }
+            boolean ignoreUnmatched = random.nextBoolean();
+            boolean requireDataLast = random.nextBoolean();
+
+            String expected = "none";
+            for (String name : new String[]{"a", "b", "c", "d"}) {
+                Options single = build(args);
+                if (single.check(name, ignoreUnmatched, requireDataLast)) {
+                    expected = describe(single.getSet(name));
+                    break;
+                }
+            }
+
+            Options options = build(args);
+            OptionSet set = options.getMatchingSet(ignoreUnmatched, requireDataLast);
+            assertEquals(expected, set == null ? "none" : describe(set),
+                    Arrays.toString(args) + " " + ignoreUnmatched + " " + requireDataLast);
+
+        }
+
+    }
+
+    @Test
+    void noSetsMatch() {
+        Options options = build(new String[]{"-k:1", "-k:2"});
+        assertNull(options.getMatchingSet());
+        assertEquals("a", options.getMatchingSet(true, true).getName());    // The first one ignoring them
+    }
+
+    //.... Helper method: the results for a set
+    private static String describe(OptionSet set) {
+        StringBuilder sb = new StringBuilder(set.getName());
+        for (OptionData od : set.getOptionData()) {
+            sb.append(' ').append(od.getKey()).append(od.getResultValues()).append(od.getResultDetails());
+        }
+        return sb.append(' ').append(set.getData()).append(set.getUnmatched()).toString();
+    }
+}
@@ -0,0 +1,82 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the multiplicities and exclusive groups, which are evaluated with
+ * bitsets during the checks, against counting the results of each option
+ * (and the former evaluation of {@link ExclusiveConstraint#isSatisfied()}).
+ * Without any arguments, the checks succeed if no option is required.
+ */
+class MultiplicityTest {
+
+    private final static String[] ARGUMENTS = {"-a", "-b", "-c", "-x", "-y", "-z"};
+
+    @Test
+    void sameAsCountingResults() {
+
+        Random random = new Random(13);
+        Options.Multiplicity[] multiplicities = Options.Multiplicity.values();
+
+        for (int round = 0; round < 3000; round++) {
+
+            Options.Multiplicity group = multiplicities[random.nextInt(multiplicities.length)];
+            Options.Multiplicity[] own = new Options.Multiplicity[3];
+            for (int i = 0; i < own.length; i++) {
+                own[i] = multiplicities[random.nextInt(multiplicities.length)];
+            }
+            String[] args = new String[random.nextInt(6)];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = ARGUMENTS[random.nextInt(ARGUMENTS.length)];
+            }
+
+            Options options = new Options(args);
+            OptionSet set = options.getSet();
+            set.addOption(OptionData.Type.SIMPLE, "a", own[0]);
+            set.addOption(OptionData.Type.SIMPLE, "b", own[1]);
+            set.addOption(OptionData.Type.SIMPLE, "c", own[2]);
+            set.addOption(OptionData.Type.SIMPLE, "x");
+            set.addOption(OptionData.Type.SIMPLE, "y");
+            set.addOption(OptionData.Type.SIMPLE, "z");
+            ExclusiveConstraint.add(set, group, "x", "y", "z");
+
+            boolean checked = options.check();                           // The results are kept in any case
+
+            ExclusiveConstraint constraint = (ExclusiveConstraint) set.getConstraints().get(0);
+            List<OptionData> grouped = constraint.getOptionData();
+            boolean expected = constraint.isSatisfied();
+            for (OptionData od : set.getOptionData()) {
+                if (!grouped.contains(od)) {
+                    expected &= fits(od.getMultiplicity(), od.getResultCount());
+                }
+            }
+
+            if (args.length == 0) {                                      // Only if nothing is required at all
+                expected = fits(group, 0) && fits(own[0], 0) && fits(own[1], 0) && fits(own[2], 0);
+            }
+
+            assertEquals(expected, checked, Arrays.toString(args) + " " + Arrays.toString(own) + " " + group);
+
+        }
+
+    }
+
+    //.... Helper method: whether a number of occurrences is allowed by a multiplicity
+    private static boolean fits(Options.Multiplicity multiplicity, int count) {
+        switch (multiplicity) {
+            case ONCE:
+                return count == 1;
+            case ONCE_OR_MORE:
+                return count >= 1;
+            case ZERO_OR_ONCE:
+                return count <= 1;
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the {@link OptionDispatcher} resolves arguments exactly as the
+ * regular expressions did which were used to match the options before: the
+ * same option (the first one defined which matches), the same detail and the
+ * same value.
+ */
+class OptionDispatcherTest {
+
+    private final static String CHARS = "abDx_1.=:-/\n\r\u2028 ";
+
+    @Test
+    void matchesAsRegularExpressions() {
+
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+
+            Options options = new Options(new String[0]);
+            OptionSet other = options.addSet("other");
+            OptionSet set = options.addSet("set");
+            Set<String> used = new HashSet<>();
+            for (int i = 0; i < 8; i++) {
+                String key = key(random);
+                String altKey = random.nextBoolean() ? key(random) : null;
+                if (used.contains(key) || (altKey != null && used.contains("#" + altKey))) {
+                    continue;
+                }
+                used.add(key);
+                if (altKey != null) {
+                    used.add("#" + altKey);
+                }
+                set.addOption(OptionData.Type.values()[random.nextInt(3)], key, altKey,
+                        Options.Separator.values()[random.nextInt(3)], Options.Multiplicity.ZERO_OR_MORE);
+            }
+            other.addOption(OptionData.Type.VALUE, key(random), null, Options.Separator.EQUALS,
+                    Options.Multiplicity.ZERO_OR_MORE);
+
+            //.... The set is the second one in the dispatcher, so shapes shared with the first one are covered
+            OptionDispatcher dispatcher = new OptionDispatcher(Arrays.asList(other.getOptionData(),
+                    set.getOptionData()));
+            List<OptionData> optionData = set.getOptionData();
+            int[] bounds = new int[OptionDispatcher.BOUNDS];
+
+            for (int j = 0; j < 500; j++) {
+
+                StringBuilder sb = new StringBuilder(random.nextBoolean() ? "-" : "--");
+                int length = random.nextInt(8);
+                for (int k = 0; k < length; k++) {
+                    sb.append(CHARS.charAt(random.nextInt(CHARS.length())));
+                }
+                String arg = sb.toString();
+
+                int expected = -1;
+                String expectedDetail = null;
+                String expectedValue = null;
+                for (int i = 0; i < optionData.size() && expected < 0; i++) {
+                    OptionData od = optionData.get(i);
+                    Matcher matcher = pattern(od).matcher(arg);
+                    if (matcher.lookingAt()) {
+                        expected = i;
+                        int group = od.hasAlternateKey() ? 2 : 1;
+                        if (od.useDetail()) {
+                            expectedDetail = matcher.group(group);
+                            group += 2;
+                        }
+                        if (od.useValue() && od.getSeparator() != Options.Separator.BLANK) {
+                            expectedValue = matcher.group(group);
+                        }
+                    }
+                }
+
+                ArgumentTokens tokens = new ArgumentTokens(dispatcher, new String[]{arg}, 0, 1, Options.Prefix.DASH,
+                        Options.Prefix.DOUBLEDASH, false, false);
+                int found = tokens.match(1, 0, bounds);
+                String message = "Argument " + arg.replace("\n", "\\n").replace("\r", "\\r");
+                assertEquals(expected, found, message);
+                if (found >= 0) {
+                    OptionData od = optionData.get(found);
+                    assertEquals(expectedDetail, od.useDetail() ? arg.substring(bounds[OptionDispatcher.DETAIL_START],
+                            bounds[OptionDispatcher.DETAIL_END]) : null, message);
+                    assertEquals(expectedValue, od.useValue() && od.getSeparator() != Options.Separator.BLANK
+                            ? arg.substring(bounds[OptionDispatcher.VALUE_START], bounds[OptionDispatcher.VALUE_END])
+                            : null, message);
+                }
+
+            }
+        }
+
+    }
+
+    @Test
+    void checkUsesFirstDefinedOption() {
+
+        Options options = new Options(new String[]{"-ab=1", "--alpha"});
+        OptionSet set = options.getSet();
+        set.addOption(OptionData.Type.DETAIL, "a", null, Options.Separator.EQUALS, Options.Multiplicity.ZERO_OR_ONCE);
+        set.addOption(OptionData.Type.VALUE, "ab", null, Options.Separator.EQUALS, Options.Multiplicity.ZERO_OR_ONCE);
+        set.addOption(OptionData.Type.SIMPLE, "x", "alpha", Options.Multiplicity.ZERO_OR_ONCE);
+
+        assertTrue(options.check(false, true), options.getCheckErrors());
+        assertTrue(set.isSet("a"));
+        assertFalse(set.isSet("ab"));
+        assertTrue(set.isSet("x"));
+        assertEquals("b", set.getOption("a").getResultDetail(0));
+        assertEquals("1", set.getOption("a").getResultValue(0));
+
+    }
+
+    //.... Helper method: the regular expression an option was matched with before
+    private static Pattern pattern(OptionData od) {
+        String key = od.getAltKey() == null ? od.getPrefix().getName() + od.getKey()
+                : "(" + od.getPrefix().getName() + od.getKey() + "|"
+                + od.getAltPrefix().getName() + od.getAltKey() + ")";
+        if (!od.useValue()) {
+            return Pattern.compile(key + "$");
+        }
+        String detail = od.useDetail() ? "((\\w|\\.)+)" : "";
+        if (od.getSeparator() == Options.Separator.BLANK) {
+            return Pattern.compile(key + detail + "$");
+        }
+        return Pattern.compile(key + detail + od.getSeparator().getName() + "(.+)$");
+    }
+
+    //.... Helper method: a random key
+    private static String key(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = 1 + random.nextInt(2);
+        for (int i = 0; i < length; i++) {
+            sb.append("abDx".charAt(random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+}
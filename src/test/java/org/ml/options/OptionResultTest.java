@@ -0,0 +1,66 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the values and details which are taken from the positions recorded
+ * for the command line arguments: as strings, as views, and for the values
+ * in arguments of their own.
+ */
+class OptionResultTest {
+
+    @Test
+    void valuesAndDetails() {
+
+        String file = "some/file.txt";
+        Options options = Fixtures.build(new String[]{"-o", file, "-Dfoo.bar=baz=q", "-Dy=1", "-Pa.b",
+                "val"});
+        OptionSet set = options.getMatchingSet();
+        assertEquals("a", set.getName(), options.getCheckErrors());
+
+        OptionData o = set.getOption("o");
+        assertSame(file, o.getResultValue(0));                         // The argument itself, not a copy
+        assertNull(o.getResultDetail(0));
+
+        OptionData d = set.getOption("D");
+        assertEquals(2, d.getResultCount());
+        assertEquals(Arrays.asList("baz=q", "1"), d.getResultValues());
+        assertEquals(Arrays.asList("foo.bar", "y"), d.getResultDetails());
+
+        OptionData p = set.getOption("P");
+        assertEquals("a.b", p.getResultDetail(0));
+        assertEquals("val", p.getResultValue(0));
+
+        assertNull(set.getOption("v").getResultValue(0));             // Not a value option
+        assertThrows(IllegalArgumentException.class, () -> d.getResultValue(2));
+
+    }
+
+    @Test
+    void valueViews() {
+
+        Options options = Fixtures.build(new String[]{"-Dkey=a long value", "-o", "file"});
+        OptionSet set = options.getMatchingSet();
+        assertEquals("a", set.getName(), options.getCheckErrors());
+
+        CharSequence view = set.getOption("D").getResultValueView(0);
+        assertEquals("a long value", view.toString());
+        assertEquals(12, view.length());
+        assertEquals('l', view.charAt(2));
+        assertEquals("long", view.subSequence(2, 6).toString());
+        assertEquals("file", set.getOption("o").getResultValueView(0).toString());
+
+        OptionsSpec spec = Fixtures.build(new String[0]).compile();
+        ParseResult result = spec.parse(new String[]{"-c=red"});
+        assertTrue(result.isSuccess());
+        assertEquals("red", result.getResultValueView("c", 0).toString());
+
+    }
+}
@@ -0,0 +1,125 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the generated source compiles, and that the generated class
+ * sets up the same definitions and gives access to the results with its
+ * accessors and the lookup by set name and key. The checks need the system
+ * Java compiler and are skipped if it is not available.
+ */
+class OptionsCodeGeneratorTest {
+
+    private final static String CLASS_NAME = "gen.CliOptions";
+
+    @TempDir
+    Path directory;
+
+    //.... The definitions of the XML fixture, with an integer value added
+    private static Options build(String[] args) {
+        Options options = Fixtures.buildXMLEquivalent(args);
+        OptionData n = options.getSet("b").addOption(OptionData.Type.VALUE, "n", Options.Multiplicity.ZERO_OR_ONCE);
+        ValueConstraint.add(n, 1, 10);
+        return options;
+    }
+
+    //.... Helper method: generate the class from a snapshot of the definitions, compile and load it
+    private Class<?> compile() throws IOException, ClassNotFoundException {
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null, "no Java compiler available");
+
+        Path snapshot = directory.resolve("options.snapshot");
+        OptionsSnapshot.write(build(new String[0]), snapshot);
+        Path source = OptionsCodeGenerator.generate(snapshot, CLASS_NAME, directory.resolve("src"), "prog");
+        assertEquals(directory.resolve("src").resolve("gen").resolve("CliOptions.java"), source);
+
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        int status = compiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"),
+                "-d", classes.toString(), source.toString());
+        assertEquals(0, status, new String(Files.readAllBytes(source), StandardCharsets.UTF_8));
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                OptionsCodeGeneratorTest.class.getClassLoader());
+        return loader.loadClass(CLASS_NAME);
+
+    }
+
+    //.... Helper method: invoke a public method of the generated class
+    private static Object call(Object target, String name, Object... args) throws Exception {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw (Exception) ex.getCause();
+                }
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    @Test
+    void generatedClass() throws Exception {
+
+        Class<?> type = compile();
+        String[] args = {"-x", "-z", "-n=7", "--help", "d1"};
+        Object cli = type.getConstructor(String[].class).newInstance((Object) args);
+        Options options = (Options) call(cli, "getOptions");
+
+        assertEquals(Fixtures.definitions(build(new String[0])), Fixtures.definitions(options));
+        assertEquals(build(new String[0]).getHelp(new DefaultHelpPrinter(), "prog", false, true, "\n"),
+                type.getMethod("getHelp").invoke(null));
+
+        assertEquals("b", options.getMatchingSet().getName());
+        assertEquals(true, call(cli, "isBX"));
+        assertEquals(false, call(cli, "isBY"));
+        assertEquals(true, call(cli, "isBH"));
+        assertEquals(7, call(cli, "getBN", 3));
+        assertNull(call(cli, "getAO"));
+        assertSame(options.getSet("b").getOption("z"), call(cli, "getOption", "b", "z"));
+        assertThrows(IllegalArgumentException.class, () -> call(cli, "getOption", "b", "o"));
+        assertThrows(IllegalArgumentException.class, () -> call(cli, "getOption", "c", "x"));
+        assertThrows(IllegalArgumentException.class, () -> call(cli, "getOption", null, "x"));
+
+        Object other = type.getConstructor(String[].class).newInstance((Object) new String[]{"-v", "-v", "-o=f"});
+        OptionSet set = ((Options) call(other, "getOptions")).getMatchingSet();
+        assertEquals("a", set.getName());
+        assertEquals("f", call(other, "getAO"));
+        assertTrue((Boolean) call(other, "isAV"));
+        assertEquals(2, set.getOption("v").getResultCount());
+
+    }
+
+    @Test
+    void invalidDefinitions() {
+
+        Options reserved = new Options(new String[0]);
+        reserved.getSet().addOption(OptionData.Type.SIMPLE, "help");
+        assertThrows(IllegalArgumentException.class, () -> OptionsCodeGenerator.generate(reserved, CLASS_NAME, "p"));
+
+        Options separator = new Options(new String[0]);
+        separator.getSet().addOption(OptionData.Type.VALUE, "k", null, Options.Separator.COLON,
+                Options.Multiplicity.ONCE);
+        assertThrows(IllegalArgumentException.class, () -> OptionsCodeGenerator.generate(separator, CLASS_NAME, "p"));
+
+    }
+}
@@ -0,0 +1,161 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the annotation processor generates binders which compile, set
+ * up the declared options and assign the results to records and classes, and
+ * that invalid declarations are reported as compile errors. The checks need
+ * the system Java compiler and are skipped if it is not available.
+ */
+class OptionsProcessorTest {
+
+    private final static String RECORD = "package app;\n"
+            + "import java.util.Map;\n"
+            + "import org.ml.options.*;\n"
+            + "@CommandLine(minData = 0, maxData = OptionSet.INF)\n"
+            + "public record ServerArgs(\n"
+            + "        @Option(altKey = \"p\", constraint = ValueConstraint.Type.INT_RANGE, values = \"1:65535\")\n"
+            + "        int port,\n"
+            + "        @Option(help = \"Print more details\") boolean verbose,\n"
+            + "        @Option(key = \"D\", type = OptionData.Type.DETAIL) Map<String, String> properties,\n"
+            + "        @Option String name) {\n"
+            + "}\n";
+
+    private final static String CLASS = "package app;\n"
+            + "import java.util.List;\n"
+            + "import org.ml.options.*;\n"
+            + "public class ClientArgs {\n"
+            + "    @Option(key = \"host\") List<String> hosts;\n"
+            + "    @Option long timeout = 30;\n"
+            + "    @Option int[] ports;\n"
+            + "    @Option boolean quiet;\n"
+            + "}\n";
+
+    private final static Pattern NAME = Pattern.compile("(?:class|record) (\\w+)");
+
+    @TempDir
+    Path directory;
+
+    //.... Helper method: compile the sources with the processor, and return the output of the compiler
+    private String compile(Path classes, String... sources) throws IOException {
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null, "no Java compiler available");
+
+        Path src = Files.createDirectories(directory.resolve("src").resolve("app"));
+        String[] arguments = new String[8 + sources.length];
+        arguments[0] = "-classpath";
+        arguments[1] = System.getProperty("java.class.path");
+        arguments[2] = "-processor";
+        arguments[3] = OptionsProcessor.class.getName();
+        arguments[4] = "-d";
+        arguments[5] = Files.createDirectories(classes).toString();
+        arguments[6] = "-s";
+        arguments[7] = Files.createDirectories(directory.resolve("generated")).toString();
+        for (int i = 0; i < sources.length; i++) {
+            Matcher matcher = NAME.matcher(sources[i]);
+            assertTrue(matcher.find());
+            String name = matcher.group(1);
+            arguments[8 + i] = Files.write(src.resolve(name + ".java"),
+                    sources[i].getBytes(StandardCharsets.UTF_8)).toString();
+        }
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, err, arguments);
+        String output = err.toString("UTF-8");
+        return status == 0 ? null : output;
+
+    }
+
+    @Test
+    void generatedBinders() throws Exception {
+
+        Path classes = directory.resolve("classes");
+        assertNull(compile(classes, RECORD, CLASS));
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                OptionsProcessorTest.class.getClassLoader());
+
+        //.... The record
+        Class<?> binder = loader.loadClass("app.ServerArgsOptions");
+        String[] args = {"--p", "8080", "-Da=1", "-Db=2", "d1", "d2"};
+        Options options = (Options) binder.getMethod("create", String[].class).invoke(null, (Object) args);
+        assertTrue(options.check(), options.getCheckErrors());
+        Object server = binder.getMethod("bind", Options.class).invoke(null, options);
+        Class<?> record = loader.loadClass("app.ServerArgs");
+        assertEquals(8080, record.getMethod("port").invoke(server));
+        assertEquals(false, record.getMethod("verbose").invoke(server));
+        Map<?, ?> properties = (Map<?, ?>) record.getMethod("properties").invoke(server);
+        assertEquals("1", properties.get("a"));
+        assertEquals("2", properties.get("b"));
+        assertNull(record.getMethod("name").invoke(server));
+        assertEquals(Arrays.asList("d1", "d2"), options.getSet().getData());
+
+        options = (Options) binder.getMethod("create", String[].class)
+                .invoke(null, (Object) new String[]{"-port", "70000"});
+        assertFalse(options.check(), "the value constraint");
+
+        //.... The class
+        binder = loader.loadClass("app.ClientArgsOptions");
+        args = new String[]{"-host", "h1", "-host", "h2", "-ports", "1", "-ports", "2", "-quiet"};
+        options = (Options) binder.getMethod("create", String[].class).invoke(null, (Object) args);
+        assertTrue(options.check(), options.getCheckErrors());
+        Class<?> type = loader.loadClass("app.ClientArgs");
+        Object client = type.getConstructor().newInstance();
+        binder.getMethod("bind", Options.class, type).invoke(null, options, client);
+        assertEquals(Arrays.asList("h1", "h2"), field(client, "hosts"));
+        assertEquals(30L, field(client, "timeout"));                       // Kept, since not given
+        assertArrayEquals(new int[]{1, 2}, (int[]) field(client, "ports"));
+        assertEquals(true, field(client, "quiet"));
+
+        options = (Options) binder.getMethod("create", String[].class).invoke(null, (Object) new String[]{"-quiet"});
+        assertTrue(options.check(), options.getCheckErrors());
+        client = type.getConstructor().newInstance();
+        binder.getMethod("bind", Options.class, type).invoke(null, options, client);
+        assertNull(field(client, "hosts"));
+        assertEquals(30L, field(client, "timeout"));
+
+    }
+
+    @Test
+    void invalidDeclarations() throws IOException {
+        String duplicate = "package app;\n"
+                + "public class Duplicate {\n"
+                + "    @org.ml.options.Option(key = \"v\") boolean verbose;\n"
+                + "    @org.ml.options.Option(key = \"v\") boolean version;\n"
+                + "}\n";
+        String output = compile(directory.resolve("classes"), duplicate);
+        assertTrue(output != null && output.contains("Duplicate.java") && output.contains("OptionsProcessor: "),
+                String.valueOf(output));
+        assertFalse(Files.exists(directory.resolve("generated").resolve("app").resolve("DuplicateOptions.java")));
+    }
+
+    //.... Helper method: the value of a field of the target
+    private static Object field(Object target, String name) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
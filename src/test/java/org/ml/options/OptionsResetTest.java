@@ -0,0 +1,78 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that an {@link Options} instance reused with
+ * {@link Options#reset(String[])} behaves exactly like a new instance, and
+ * that repeated checks replace earlier results rather than adding to them.
+ */
+class OptionsResetTest {
+
+    @Test
+    void resetMatchesNewInstance() {
+        Options reused = Fixtures.build(new String[0]);
+        for (int round = 0; round < 2; round++) {
+            for (String[] args : Fixtures.COMMAND_LINES) {
+                for (int mode = 0; mode < 2; mode++) {
+                    reused.reset(args);
+                    assertEquals(Fixtures.describe(Fixtures.build(args), mode == 1, mode == 0),
+                            Fixtures.describe(reused, mode == 1, mode == 0), Arrays.toString(args));
+                }
+            }
+        }
+    }
+
+    @Test
+    void repeatedChecksReplaceResults() {
+        for (String[] args : Fixtures.COMMAND_LINES) {
+            Options options = Fixtures.build(args);
+            String first = Fixtures.describe(options, false, true);
+            assertEquals(first, Fixtures.describe(options, false, true), Arrays.toString(args));
+        }
+    }
+
+    @Test
+    void resetRemovesResults() {
+        Options options = Fixtures.build(new String[]{"-o", "file", "data"});
+        OptionSet set = options.getMatchingSet();
+        assertEquals("a", set.getName());
+        assertTrue(set.isSet("o"));
+
+        options.reset();
+        assertFalse(set.isSet("o"));
+        assertEquals(0, set.getData().size());
+        assertTrue(options.getCheckErrors().isEmpty());
+
+        options.reset(new String[]{"-x", "-y", "d"});
+        assertEquals("b", options.getMatchingSet().getName());
+        assertFalse(set.isSet("o"));
+    }
+
+    @Test
+    void resetKeepsCallerArray() {
+        String[] args = {"-o", "file"};
+        Options options = Fixtures.build(new String[0]);
+        options.reset(args);
+        args[1] = "changed";
+        assertEquals("file", options.getMatchingSet().getOption("o").getResultValue(0));
+
+        String[] range = {"ignored", "-x", "-z", "d", "ignored"};
+        options.reset(range, 1, 3);
+        OptionSet set = options.getMatchingSet();
+        assertEquals("b", set.getName());
+        assertEquals(Arrays.asList("d"), set.getData());
+        assertEquals("ignored", range[0]);
+
+        assertThrows(IllegalArgumentException.class, () -> options.reset(range, 3, 3));
+        assertThrows(IllegalArgumentException.class, () -> options.reset(null));
+        assertNull(Fixtures.build(new String[]{"-q"}).getMatchingSet());
+    }
+}
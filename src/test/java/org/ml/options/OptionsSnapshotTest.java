@@ -0,0 +1,85 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the definitions read back from a snapshot are those written,
+ * including all constraints of this package, and that invalid snapshots are
+ * rejected.
+ */
+class OptionsSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    //.... The shared definitions, with a relation and some texts added
+    private static Options build(String[] args) {
+        Options options = Fixtures.build(args);
+        RelationConstraint.add(options.getSet("a"), RelationConstraint.Relation.REQUIRES, "c", "n");
+        options.getSet("a").getOption("o").setValueText("file").setHelpText("The output file \u00e4");
+        options.getSet("a").setDataText(0, "input");
+        return options.setMaxDiagnostics(7).setEndOfOptions(true);
+    }
+
+    private static byte[] snapshot(Options options) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OptionsSnapshot.write(options, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+
+        byte[] bytes = snapshot(build(new String[0]));
+        Path file = directory.resolve("options.snapshot");
+        OptionsSnapshot.write(build(new String[0]), file);
+
+        String expected = Fixtures.definitions(build(new String[0]));
+        assertEquals(expected, Fixtures.definitions(OptionsSnapshot.read(new String[0],
+                new ByteArrayInputStream(bytes))));
+        assertEquals(expected, Fixtures.definitions(OptionsSnapshot.read(new String[0], file)));
+
+        for (String[] args : Fixtures.COMMAND_LINES) {
+            for (boolean ignoreUnmatched : new boolean[]{false, true}) {
+                assertEquals(Fixtures.describe(build(args), ignoreUnmatched, true),
+                        Fixtures.describe(OptionsSnapshot.read(args, file), ignoreUnmatched, true),
+                        Arrays.toString(args) + " " + ignoreUnmatched);
+            }
+        }
+        String[] args = {"-c=red", "-v", "--", "-o"};                      // The relation, and the end marker
+        assertEquals(Fixtures.describe(build(args), false, true),
+                Fixtures.describe(OptionsSnapshot.read(args, file), false, true));
+
+        assertEquals(Arrays.toString(bytes), Arrays.toString(snapshot(OptionsSnapshot.read(new String[0], file))));
+
+    }
+
+    @Test
+    void invalidSnapshots() throws IOException {
+
+        byte[] bytes = snapshot(build(new String[0]));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(IOException.class, () -> OptionsSnapshot.read(new String[0], new ByteArrayInputStream(truncated)));
+
+        byte[] magic = bytes.clone();
+        magic[0]++;
+        assertThrows(IOException.class, () -> OptionsSnapshot.read(new String[0], new ByteArrayInputStream(magic)));
+
+        byte[] version = bytes.clone();
+        version[7]++;
+        assertThrows(IOException.class, () -> OptionsSnapshot.read(new String[0], new ByteArrayInputStream(version)));
+
+        assertThrows(IllegalArgumentException.class, () -> OptionsSnapshot.write(null, new ByteArrayOutputStream()));
+
+    }
+}
@@ -0,0 +1,89 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that an {@link OptionsSpec} yields the same outcome as the checks of
+ * an {@link Options} instance, also when it is used by several threads, and
+ * that the definitions can no longer be changed once compiled.
+ */
+class OptionsSpecTest {
+
+    @Test
+    void parseMatchesOptions() {
+        OptionsSpec spec = Fixtures.build(new String[0]).compile();
+        for (String[] args : Fixtures.COMMAND_LINES) {
+            for (int mode = 0; mode < 2; mode++) {
+                assertEquals(Fixtures.describe(Fixtures.build(args), mode == 1, mode == 0),
+                        Fixtures.describe(spec, spec.parse(args, mode == 1, mode == 0)), Arrays.toString(args));
+            }
+        }
+    }
+
+    @Test
+    void parseFromSeveralThreads() throws Exception {
+
+        OptionsSpec spec = Fixtures.build(new String[0]).compile();
+        String[] expected = new String[Fixtures.COMMAND_LINES.length];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = Fixtures.describe(Fixtures.build(Fixtures.COMMAND_LINES[i]), false, true);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    int differences = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        String[] args = Fixtures.COMMAND_LINES[i % expected.length];
+                        if (!expected[i % expected.length].equals(Fixtures.describe(spec, spec.parse(args)))) {
+                            differences++;
+                        }
+                    }
+                    return differences;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(0, (int) future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    void resultsAreIndependent() {
+        OptionsSpec spec = Fixtures.build(new String[0]).compile();
+        ParseResult first = spec.parse(new String[]{"-o", "one"});
+        ParseResult second = spec.parse(new String[]{"-o", "two", "data"});
+        assertTrue(first.isSuccess());
+        assertTrue(second.isSuccess());
+        assertEquals("one", first.getResultValue("o", 0));
+        assertEquals("two", second.getResultValue("o", 0));
+        assertEquals(0, first.getDataCount());
+        assertEquals(Arrays.asList("data"), second.getData());
+    }
+
+    @Test
+    void definitionsAreFrozen() {
+        Options options = Fixtures.build(new String[0]);
+        options.compile();
+        assertThrows(UnsupportedOperationException.class,
+                () -> options.getSet("a").addOption(OptionData.Type.SIMPLE, "q"));
+        assertThrows(UnsupportedOperationException.class, () -> options.addSet("c"));
+        assertFalse(options.getSet("a").isSet("v"));
+    }
+}
@@ -0,0 +1,113 @@
+package org.ml.options;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the sequential and the parallel checks of an {@link OptionsSpec}
+ * (see {@link OptionsSpec#parse(String[], boolean, boolean, ForkJoinPool)})
+ * for a number of sets. All sets have the same options, so none of them is
+ * ruled out before the detailed checks, and each has a costly constraint
+ * which is only satisfied by the set named by the data item. The arguments
+ * name the last set, so all sets need to be checked.
+ * <p>
+ * The parallel checks use the common pool, or a pool with the parallelism
+ * given as the argument. The figures depend on the number of processors
+ * available, of course.
+ */
+public final class ParallelBenchmark {
+
+    private final static int[] SET_COUNTS = {10, 50, 200};
+    //.... The number of rounds of busy work done by each constraint check
+    private final static int WORK = 2000;
+
+    private static volatile int sink;
+
+    private ParallelBenchmark() {
+    }
+
+    /**
+     * A constraint which is only satisfied if the data item is the name of
+     * the set, after some busy work
+     */
+    private final static class CostlyConstraint implements Constraint {
+
+        private final String name;
+
+        CostlyConstraint(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean isSatisfied() {
+            throw new UnsupportedOperationException("ParallelBenchmark: only used with an OptionsSpec");
+        }
+
+        @Override
+        public boolean isSatisfied(ParseResult result) {
+            String data = result.getData().get(0);
+            int hash = 0;
+            for (int i = 0; i < WORK; i++) {
+                hash = 31 * hash + data.charAt(i % data.length());
+            }
+            sink = hash;
+            return data.equals(name);
+        }
+
+        @Override
+        public boolean supports(Constrainable constrainable) {
+            return constrainable instanceof OptionSet;
+        }
+    }
+
+    /**
+     * Run the benchmark
+     * <p>
+     *
+     * @param args The command line arguments: optionally, the parallelism
+     *             of the pool to use
+     * @throws Exception If anything goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        ForkJoinPool pool = args.length > 0 ? new ForkJoinPool(Integer.parseInt(args[0])) : ForkJoinPool.commonPool();
+        System.out.println("Parallelism of the pool: " + pool.getParallelism() + ", processors: "
+                + Runtime.getRuntime().availableProcessors());
+
+        for (int count : SET_COUNTS) {
+
+            OptionsSpec spec = build(count);
+            String[] arguments = {"-v", "-o", "value", name(count - 1)};
+
+            System.out.println(count + " sets");
+            Benchmark.time("Sequential", 1000, () -> {
+                if (!spec.parse(arguments, false, true).isSuccess()) {
+                    throw new IllegalStateException("No match");
+                }
+            });
+            Benchmark.time("Parallel", 1000, () -> {
+                if (!spec.parse(arguments, false, true, pool).isSuccess()) {
+                    throw new IllegalStateException("No match");
+                }
+            });
+
+        }
+
+    }
+
+    //.... Helper method: the name of a set
+    private static String name(int i) {
+        return String.format("s%04d", i);
+    }
+
+    //.... Helper method: the given number of sets with the same options and a costly constraint each
+    private static OptionsSpec build(int count) {
+        Options options = new Options(new String[0]);
+        for (int i = 0; i < count; i++) {
+            OptionSet set = options.addSet(name(i), 1, 1);
+            set.addOption(OptionData.Type.SIMPLE, "v", Options.Multiplicity.ZERO_OR_MORE);
+            set.addOption(OptionData.Type.VALUE, "o", Options.Multiplicity.ZERO_OR_ONCE);
+            set.addConstraint(new CostlyConstraint(name(i)));
+        }
+        return options.compile();
+    }
+}
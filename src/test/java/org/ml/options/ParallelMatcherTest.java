@@ -0,0 +1,72 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the parallel checks of the sets yield exactly the outcome of
+ * the sequential checks (set, results and error messages), for an
+ * {@link OptionsSpec} as well as for {@link Options#setParallel(ForkJoinPool)}.
+ */
+class ParallelMatcherTest {
+
+    private final static int SETS = 40;
+
+    //.... Many sets, several of which match the same command lines
+    private static Options build(String[] args) {
+        Options options = new Options(args);
+        for (int i = 0; i < SETS; i++) {
+            OptionSet set = options.addSet(String.format("s%02d", i), i % 3, OptionSet.INF);
+            set.addOption(OptionData.Type.SIMPLE, "k" + (i % 5), Options.Multiplicity.ONCE);
+            set.addOption(OptionData.Type.VALUE, "v", null, Options.Separator.EQUALS,
+                    i % 2 == 0 ? Options.Multiplicity.ZERO_OR_ONCE : Options.Multiplicity.ZERO_OR_MORE);
+            set.addOption(OptionData.Type.SIMPLE, "q", Options.Multiplicity.ZERO_OR_ONCE);
+        }
+        return options;
+    }
+
+    @Test
+    void sameAsSequential() {
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            OptionsSpec spec = build(new String[0]).compile();
+            Options parallel = build(new String[0]).setParallel(pool);
+            String[] arguments = {"-k0", "-k1", "-k3", "-k4", "-v=1", "-v=2", "-q", "d", "-x"};
+            Random random = new Random(5);
+
+            for (int round = 0; round < 500; round++) {
+
+                String[] args = new String[random.nextInt(5)];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = arguments[random.nextInt(arguments.length)];
+                }
+                boolean ignoreUnmatched = random.nextBoolean();
+                String message = Arrays.toString(args) + " " + ignoreUnmatched;
+
+                String expected = Fixtures.describe(spec, spec.parse(args, ignoreUnmatched, true));
+                assertEquals(expected, Fixtures.describe(spec, spec.parse(args, ignoreUnmatched, true, pool)),
+                        message);
+
+                parallel.reset(args);
+                assertEquals(Fixtures.describe(build(args), ignoreUnmatched, true),
+                        Fixtures.describe(parallel, ignoreUnmatched, true), message);
+
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+    }
+
+    @Test
+    void poolRequired() {
+        OptionsSpec spec = build(new String[0]).compile();
+        assertThrows(IllegalArgumentException.class, () -> spec.parse(new String[0], false, true, null));
+    }
+}
@@ -0,0 +1,97 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the relations of {@link RelationConstraint} against their
+ * definitions, for the checks of an {@link Options} instance as well as for
+ * an {@link OptionsSpec}. Unlike the multiplicities, the relations are still
+ * evaluated if no arguments are given at all.
+ */
+class RelationConstraintTest {
+
+    private final static String[] KEYS = {"a", "b", "c", "d"};
+
+    @Test
+    void sameAsDefinitions() {
+
+        Random random = new Random(17);
+
+        for (RelationConstraint.Relation relation : RelationConstraint.Relation.values()) {
+            for (int round = 0; round < 300; round++) {
+
+                boolean[] present = new boolean[KEYS.length];
+                int number = 0;
+                String[] args = new String[random.nextInt(6)];
+                for (int i = 0; i < args.length; i++) {
+                    int key = random.nextInt(KEYS.length);
+                    args[i] = "-" + KEYS[key];
+                    number += present[key] ? 0 : 1;
+                    present[key] = true;
+                }
+                int count = random.nextInt(4);
+
+                boolean expected;
+                switch (relation) {
+                    case REQUIRES:
+                        expected = !present[0] || (present[1] && present[2] && present[3]);
+                        break;
+                    case IMPLIES:
+                        expected = !present[0] || present[1] || present[2] || present[3];
+                        break;
+                    case CONFLICTS:
+                        expected = !present[0] || !(present[1] || present[2] || present[3]);
+                        break;
+                    case AT_LEAST:
+                        expected = number >= count;
+                        break;
+                    default:
+                        expected = number <= count;
+                        break;
+                }
+
+                Options options = build(args, relation, count);
+                String message = relation + " " + count + " " + Arrays.toString(args);
+                assertEquals(expected, options.check(), message);
+                OptionsSpec spec = build(new String[0], relation, count).compile();
+                assertEquals(expected, spec.parse(args).isSuccess(), message);
+
+            }
+        }
+
+    }
+
+    @Test
+    void invalidDefinitions() {
+        Options options = new Options(new String[0]);
+        OptionSet set = options.getSet();
+        set.addOption(OptionData.Type.SIMPLE, "a", Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.SIMPLE, "b", Options.Multiplicity.ZERO_OR_MORE);
+        assertThrows(IllegalArgumentException.class,
+                () -> RelationConstraint.add(set, RelationConstraint.Relation.REQUIRES, "a", "unknown"));
+        assertThrows(IllegalArgumentException.class,
+                () -> RelationConstraint.add(set, RelationConstraint.Relation.AT_LEAST, -1, "a", "b"));
+        assertThrows(IllegalArgumentException.class,
+                () -> RelationConstraint.add(set, RelationConstraint.Relation.REQUIRES, "a"));
+    }
+
+    //.... Helper method: optional options a to d and the constraint
+    private static Options build(String[] args, RelationConstraint.Relation relation, int count) {
+        Options options = new Options(args);
+        OptionSet set = options.getSet();
+        for (String key : KEYS) {
+            set.addOption(OptionData.Type.SIMPLE, key, Options.Multiplicity.ZERO_OR_MORE);
+        }
+        if (relation.isCounting()) {
+            RelationConstraint.add(set, relation, count, KEYS);
+        } else {
+            RelationConstraint.add(set, relation, KEYS);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,92 @@
+package org.ml.options;
+
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * Measures the heap memory allocated and the time taken for matching command
+ * line arguments against the options of a set: with the
+ * {@link OptionDispatcher} (as used by the checks), and with the regular
+ * expressions of the options (as used before). The arguments cover all
+ * types of options, with and without detail and value in the same argument.
+ * <p>
+ * For the dispatcher, the arguments are classified by an
+ * {@link ArgumentTokens} instance which is reused, as by
+ * {@link Options#check()}, so no memory at all should be allocated per
+ * argument. A complete check of a reused {@link Options} instance is measured
+ * as well, which only allocates the diagnostics it records.
+ */
+public final class ScannerBenchmark {
+
+    private final static String[] ARGS = {"-v", "-o", "file", "-Dkey=value", "-Pname", "x", "-n", "5", "-c=red",
+            "-level:3", "--verbose", "data1", "data2"};
+
+    private ScannerBenchmark() {
+    }
+
+    /**
+     * Run the benchmark
+     * <p>
+     *
+     * @param args The command line arguments (not used)
+     * @throws Exception If anything goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        Options options = new Options(ARGS);
+        options.setDefault(Options.Prefix.DASH, Options.Prefix.DOUBLEDASH);
+        OptionSet set = options.addSet("set", 0, OptionSet.INF);
+        set.addOption(OptionData.Type.SIMPLE, "v", "verbose", Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.VALUE, "o", "out");
+        set.addOption(OptionData.Type.DETAIL, "D", Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.DETAIL, "P", null, Options.Separator.BLANK, Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.VALUE, "n", Options.Multiplicity.ZERO_OR_MORE);
+        set.addOption(OptionData.Type.VALUE, "c", null, Options.Separator.EQUALS, Options.Multiplicity.ZERO_OR_ONCE);
+        set.addOption(OptionData.Type.VALUE, "level", null, Options.Separator.COLON, Options.Multiplicity.ZERO_OR_ONCE);
+        if (!options.check("set")) {
+            throw new IllegalStateException(options.getCheckErrors());
+        }
+
+        OptionDispatcher dispatcher = set.getDispatcher();
+        ArgumentTokens tokens = new ArgumentTokens();
+        int[] bounds = new int[OptionDispatcher.BOUNDS];
+        List<OptionData> optionData = set.getOptionData();
+        int[] sink = new int[1];
+
+        Benchmark.Operation dispatch = () -> {
+            tokens.classify(dispatcher, ARGS, 0, ARGS.length, Options.Prefix.DASH, Options.Prefix.DOUBLEDASH,
+                    false, false);
+            for (int i = 0; i < ARGS.length; i++) {
+                sink[0] += tokens.match(0, i, bounds);
+            }
+        };
+        Benchmark.Operation regex = () -> {
+            for (String arg : ARGS) {
+                for (OptionData od : optionData) {
+                    Matcher matcher = od.getPattern().matcher(arg);
+                    if (matcher.matches()) {
+                        for (int group = 1; group <= matcher.groupCount(); group++) {
+                            String part = matcher.group(group);
+                            sink[0] += part == null ? 0 : part.length();
+                        }
+                        break;
+                    }
+                }
+            }
+        };
+        Benchmark.Operation check = () -> {
+            if (!options.check("set")) {
+                throw new IllegalStateException(options.getCheckErrors());
+            }
+        };
+
+        System.out.println(ARGS.length + " arguments per operation");
+        Benchmark.allocation("Dispatcher, all arguments", 10000, dispatch);
+        Benchmark.allocation("Regular expressions, all arguments", 10000, regex);
+        Benchmark.allocation("Options.check(), reused", 10000, check);
+        Benchmark.time("Dispatcher, all arguments", 10000, dispatch);
+        Benchmark.time("Regular expressions, all arguments", 10000, regex);
+        Benchmark.time("Options.check(), reused", 10000, check);
+
+    }
+}
@@ -0,0 +1,74 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Checks that the schema is compiled once and shared, while concurrent
+ * validations each report their own outcome. The schema is part of the
+ * resources of the JAR, so these checks are skipped if it is not available.
+ */
+class SchemaValidatorTest {
+
+    private final static String VALID = "<options><defaultSet><option type=\"SIMPLE\" key=\"v\"/></defaultSet>"
+            + "</options>";
+    private final static String INVALID = "<unknown/>";
+
+    @BeforeEach
+    void schemaAvailable() {
+        assumeTrue(SchemaValidator.class.getClassLoader().getResource("config/options.xsd") != null,
+                "the schema is not available");
+    }
+
+    @Test
+    void sharedSchema() throws Exception {
+        assertSame(SchemaValidator.getSchema(), SchemaValidator.getSchema());
+    }
+
+    @Test
+    void separateOutcomes() throws Exception {
+
+        SchemaValidator valid = new SchemaValidator();
+        assertTrue(valid.validate(new StringReader(VALID)), valid.getError());
+        assertNull(valid.getError());
+        SchemaValidator invalid = new SchemaValidator();
+        assertFalse(invalid.validate(new StringReader(INVALID)));
+        String error = invalid.getError();
+        assertTrue(error.startsWith("Error"), error);
+
+        assertThrows(SAXParseException.class, () -> new SchemaValidator().validate(new StringReader("<options>")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String document = i % 3 == 0 ? INVALID : VALID;
+                futures.add(executor.submit(() -> {
+                    SchemaValidator validator = new SchemaValidator();
+                    return validator.validate(new StringReader(document)) ? null : validator.getError();
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i % 3 == 0 ? error : null, futures.get(i).get(), "document " + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+}
@@ -0,0 +1,70 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the attempts of {@link Options#getMatchingSet(boolean, boolean)}
+ * only leave results for the winning set, while a failed
+ * {@link Options#check(String)} keeps its results for inspection.
+ */
+class ScratchResultTest {
+
+    @Test
+    void onlyWinnerKeepsResults() {
+
+        for (String[] args : Fixtures.COMMAND_LINES) {
+            Options options = Fixtures.build(args);
+            OptionSet winner = options.getMatchingSet();
+            for (String name : new String[]{"a", "b"}) {
+                OptionSet set = options.getSet(name);
+                if (set == winner) {
+                    continue;
+                }
+                String message = Arrays.toString(args) + " " + name;
+                assertTrue(set.getData().isEmpty(), message);
+                assertTrue(set.getUnmatched().isEmpty(), message);
+                for (OptionData od : set.getOptionData()) {
+                    assertFalse(od.isSet(), message + " " + od.getKey());
+                }
+            }
+        }
+
+    }
+
+    @Test
+    void laterSelectionReplacesWinner() {
+
+        Options options = Fixtures.build(new String[]{"-v", "-o", "file", "d"});
+        OptionSet a = options.getMatchingSet();
+        assertEquals("a", a.getName());
+
+        options.reset(new String[]{"-x", "-z", "d"});
+        OptionSet b = options.getMatchingSet();
+        assertEquals("b", b.getName());
+        assertFalse(a.isSet("v"));                                         // Cleared by reset()
+        assertTrue(b.isSet("z"));
+        assertEquals(Arrays.asList("d"), b.getData());
+
+        options.reset(new String[]{"-q"});
+        assertNull(options.getMatchingSet());
+        assertFalse(b.isSet("x"));
+        assertTrue(b.getData().isEmpty());
+
+    }
+
+    @Test
+    void failedCheckKeepsResults() {
+        Options options = Fixtures.build(new String[]{"-x", "-q", "d1", "d2", "d3"});
+        assertFalse(options.check("b"));
+        OptionSet b = options.getSet("b");
+        assertTrue(b.isSet("x"));
+        assertEquals(Arrays.asList("-q"), b.getUnmatched());
+        assertEquals(Arrays.asList("d1", "d2", "d3"), b.getData());
+    }
+}
@@ -0,0 +1,93 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that ruling out sets by their bitmasks does not change the outcome
+ * of {@link Options#getMatchingSet(boolean, boolean)}: the set selected, and,
+ * if no set matches, the error messages, which are only assembled once they
+ * are requested.
+ */
+class SetFilterTest {
+
+    private final static String[] ARGUMENTS = {"-a", "-b", "-c", "-x", "-y", "-z", "-v=1", "-w", "data", "-q"};
+
+    private static Options build(String[] args) {
+        Options options = new Options(args);
+        OptionSet first = options.addSet("first", 0, 1);
+        first.addOption(OptionData.Type.SIMPLE, "a", Options.Multiplicity.ONCE);
+        first.addOption(OptionData.Type.SIMPLE, "b", Options.Multiplicity.ZERO_OR_MORE);
+        OptionSet second = options.addSet("second", 0, 0);
+        second.addOption(OptionData.Type.SIMPLE, "x", "c", Options.Multiplicity.ONCE_OR_MORE);
+        second.addOption(OptionData.Type.VALUE, "v", null, Options.Separator.EQUALS,
+                Options.Multiplicity.ZERO_OR_ONCE);
+        OptionSet third = options.addSet("third", 0, 2);
+        third.addOption(OptionData.Type.SIMPLE, "y");
+        third.addOption(OptionData.Type.SIMPLE, "z");
+        third.addOption(OptionData.Type.SIMPLE, "w", Options.Multiplicity.ZERO_OR_ONCE);
+        ExclusiveConstraint.add(third, Options.Multiplicity.ONCE, "y", "z");
+        OptionSet fourth = options.addSet("fourth", 1, 1);
+        fourth.addOption(OptionData.Type.SIMPLE, "a", Options.Multiplicity.ZERO_OR_MORE);
+        fourth.addOption(OptionData.Type.SIMPLE, "w", Options.Multiplicity.ONCE);
+        return options;
+    }
+
+    @Test
+    void sameOutcomeAsFullChecks() {
+
+        Random random = new Random(3);
+        String[] names = {"first", "fourth", "second", "third"};         // The order of the names
+
+        for (int round = 0; round < 3000; round++) {
+
+            String[] args = new String[random.nextInt(5)];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = ARGUMENTS[random.nextInt(ARGUMENTS.length)];
+            }
+            boolean ignoreUnmatched = random.nextBoolean();
+            String message = Arrays.toString(args) + " " + ignoreUnmatched;
+
+            String expected = null;
+            StringBuilder errors = new StringBuilder();
+            for (String name : names) {
+                Options single = build(args);
+                if (single.check(name, ignoreUnmatched, true)) {
+                    expected = name;
+                    break;
+                }
+                errors.append(single.getCheckErrors());
+            }
+
+            Options options = build(args);
+            OptionSet set = options.getMatchingSet(ignoreUnmatched, true);
+            assertEquals(expected, set == null ? null : set.getName(), message);
+            if (set == null) {
+                assertEquals(errors.toString(), options.getCheckErrors(), message);
+            }
+
+        }
+
+    }
+
+    @Test
+    void deferredErrorsAreClearedByLaterChecks() {
+
+        Options options = build(new String[]{"-q"});
+        assertNull(options.getMatchingSet());
+        options.reset(new String[]{"-a"});
+        assertEquals("first", options.getMatchingSet().getName());
+        assertEquals(1, options.getDiagnostics().size());                // Only CHECKING_SET for the winner
+
+        options.reset(new String[]{"-q"});
+        assertNull(options.getMatchingSet());
+        assertTrue(options.getCheckErrors().contains("-q"), options.getCheckErrors());
+        assertEquals(options.getCheckErrors(), options.getCheckErrors());
+
+    }
+}
@@ -0,0 +1,83 @@
+package org.ml.options;
+
+/**
+ * Measures the set-selection latency of {@link Options#getMatchingSet()} for
+ * a number of sets, each of which requires a key of its own. The arguments
+ * match the last set only, so all others are ruled out by their bitmasks
+ * (see {@link SetFilter}). For comparison, the full check of each set in
+ * order is measured as well, which is what the selection did before the
+ * pruning.
+ * <p>
+ * For arguments which match no set at all, the cost of the failed selection
+ * is measured with and without requesting the error messages, since the
+ * detailed checks are only run once they are requested.
+ */
+public final class SetSelectionBenchmark {
+
+    private final static int[] SET_COUNTS = {10, 50, 200};
+
+    private SetSelectionBenchmark() {
+    }
+
+    /**
+     * Run the benchmark
+     * <p>
+     *
+     * @param args The command line arguments (not used)
+     * @throws Exception If anything goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        for (int count : SET_COUNTS) {
+
+            String last = name(count - 1);
+            Options matching = build(count, new String[]{"-v", "-k" + last, "value", "data"});
+            Options failing = build(count, new String[]{"-v", "-unknown", "data"});
+            String[] names = matching.getSetNames().toArray(new String[0]);
+
+            System.out.println(count + " sets");
+            Benchmark.time("getMatchingSet(), pruned", 10000, () -> {
+                if (matching.getMatchingSet() == null) {
+                    throw new IllegalStateException(matching.getCheckErrors());
+                }
+            });
+            Benchmark.time("check() for each set in order", 1000, () -> {
+                for (String name : names) {
+                    if (matching.check(name)) {
+                        return;
+                    }
+                }
+                throw new IllegalStateException(matching.getCheckErrors());
+            });
+            Benchmark.time("No match, diagnostics not requested", 10000, () -> {
+                if (failing.getMatchingSet() != null) {
+                    throw new IllegalStateException("Unexpected match");
+                }
+            });
+            Benchmark.time("No match, diagnostics requested", 1000, () -> {
+                if (failing.getMatchingSet() != null || failing.getCheckErrors().isEmpty()) {
+                    throw new IllegalStateException("Unexpected match");
+                }
+            });
+
+        }
+
+    }
+
+    //.... Helper method: the name of a set (and of the key it requires)
+    private static String name(int i) {
+        return String.format("s%04d", i);
+    }
+
+    //.... Helper method: the given number of sets, each requiring its own key
+    private static Options build(int count, String[] args) {
+        Options options = new Options(args);
+        for (int i = 0; i < count; i++) {
+            OptionSet set = options.addSet(name(i), 0, OptionSet.INF);
+            set.addOption(OptionData.Type.SIMPLE, "v", Options.Multiplicity.ZERO_OR_MORE);
+            set.addOption(OptionData.Type.VALUE, "k" + name(i), Options.Multiplicity.ONCE);
+            set.addOption(OptionData.Type.VALUE, "o", Options.Multiplicity.ZERO_OR_ONCE);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,145 @@
+package org.ml.options;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the startup-to-parse latency for definitions loaded from an XML
+ * file and from a snapshot (see {@link OptionsSnapshot}). The definitions
+ * have 3000 options in a single set. Two figures are reported for each path:
+ * <ul>
+ * <li>the time from the start of <code>main</code> up to the end of the first
+ * check in a new JVM (class loading and the JIT warm-up included, the start
+ * of the JVM itself excluded), as the median over several JVMs,</li>
+ * <li>the time for loading and a check in a warm JVM.</li>
+ * </ul>
+ * The XML path requires the schema (<code>config/options.xsd</code>) on the
+ * class path, otherwise it is skipped.
+ */
+public final class SnapshotBenchmark {
+
+    private final static int OPTIONS = 3000;
+    private final static int JVMS = 10;
+    private final static String[] ARGS = {"-o17", "value", "data"};
+
+    private SnapshotBenchmark() {
+    }
+
+    /**
+     * Run the benchmark. With the arguments <code>xml file</code> or
+     * <code>snapshot file</code>, this is the run in a new JVM, which loads
+     * the file, runs a check and prints the time taken.
+     * <p>
+     *
+     * @param args The command line arguments
+     * @throws Exception If anything goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 2) {
+            long start = System.nanoTime();
+            Options options = load(args[0], Paths.get(args[1]));
+            if (!options.check()) {
+                throw new IllegalStateException(options.getCheckErrors());
+            }
+            System.out.println(System.nanoTime() - start);
+            return;
+        }
+
+        boolean xml = SnapshotBenchmark.class.getClassLoader().getResource("config/options.xsd") != null;
+        Path dir = Files.createTempDirectory("snapshot-benchmark");
+        Path xmlFile = dir.resolve("options.xml");
+        Path snapshotFile = dir.resolve("options.bin");
+        Files.write(xmlFile, definitions().getBytes(StandardCharsets.UTF_8));
+        OptionsSnapshot.write(build(), snapshotFile);
+        System.out.println("XML file: " + Files.size(xmlFile) + " bytes, snapshot: " + Files.size(snapshotFile)
+                + " bytes");
+
+        if (xml) {
+            System.out.printf("%-48s %12.1f ms%n", "XML, new JVM", newJvm("xml", xmlFile));
+        }
+        System.out.printf("%-48s %12.1f ms%n", "Snapshot, new JVM", newJvm("snapshot", snapshotFile));
+
+        if (xml) {
+            Benchmark.time("XML, warm", 20, () -> load("xml", xmlFile).check());
+        }
+        Benchmark.time("Snapshot, warm", 20, () -> load("snapshot", snapshotFile).check());
+
+    }
+
+    //.... Helper method: load the definitions from the given file
+    private static Options load(String kind, Path file) throws IOException {
+        if (kind.equals("xml")) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                return Options.fromXML(ARGS, reader);
+            }
+        }
+        return OptionsSnapshot.read(ARGS, file);
+    }
+
+    //.... Helper method: the median time (in ms) for loading and checking in new JVMs
+    private static double newJvm(String kind, Path file) throws Exception {
+
+        double[] times = new double[JVMS];
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+        for (int i = 0; i < JVMS; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(SnapshotBenchmark.class.getName());
+            command.add(kind);
+            command.add(file.toString());
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String line;
+            String last = null;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                while ((line = reader.readLine()) != null) {
+                    last = line;
+                }
+            }
+            if (process.waitFor() != 0 || last == null) {
+                throw new IllegalStateException("Run failed for " + kind + ": " + last);
+            }
+            times[i] = Long.parseLong(last.trim()) / 1e6;
+        }
+
+        return Benchmark.median(times);
+
+    }
+
+    //.... Helper method: the definitions set up with the API, which are the same as those in the XML file
+    private static Options build() {
+        Options options = new Options(new String[0]);
+        options.setDefault(0, OptionSet.INF);
+        OptionSet set = options.getSet();
+        for (int i = 0; i < OPTIONS; i++) {
+            OptionData od = set.addOption(OptionData.Type.VALUE, "o" + i);
+            od.setValueText("value");
+            od.setHelpText("The help text for option " + i);
+        }
+        return options;
+    }
+
+    //.... Helper method: the XML definitions
+    private static String definitions() {
+        StringBuilder sb = new StringBuilder(OPTIONS * 100);
+        sb.append("<options defData=\"0:INF\"><defaultSet>");
+        for (int i = 0; i < OPTIONS; i++) {
+            sb.append("<option type=\"VALUE\" key=\"o").append(i).append("\"><text><value>value</value>")
+                    .append("<help>The help text for option ").append(i).append("</help></text></option>");
+        }
+        sb.append("</defaultSet></options>");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the typed accessors for result values against the conversions of
+ * the JDK, also after the instance has been reset for other arguments.
+ */
+class TypedResultTest {
+
+    private static Options build(String... args) {
+        Options options = new Options(args);
+        options.getSet().addOption(OptionData.Type.VALUE, "n", null, Options.Separator.EQUALS,
+                Options.Multiplicity.ZERO_OR_MORE);
+        options.getSet().addOption(OptionData.Type.SIMPLE, "s", Options.Multiplicity.ZERO_OR_ONCE);
+        return options;
+    }
+
+    @Test
+    void conversionsAsInJdk() {
+
+        String[] values = {"0", "+5", "-17", "2147483647", "2147483648", "-9223372036854775808",
+                "9223372036854775808", "1e3", "0x10", " 1", "1.5", "NaN", "-Infinity", "true", "TRUE", "yes"};
+        String[] args = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            args[i] = "-n=" + values[i];
+        }
+        Options options = build(args);
+        assertTrue(options.check(), options.getCheckErrors());
+        OptionData n = options.getSet().getOption("n");
+        assertEquals(values.length, n.getResultCount());
+
+        for (int i = 0; i < n.getResultCount(); i++) {
+            String value = n.getResultValue(i);
+            int index = i;
+            assertEquals(Boolean.parseBoolean(value), n.getResultBoolean(i), value);
+            for (int round = 0; round < 2; round++) {                    // The second time from the stored result
+                if (isLong(value)) {
+                    assertEquals(Long.parseLong(value), n.getResultLong(i), value);
+                } else {
+                    assertThrows(NumberFormatException.class, () -> n.getResultLong(index), value);
+                }
+                if (isLong(value) && Long.parseLong(value) == (int) Long.parseLong(value)) {
+                    assertEquals(Integer.parseInt(value), n.getResultInt(i), value);
+                } else {
+                    assertThrows(NumberFormatException.class, () -> n.getResultInt(index), value);
+                }
+                if (isDouble(value)) {
+                    assertEquals(Double.parseDouble(value), n.getResultDouble(i), value);
+                } else {
+                    assertThrows(NumberFormatException.class, () -> n.getResultDouble(index), value);
+                }
+            }
+        }
+
+    }
+
+    @Test
+    void bulkAccessAndReset() {
+
+        Options options = build("-n=1", "-n=-2", "-n=3");
+        assertTrue(options.check());
+        OptionData n = options.getSet().getOption("n");
+        assertArrayEquals(new int[]{1, -2, 3}, n.getResultInts());
+        assertEquals(-2L, n.getResultLongs()[1]);
+
+        options.reset(new String[]{"-n=42"});
+        assertTrue(options.check());
+        assertEquals(1, n.getResultCount());
+        assertEquals(42, n.getResultInt(0));
+        assertArrayEquals(new int[]{42}, n.getResultInts());
+
+        OptionData s = options.getSet().getOption("s");
+        assertThrows(UnsupportedOperationException.class, () -> s.getResultInt(0));
+        assertThrows(IllegalArgumentException.class, () -> n.getResultInt(1));
+        assertFalse(s.isSet());
+
+    }
+
+    @Test
+    void parseResultAccessors() {
+        OptionsSpec spec = build().compile();
+        ParseResult result = spec.parse(new String[]{"-n=7", "-n=2.5", "-n=true"});
+        assertTrue(result.isSuccess());
+        assertEquals(7, result.getResultInt("n", 0));
+        assertEquals(7L, result.getResultLong("n", 0));
+        assertEquals(2.5, result.getResultDouble("n", 1));
+        assertTrue(result.getResultBoolean("n", 2));
+        assertThrows(NumberFormatException.class, () -> result.getResultInt("n", 1));
+    }
+
+    //.... Helper method: whether the JDK accepts the value as long
+    private static boolean isLong(String value) {
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    //.... Helper method: whether the JDK accepts the value as double
+    private static boolean isDouble(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the compiled value constraints against the linear scans used
+ * before: the constraint is satisfied by the first acceptable value, unless
+ * a value which is not an integer at all comes first (for the integer
+ * types).
+ */
+class ValueConstraintTest {
+
+    private final static String[] STRINGS = {"red", "Blue", "GREEN", "stra\u00dfe", "\u01c5", "\u0131", "\u03c3"};
+    private final static String[] CANDIDATES = {"red", "RED", "blue", "Green", "STRASSE", "stra\u00dfe", "STRA\u00dfE",
+            "\u01c4", "\u01c6", "I", "i", "\u0130", "\u03a3", "\u03c2", "x", "", "3", "-7", "12", "+5", "2147483648",
+            "1e1", "0x3", "\u0663"};
+    private final static int[] INTS = {-7, 3, 5, 2147483647};
+
+    @Test
+    void stringArrays() {
+        for (boolean caseSensitive : new boolean[]{true, false}) {
+            compare((od) -> ValueConstraint.add(od, STRINGS, caseSensitive), (value) -> {
+                for (String s : STRINGS) {
+                    if (caseSensitive ? s.equals(value) : s.equalsIgnoreCase(value)) {
+                        return 1;
+                    }
+                }
+                return 0;
+            });
+        }
+    }
+
+    @Test
+    void intArrays() {
+        compare((od) -> ValueConstraint.add(od, INTS), (value) -> {
+            int t;
+            try {
+                t = Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                return -1;
+            }
+            for (int i : INTS) {
+                if (i == t) {
+                    return 1;
+                }
+            }
+            return 0;
+        });
+    }
+
+    @Test
+    void intRanges() {
+        compare((od) -> ValueConstraint.add(od, -7, 4), (value) -> {
+            int t;
+            try {
+                t = Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                return -1;
+            }
+            return t >= -7 && t <= 4 ? 1 : 0;
+        });
+    }
+
+    @Test
+    void specifications() {
+        Options options = new Options(new String[]{"-s=BLUE", "-i=7", "-r=12"});
+        OptionSet set = options.getSet();
+        set.addOption(OptionData.Type.VALUE, "s", null, Options.Separator.EQUALS, Options.Multiplicity.ONCE);
+        set.addOption(OptionData.Type.VALUE, "i", null, Options.Separator.EQUALS, Options.Multiplicity.ONCE);
+        set.addOption(OptionData.Type.VALUE, "r", null, Options.Separator.EQUALS, Options.Multiplicity.ONCE);
+        ValueConstraint.add(set.getOption("s"), ValueConstraint.Type.STRING_ARRAY, "+red|blue");
+        ValueConstraint.add(set.getOption("i"), ValueConstraint.Type.INT_ARRAY, "1|7|9");
+        ValueConstraint.add(set.getOption("r"), ValueConstraint.Type.INT_RANGE, "7:12");
+        assertTrue(options.check(), options.getCheckErrors());
+
+        options.reset(new String[]{"-s=BLUE", "-i=8", "-r=12"});
+        assertFalse(options.check());
+    }
+
+    /**
+     * The definition of a constraint for an option
+     */
+    private interface Definition {
+
+        void add(OptionData od);
+    }
+
+    /**
+     * The reference check for a single value: <code>1</code> if acceptable,
+     * <code>-1</code> if the constraint fails for sure, <code>0</code>
+     * otherwise
+     */
+    private interface Reference {
+
+        int check(String value);
+    }
+
+    //.... Helper method: compare the constraint with the reference for random lists of values
+    private static void compare(Definition definition, Reference reference) {
+
+        Random random = new Random(7);
+        Options options = new Options(new String[0]);
+        OptionData od = options.getSet().addOption(OptionData.Type.VALUE, "v", null, Options.Separator.EQUALS,
+                Options.Multiplicity.ZERO_OR_MORE);
+        definition.add(od);
+        Constraint constraint = od.getConstraints().get(0);
+
+        for (int round = 0; round < 2000; round++) {
+
+            String[] values = new String[1 + random.nextInt(4)];
+            String[] args = new String[values.length];
+            boolean expected = false;
+            boolean decided = false;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = CANDIDATES[random.nextInt(CANDIDATES.length)];
+                args[i] = "-v=" + values[i];
+                int outcome = values[i].isEmpty() ? 0 : reference.check(values[i]);
+                if (!decided && outcome != 0) {
+                    expected = outcome > 0;
+                    decided = true;
+                }
+            }
+
+            options.reset(args);
+            options.check();
+            assertEquals(expected, constraint.isSatisfied(), Arrays.toString(values));
+
+        }
+
+    }
+}
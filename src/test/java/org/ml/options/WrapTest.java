@@ -0,0 +1,75 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that checking a range of a larger array, without copying it, has the
+ * same outcome as checking a copy of the range, and that the array of the
+ * caller is never modified.
+ */
+class WrapTest {
+
+    private final static String[] PADDING = {"-q", "junk", "-x"};
+
+    //.... Helper method: the arguments embedded between some unrelated arguments
+    private static String[] embed(String[] args) {
+        String[] array = new String[PADDING.length + args.length + PADDING.length];
+        System.arraycopy(PADDING, 0, array, 0, PADDING.length);
+        System.arraycopy(args, 0, array, PADDING.length, args.length);
+        System.arraycopy(PADDING, 0, array, PADDING.length + args.length, PADDING.length);
+        return array;
+    }
+
+    @Test
+    void sameAsCopiedRange() {
+
+        Options options = Fixtures.build(new String[0]);
+        OptionsSpec spec = Fixtures.build(new String[0]).compile();
+
+        for (String[] args : Fixtures.COMMAND_LINES) {
+            for (boolean ignoreUnmatched : new boolean[]{false, true}) {
+
+                String message = Arrays.toString(args) + " " + ignoreUnmatched;
+                String[] array = embed(args);
+                String expected = Fixtures.describe(Fixtures.build(args), ignoreUnmatched, true);
+
+                options.reset(array, PADDING.length, args.length);
+                assertEquals(expected, Fixtures.describe(options, ignoreUnmatched, true), message);
+
+                assertEquals(expected, Fixtures.describe(spec, spec.parse(array, PADDING.length, args.length,
+                        ignoreUnmatched, true)), message);
+
+                assertArrayEquals(embed(args), array, message);
+
+            }
+        }
+
+    }
+
+    @Test
+    void resetDoesNotOverwriteWrappedArray() {
+        String[] array = {"-x", "-y", "d"};
+        Options options = Fixtures.build(new String[0]).reset(array, 0, array.length);
+        assertEquals("b", options.getMatchingSet().getName());
+        options.reset(new String[]{"-v", "-o", "f"});
+        assertEquals("a", options.getMatchingSet().getName());
+        assertArrayEquals(new String[]{"-x", "-y", "d"}, array);
+    }
+
+    @Test
+    void invalidRanges() {
+        String[] array = {"a", "b"};
+        assertThrows(IllegalArgumentException.class, () -> Options.wrap(null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Options.wrap(array, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> Options.wrap(array, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> Options.wrap(array, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> Options.wrap(array, Integer.MAX_VALUE, 2));
+        assertDoesNotThrow(() -> Options.wrap(array, 2, 0));
+    }
+}
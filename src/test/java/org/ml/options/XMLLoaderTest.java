@@ -0,0 +1,48 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.StringReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the definitions loaded from XML, validated while the document
+ * is built, are the same as those set up in code, and that invalid files are
+ * rejected. The schema is part of the resources of the JAR, so these checks
+ * are skipped if it is not available.
+ */
+class XMLLoaderTest {
+
+    @BeforeEach
+    void schemaAvailable() {
+        assumeTrue(SchemaValidator.class.getClassLoader().getResource("config/options.xsd") != null,
+                "the schema is not available");
+    }
+
+    @Test
+    void sameAsCode() throws Exception {
+
+        assertEquals(Fixtures.definitions(Fixtures.buildXMLEquivalent(new String[0])),
+                Fixtures.definitions(new Options(new String[0], new StringReader(Fixtures.XML))));
+
+        for (String[] args : Fixtures.COMMAND_LINES) {
+            for (boolean ignoreUnmatched : new boolean[]{false, true}) {
+                Options options = new Options(args, new StringReader(Fixtures.XML));
+                assertEquals(Fixtures.describe(Fixtures.buildXMLEquivalent(args), ignoreUnmatched, false),
+                        Fixtures.describe(options, ignoreUnmatched, false));
+            }
+        }
+
+    }
+
+    @Test
+    void invalidFiles() {
+        assertThrows(XMLParsingException.class, () -> new Options(new String[0], new StringReader("<options>")));
+        assertThrows(XMLParsingException.class, () -> new Options(new String[0], new StringReader("<unknown/>")));
+        assertThrows(XMLParsingException.class, () -> new Options(new String[0], new StringReader("<options/>")));
+        assertThrows(IllegalArgumentException.class, () -> new Options(new String[0], null));
+    }
+}
@@ -0,0 +1,70 @@
+package org.ml.options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.StringReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link Options#fromXML(String[], java.io.Reader)}, which
+ * processes the XML file as a stream of SAX events, creates the same
+ * definitions as the JDOM based {@link Options#Options(String[], java.io.Reader)},
+ * and rejects the same files. The schema is part of the resources of the JAR,
+ * so these checks are skipped if it is not available.
+ */
+class XMLOptionsHandlerTest {
+
+    @BeforeEach
+    void schemaAvailable() {
+        assumeTrue(SchemaValidator.class.getClassLoader().getResource("config/options.xsd") != null,
+                "the schema is not available");
+    }
+
+    @Test
+    void sameAsDocumentLoader() throws Exception {
+
+        for (String xml : new String[]{Fixtures.XML, layout(Fixtures.XML), generated(50)}) {
+            assertEquals(Fixtures.definitions(new Options(new String[0], new StringReader(xml))),
+                    Fixtures.definitions(Options.fromXML(new String[0], new StringReader(xml))));
+        }
+
+        for (String[] args : Fixtures.COMMAND_LINES) {
+            assertEquals(Fixtures.describe(new Options(args, new StringReader(Fixtures.XML)), false, false),
+                    Fixtures.describe(Options.fromXML(args, new StringReader(Fixtures.XML)), false, false));
+        }
+
+    }
+
+    @Test
+    void invalidFiles() {
+        for (String xml : new String[]{"<options>", "<unknown/>", "<options/>"}) {
+            assertThrows(XMLParsingException.class, () -> new Options(new String[0], new StringReader(xml)), xml);
+            assertThrows(XMLParsingException.class, () -> Options.fromXML(new String[0], new StringReader(xml)), xml);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Options.fromXML(new String[0], null));
+    }
+
+    //.... Helper method: the same document with line breaks, indentation and comments between the elements
+    private static String layout(String xml) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- Definitions -->\n"
+                + xml.replace("><", ">\n  <!-- -->\n  <");
+    }
+
+    //.... Helper method: a document with many sets and options, with texts split by entities
+    private static String generated(int sets) {
+        StringBuilder sb = new StringBuilder("<options defData=\"1\" defMult=\"ZERO_OR_MORE\">");
+        for (int i = 0; i < sets; i++) {
+            sb.append("<set name=\"s").append(i).append("\" data=\"0:").append(i).append("\">");
+            for (int j = 0; j <= i % 7; j++) {
+                sb.append("<option type=\"DETAIL\" key=\"k").append(j).append("\"><text><value>v").append(j)
+                        .append("</value><detail>d</detail><help>Help &amp; more for ").append(j)
+                        .append("</help></text></option>");
+            }
+            sb.append("</set>");
+        }
+        return sb.append("<defaultSet><option type=\"SIMPLE\" key=\"q\"/></defaultSet></options>").toString();
+    }
+}